@@ -0,0 +1,26 @@
+package com.trading212.Trading212.config;
+
+import com.trading212.Trading212.service.FeedLatencyMonitor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Exposes the market data latency histograms at {@code /actuator/feedlatency}.
+ */
+@Component
+@Endpoint(id = "feedlatency")
+public class FeedLatencyEndpoint {
+    private final FeedLatencyMonitor latencyMonitor;
+
+    public FeedLatencyEndpoint(FeedLatencyMonitor latencyMonitor) {
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> latency() {
+        return latencyMonitor.getSummary();
+    }
+}
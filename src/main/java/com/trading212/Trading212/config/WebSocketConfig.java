@@ -20,6 +20,7 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
 
+import com.trading212.Trading212.service.outbound.SessionOutboundBroker;
 import com.trading212.Trading212.util.WebSocketUtils;
 
 /**
@@ -40,6 +41,13 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
     // Heartbeat configuration (in milliseconds)
     private static final long[] HEARTBEAT = new long[] {10000, 10000}; // 10 seconds
+
+    private final SessionOutboundBroker outboundBroker;
+
+    @Autowired
+    public WebSocketConfig(SessionOutboundBroker outboundBroker) {
+        this.outboundBroker = outboundBroker;
+    }
     
     // WebSocket logging interceptor
     @Bean
@@ -98,6 +106,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         
         // Configure timeouts and other transport settings
         registration.setTimeToFirstMessage(30000); // 30 seconds to first message
+
+        // In queued broker mode, track sessions and write their queued frames through the STOMP handler
+        registration.addDecoratorFactory(outboundBroker::decorate);
     }
     
     @Override
@@ -143,6 +154,13 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                     logger.error("Error sending outbound WebSocket message: {}", ex.getMessage(), ex);
                 }
             }
+        }, new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                // In queued broker mode, messages for a session go to its queue instead of the executor. The
+                // send then reports false, which the simple broker, the only sender of such messages, ignores
+                return outboundBroker.offer(message) ? null : message;
+            }
         });
     }
 }
\ No newline at end of file
@@ -1,18 +1,24 @@
 package com.trading212.Trading212.controller;
 
+import com.trading212.Trading212.model.CandleInterval;
 import com.trading212.Trading212.model.CryptoCurrencyEntity;
+import com.trading212.Trading212.service.CandleAggregator;
 import com.trading212.Trading212.service.CryptoService;
+import com.trading212.Trading212.service.WebSocket.KrakenWebSocketClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/crypto")
@@ -20,10 +26,15 @@ public class CryptoController {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CryptoController.class);
 
     private final CryptoService cryptoService;
+    private final CandleAggregator candleAggregator;
+    private final KrakenWebSocketClient krakenWebSocketClient;
 
     @Autowired
-    public CryptoController(CryptoService cryptoService) {
+    public CryptoController(CryptoService cryptoService, CandleAggregator candleAggregator,
+                            KrakenWebSocketClient krakenWebSocketClient) {
         this.cryptoService = cryptoService;
+        this.candleAggregator = candleAggregator;
+        this.krakenWebSocketClient = krakenWebSocketClient;
     }
 
     @GetMapping
@@ -31,7 +42,70 @@ public class CryptoController {
         List<CryptoCurrencyEntity> cryptos = cryptoService.getAllCryptocurrencies();
         return ResponseEntity.ok(cryptos);
     }
+
+    @GetMapping("/{symbol}/candles")
+    public ResponseEntity<?> getCandles(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1m") String interval,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to) {
+        Optional<CandleInterval> candleInterval = CandleInterval.fromCode(interval);
+        if (candleInterval.isEmpty()) {
+            return ResponseEntity.badRequest().body("Unknown interval '" + interval + "', expected one of 1s, 1m, 5m, 1h");
+        }
+        
+        // Defaults to the range held in memory, ending now
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - candleInterval.get().getMillis() * candleInterval.get().getCapacity();
+        if (start > end) {
+            return ResponseEntity.badRequest().body("'from' must not be after 'to'");
+        }
+        
+        try {
+            return ResponseEntity.ok(candleAggregator.getCandles(symbol.toUpperCase(), candleInterval.get(), start, end));
+        } catch (Exception e) {
+            logger.error("Error fetching candles for {}: {}", symbol, e.getMessage(), e);
+            return ResponseEntity.internalServerError().body("Error fetching candles");
+        }
+    }
     
+    /**
+     * Kraken ticker subscription state of every pair: PENDING, SUBSCRIBED, UNSUBSCRIBING or ERROR
+     */
+    @GetMapping("/subscriptions")
+    public List<Map<String, Object>> getSubscriptions() {
+        return krakenWebSocketClient.getSubscriptionStatus();
+    }
+
+    /**
+     * Applies rows added to or changed in the cryptocurrencies table without waiting for the
+     * periodic refresh.
+     */
+    @PostMapping("/subscriptions/refresh")
+    public List<Map<String, Object>> refreshSubscriptions() {
+        cryptoService.refreshSymbols();
+        return krakenWebSocketClient.getSubscriptionStatus();
+    }
+
+    @PostMapping("/{symbol}/enable")
+    public ResponseEntity<String> enable(@PathVariable String symbol) {
+        return setEnabled(symbol, true);
+    }
+
+    @PostMapping("/{symbol}/disable")
+    public ResponseEntity<String> disable(@PathVariable String symbol) {
+        return setEnabled(symbol, false);
+    }
+
+    private ResponseEntity<String> setEnabled(String symbol, boolean enabled) {
+        try {
+            cryptoService.setEnabled(symbol.toUpperCase(), enabled);
+            return ResponseEntity.ok(symbol.toUpperCase() + (enabled ? " enabled" : " disabled"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PostMapping("/init")
     @Transactional
     public ResponseEntity<String> initializeCryptocurrencies() {
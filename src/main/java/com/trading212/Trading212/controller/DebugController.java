@@ -1,24 +1,66 @@
 package com.trading212.Trading212.controller;
 
 import com.trading212.Trading212.model.CryptoPriceUpdate;
+import com.trading212.Trading212.service.PriceBroadcaster;
+import com.trading212.Trading212.service.WebSocket.KrakenJournalReplayer;
+import com.trading212.Trading212.service.WebSocket.KrakenWebSocketClient;
+import com.trading212.Trading212.service.WebSocket.MarketDataSource;
+import com.trading212.Trading212.service.execution.AccountLanes;
+import com.trading212.Trading212.service.orders.LimitOrderService;
+import com.trading212.Trading212.service.orders.TriggerOrderService;
+import com.trading212.Trading212.service.outbound.SessionOutboundBroker;
+import com.trading212.Trading212.service.pipeline.TickPipeline;
+import com.trading212.Trading212.service.venue.CompositePriceAggregator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/debug")
 public class DebugController {
     private static final Logger logger = LoggerFactory.getLogger(DebugController.class);
     private final SimpMessagingTemplate messagingTemplate;
+    private final KrakenWebSocketClient krakenWebSocketClient;
+    private final KrakenJournalReplayer journalReplayer;
+    private final MarketDataSource marketDataSource;
+    private final TickPipeline tickPipeline;
+    private final CompositePriceAggregator compositePrices;
+    private final PriceBroadcaster priceBroadcaster;
+    private final SessionOutboundBroker outboundBroker;
+    private final AccountLanes accountLanes;
+    private final LimitOrderService limitOrderService;
+    private final TriggerOrderService triggerOrderService;
 
-    public DebugController(SimpMessagingTemplate messagingTemplate) {
+    public DebugController(SimpMessagingTemplate messagingTemplate, KrakenWebSocketClient krakenWebSocketClient,
+                           KrakenJournalReplayer journalReplayer, MarketDataSource marketDataSource,
+                           TickPipeline tickPipeline, CompositePriceAggregator compositePrices,
+                           PriceBroadcaster priceBroadcaster, SessionOutboundBroker outboundBroker,
+                           AccountLanes accountLanes, LimitOrderService limitOrderService,
+                           TriggerOrderService triggerOrderService) {
         this.messagingTemplate = messagingTemplate;
+        this.krakenWebSocketClient = krakenWebSocketClient;
+        this.journalReplayer = journalReplayer;
+        this.marketDataSource = marketDataSource;
+        this.tickPipeline = tickPipeline;
+        this.compositePrices = compositePrices;
+        this.priceBroadcaster = priceBroadcaster;
+        this.outboundBroker = outboundBroker;
+        this.accountLanes = accountLanes;
+        this.limitOrderService = limitOrderService;
+        this.triggerOrderService = triggerOrderService;
     }
 
     @GetMapping("/test-ws")
@@ -43,4 +85,98 @@ public class DebugController {
     public String checkWebSocket() {
         return "WebSocket test endpoint is available. Use /test-ws to send a test message.";
     }
+
+    @GetMapping("/kraken-connections")
+    public List<Map<String, Object>> krakenConnections() {
+        return krakenWebSocketClient.getConnectionStatus();
+    }
+
+    @GetMapping("/market-data")
+    public Map<String, Object> marketDataSource() {
+        return marketDataSource.getStatus();
+    }
+
+    @GetMapping("/pipeline")
+    public Map<String, Object> tickPipeline() {
+        return tickPipeline.getStatus();
+    }
+
+    @GetMapping("/broadcast")
+    public Map<String, Object> priceBroadcast() {
+        return priceBroadcaster.getStatus();
+    }
+
+    @GetMapping("/outbound")
+    public Map<String, Object> outboundBroker() {
+        return outboundBroker.getStatus();
+    }
+
+    @GetMapping("/lanes")
+    public Map<String, Object> accountLanes() {
+        return accountLanes.getStatus();
+    }
+
+    @GetMapping("/limit-orders")
+    public Map<String, Object> limitOrders() {
+        return limitOrderService.getStatus();
+    }
+
+    @GetMapping("/triggers")
+    public Map<String, Object> triggers() {
+        return triggerOrderService.getStatus();
+    }
+
+    @GetMapping("/venues")
+    public Map<String, Object> venues() {
+        return compositePrices.getStatus();
+    }
+
+    /**
+     * Composite price of a symbol next to the quote of every venue it was computed from
+     */
+    @GetMapping("/composite/{symbol}")
+    public ResponseEntity<Map<String, Object>> compositePrice(@PathVariable String symbol) {
+        return compositePrices.describe(symbol)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Replays a recorded Kraken journal through the feed pipeline. A speed of 1 is the original
+     * pace, N is N times faster and 0 is as fast as possible. Only available with
+     * {@code journal.replay.enabled}, for a directory inside {@code journal.directory}, and not
+     * while the live Kraken feed is attached.
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<Map<String, Object>> replayJournal(
+            @RequestParam(required = false) String directory,
+            @RequestParam(defaultValue = "1") double speed) {
+        if (!journalReplayer.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path path;
+        try {
+            path = journalReplayer.resolve(directory);
+            if (!journalReplayer.start(path, speed)) {
+                return ResponseEntity.status(409).body(journalReplayer.getStatus());
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "ERROR", "message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("status", "ERROR", "message", e.getMessage()));
+        }
+        logger.info("Started journal replay from {} at speed {}", path, speed);
+        return ResponseEntity.accepted().body(journalReplayer.getStatus());
+    }
+
+    @GetMapping("/replay")
+    public Map<String, Object> replayStatus() {
+        return journalReplayer.getStatus();
+    }
+
+    @PostMapping("/replay/stop")
+    public Map<String, Object> stopReplay() {
+        journalReplayer.stop();
+        return journalReplayer.getStatus();
+    }
 }
@@ -1,8 +1,12 @@
 package com.trading212.Trading212.controller;
 
+import com.trading212.Trading212.dto.LimitOrderRequest;
 import com.trading212.Trading212.dto.TradeRequest;
 import com.trading212.Trading212.dto.TradeResponse;
+import com.trading212.Trading212.dto.TriggerOrderRequest;
 import com.trading212.Trading212.service.TradingService;
+import com.trading212.Trading212.service.orders.LimitOrderService;
+import com.trading212.Trading212.service.orders.TriggerOrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,10 +23,15 @@ public class TradingController {
     private static final Logger logger = LoggerFactory.getLogger(TradingController.class);
     
     private final TradingService tradingService;
+    private final LimitOrderService limitOrderService;
+    private final TriggerOrderService triggerOrderService;
 
     @Autowired
-    public TradingController(TradingService tradingService) {
+    public TradingController(TradingService tradingService, LimitOrderService limitOrderService,
+                             TriggerOrderService triggerOrderService) {
         this.tradingService = tradingService;
+        this.limitOrderService = limitOrderService;
+        this.triggerOrderService = triggerOrderService;
     }
 
     @PostMapping("/buy")
@@ -101,4 +110,84 @@ public class TradingController {
             return ResponseEntity.internalServerError().body("Error fetching transaction history");
         }
     }
+
+    @PostMapping("/limit")
+    public ResponseEntity<?> placeLimitOrder(@Valid @RequestBody LimitOrderRequest request) {
+        logger.info("Received LIMIT {} request for user {}: {} {} at {}", request.getSide(), request.getUserId(),
+                request.getQuantity(), request.getSymbol(), request.getLimitPrice());
+        try {
+            return ResponseEntity.ok(limitOrderService.place(request));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid limit order: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("status", "ERROR", "message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error placing limit order: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("status", "ERROR", "message", "An unexpected error occurred"));
+        }
+    }
+
+    @DeleteMapping("/limit/{orderId}")
+    public ResponseEntity<?> cancelLimitOrder(@PathVariable Long orderId, @RequestParam Long userId) {
+        if (!limitOrderService.cancel(userId, orderId)) {
+            return ResponseEntity.status(404).body(Map.of("status", "ERROR", "message", "No open limit order " + orderId));
+        }
+        return ResponseEntity.ok(Map.of("status", "CANCELLED", "orderId", orderId));
+    }
+
+    @GetMapping("/limit/{userId}")
+    public ResponseEntity<?> getLimitOrders(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        if (page < 1) {
+            return ResponseEntity.badRequest().body("Page number must be greater than 0");
+        }
+
+        if (size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("Page size must be between 1 and 100");
+        }
+
+        return ResponseEntity.ok(limitOrderService.getOrders(userId, page, size));
+    }
+
+    @PostMapping("/triggers")
+    public ResponseEntity<?> placeTriggerOrder(@Valid @RequestBody TriggerOrderRequest request) {
+        logger.info("Received {} request for user {}: {} {} at {} / trail {}", request.getType(), request.getUserId(),
+                request.getQuantity(), request.getSymbol(), request.getTriggerPrice(), request.getTrailDistance());
+        try {
+            return ResponseEntity.ok(triggerOrderService.place(request));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            logger.error("Invalid trigger order: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("status", "ERROR", "message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error placing trigger order: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(Map.of("status", "ERROR", "message", "An unexpected error occurred"));
+        }
+    }
+
+    @DeleteMapping("/triggers/{orderId}")
+    public ResponseEntity<?> cancelTriggerOrder(@PathVariable Long orderId, @RequestParam Long userId) {
+        if (!triggerOrderService.cancel(userId, orderId)) {
+            return ResponseEntity.status(404).body(Map.of("status", "ERROR", "message", "No active trigger order " + orderId));
+        }
+        return ResponseEntity.ok(Map.of("status", "CANCELLED", "orderId", orderId));
+    }
+
+    @GetMapping("/triggers/{userId}")
+    public ResponseEntity<?> getTriggerOrders(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        if (page < 1) {
+            return ResponseEntity.badRequest().body("Page number must be greater than 0");
+        }
+
+        if (size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body("Page size must be between 1 and 100");
+        }
+
+        return ResponseEntity.ok(triggerOrderService.getOrders(userId, page, size));
+    }
 }
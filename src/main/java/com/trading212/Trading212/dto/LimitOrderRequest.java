@@ -0,0 +1,66 @@
+package com.trading212.Trading212.dto;
+
+import com.trading212.Trading212.model.TransactionType;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+public class LimitOrderRequest {
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotNull(message = "Cryptocurrency symbol is required")
+    private String symbol;
+
+    @NotNull(message = "Side is required")
+    private TransactionType side;
+
+    @NotNull(message = "Quantity is required")
+    @DecimalMin(value = "0.00000001", message = "Quantity must be greater than 0")
+    private BigDecimal quantity;
+
+    @NotNull(message = "Limit price is required")
+    @DecimalMin(value = "0.00000001", message = "Limit price must be greater than 0")
+    private BigDecimal limitPrice;
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public TransactionType getSide() {
+        return side;
+    }
+
+    public void setSide(TransactionType side) {
+        this.side = side;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(BigDecimal quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getLimitPrice() {
+        return limitPrice;
+    }
+
+    public void setLimitPrice(BigDecimal limitPrice) {
+        this.limitPrice = limitPrice;
+    }
+}
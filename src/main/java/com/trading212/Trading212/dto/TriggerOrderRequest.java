@@ -0,0 +1,78 @@
+package com.trading212.Trading212.dto;
+
+import com.trading212.Trading212.model.TriggerType;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+public class TriggerOrderRequest {
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotNull(message = "Cryptocurrency symbol is required")
+    private String symbol;
+
+    @NotNull(message = "Trigger type is required")
+    private TriggerType type;
+
+    @NotNull(message = "Quantity is required")
+    @DecimalMin(value = "0.00000001", message = "Quantity must be greater than 0")
+    private BigDecimal quantity;
+
+    // Stop-loss and take-profit orders
+    @DecimalMin(value = "0.00000001", message = "Trigger price must be greater than 0")
+    private BigDecimal triggerPrice;
+
+    // Trailing stops
+    @DecimalMin(value = "0.00000001", message = "Trail distance must be greater than 0")
+    private BigDecimal trailDistance;
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public TriggerType getType() {
+        return type;
+    }
+
+    public void setType(TriggerType type) {
+        this.type = type;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(BigDecimal quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getTriggerPrice() {
+        return triggerPrice;
+    }
+
+    public void setTriggerPrice(BigDecimal triggerPrice) {
+        this.triggerPrice = triggerPrice;
+    }
+
+    public BigDecimal getTrailDistance() {
+        return trailDistance;
+    }
+
+    public void setTrailDistance(BigDecimal trailDistance) {
+        this.trailDistance = trailDistance;
+    }
+}
@@ -0,0 +1,56 @@
+package com.trading212.Trading212.listener;
+
+import com.trading212.Trading212.service.PriceBroadcaster;
+import com.trading212.Trading212.service.PriceSubscriptionIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+/**
+ * Keeps {@link PriceSubscriptionIndex} in step with the sessions' subscriptions, and sends the
+ * current prices to every new subscription of a price destination, so clients see all prices at
+ * once instead of waiting for each symbol's next tick.
+ */
+@Component
+public class PriceSubscriptionListener {
+
+    private final PriceBroadcaster priceBroadcaster;
+    private final PriceSubscriptionIndex subscriptionIndex;
+
+    @Autowired
+    public PriceSubscriptionListener(PriceBroadcaster priceBroadcaster, PriceSubscriptionIndex subscriptionIndex) {
+        this.priceBroadcaster = priceBroadcaster;
+        this.subscriptionIndex = subscriptionIndex;
+    }
+
+    @EventListener
+    public void handleSessionSubscribeEvent(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (PriceSubscriptionIndex.isSymbolDestination(destination)) {
+            // Indexed before the snapshot is read, so no update falls between the two
+            subscriptionIndex.subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), destination)
+                    .ifPresent(priceBroadcaster::sendSnapshot);
+        } else if (destination != null && priceBroadcaster.isPriceDestination(destination)) {
+            // In simple broker mode the subscription is registered by the broker, well within a flush
+            // interval of this event; updates queued from here on reach the session in the following batches
+            subscriptionIndex.subscribeBatches(accessor.getSessionId(), accessor.getSubscriptionId(), destination);
+            priceBroadcaster.sendSnapshot(accessor.getSessionId(), accessor.getSubscriptionId(), destination);
+        }
+    }
+
+    @EventListener
+    public void handleSessionUnsubscribeEvent(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        subscriptionIndex.unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void handleSessionDisconnectEvent(SessionDisconnectEvent event) {
+        subscriptionIndex.removeSession(event.getSessionId());
+    }
+}
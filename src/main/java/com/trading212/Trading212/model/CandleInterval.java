@@ -0,0 +1,49 @@
+package com.trading212.Trading212.model;
+
+import java.util.Optional;
+
+public enum CandleInterval {
+    // Capacity is the number of candles kept in memory per symbol
+    ONE_SECOND("1s", 1_000L, 3_600),
+    ONE_MINUTE("1m", 60_000L, 1_440),
+    FIVE_MINUTES("5m", 300_000L, 2_016),
+    ONE_HOUR("1h", 3_600_000L, 720);
+
+    private final String code;
+    private final long millis;
+    private final int capacity;
+
+    CandleInterval(String code, long millis, int capacity) {
+        this.code = code;
+        this.millis = millis;
+        this.capacity = capacity;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Start of the candle containing the given time
+     */
+    public long openTime(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, millis);
+    }
+
+    public static Optional<CandleInterval> fromCode(String code) {
+        for (CandleInterval interval : values()) {
+            if (interval.code.equals(code)) {
+                return Optional.of(interval);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -12,6 +12,7 @@ public class CryptoCurrencyEntity {
     private BigDecimal currentPrice;
     private LocalDateTime lastUpdated;
     private Integer marketRank;
+    private boolean enabled = true;
 
     // No-argument constructor
     public CryptoCurrencyEntity() {
@@ -80,4 +81,15 @@ public class CryptoCurrencyEntity {
     public void setMarketRank(Integer marketRank) {
         this.marketRank = marketRank;
     }
-}
\ No newline at end of file
+
+    /**
+     * Whether the pair is subscribed to on the market data feed
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
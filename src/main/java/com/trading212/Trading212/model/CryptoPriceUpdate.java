@@ -1,11 +1,18 @@
 package com.trading212.Trading212.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.math.BigDecimal;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class CryptoPriceUpdate {
     private String symbol;
     private BigDecimal newPrice;
     private long timestamp;
+    // Increases with every update broadcast; clients drop updates older than what they hold
+    private long sequence;
+    // Only sent in snapshots, so a client can build its list from them
+    private String name;
 
     // No-argument constructor
     public CryptoPriceUpdate() {
@@ -42,4 +49,20 @@ public class CryptoPriceUpdate {
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
 }
@@ -0,0 +1,116 @@
+package com.trading212.Trading212.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class LimitOrderEntity {
+    private Long id;
+    private Long userId;
+    private Long cryptoId;
+    private String symbol;
+    private TransactionType side;
+    private BigDecimal quantity;
+    private BigDecimal limitPrice;
+    private LimitOrderStatus status;
+    private Long transactionId;
+    private String statusMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastUpdated;
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getCryptoId() {
+        return cryptoId;
+    }
+
+    public void setCryptoId(Long cryptoId) {
+        this.cryptoId = cryptoId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public TransactionType getSide() {
+        return side;
+    }
+
+    public void setSide(TransactionType side) {
+        this.side = side;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(BigDecimal quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getLimitPrice() {
+        return limitPrice;
+    }
+
+    public void setLimitPrice(BigDecimal limitPrice) {
+        this.limitPrice = limitPrice;
+    }
+
+    public LimitOrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(LimitOrderStatus status) {
+        this.status = status;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    public void setStatusMessage(String statusMessage) {
+        this.statusMessage = statusMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(LocalDateTime lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+}
@@ -0,0 +1,10 @@
+package com.trading212.Trading212.model;
+
+public enum LimitOrderStatus {
+    // Resting in the book until the price crosses its limit
+    OPEN,
+    FILLED,
+    CANCELLED,
+    // Crossed, but the balance or holding did not cover it
+    REJECTED
+}
@@ -0,0 +1,86 @@
+package com.trading212.Trading212.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class OrderBookSnapshot {
+    private String symbol;
+    private long timestamp;
+    // Best price first
+    private List<Level> bids;
+    private List<Level> asks;
+
+    // No-argument constructor
+    public OrderBookSnapshot() {
+    }
+
+    // All-arguments constructor
+    public OrderBookSnapshot(String symbol, long timestamp, List<Level> bids, List<Level> asks) {
+        this.symbol = symbol;
+        this.timestamp = timestamp;
+        this.bids = bids;
+        this.asks = asks;
+    }
+
+    // Getters and Setters
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public List<Level> getBids() {
+        return bids;
+    }
+
+    public void setBids(List<Level> bids) {
+        this.bids = bids;
+    }
+
+    public List<Level> getAsks() {
+        return asks;
+    }
+
+    public void setAsks(List<Level> asks) {
+        this.asks = asks;
+    }
+
+    public static class Level {
+        private BigDecimal price;
+        private BigDecimal volume;
+
+        public Level() {
+        }
+
+        public Level(BigDecimal price, BigDecimal volume) {
+            this.price = price;
+            this.volume = volume;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public BigDecimal getVolume() {
+            return volume;
+        }
+
+        public void setVolume(BigDecimal volume) {
+            this.volume = volume;
+        }
+    }
+}
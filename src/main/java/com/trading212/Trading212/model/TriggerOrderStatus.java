@@ -0,0 +1,10 @@
+package com.trading212.Trading212.model;
+
+public enum TriggerOrderStatus {
+    // Waiting for the price to reach its trigger
+    ACTIVE,
+    FILLED,
+    CANCELLED,
+    // Fired, but the holding no longer covered it
+    REJECTED
+}
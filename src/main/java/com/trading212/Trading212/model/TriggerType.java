@@ -0,0 +1,10 @@
+package com.trading212.Trading212.model;
+
+public enum TriggerType {
+    // Sells once the price falls to the trigger
+    STOP_LOSS,
+    // Sells once the price rises to the trigger
+    TAKE_PROFIT,
+    // Sells once the price falls the trail distance below the highest price since placement
+    TRAILING_STOP
+}
@@ -0,0 +1,77 @@
+package com.trading212.Trading212.repository;
+
+import com.trading212.Trading212.model.Candle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class CandleRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private final RowMapper<Candle> candleRowMapper = (rs, rowNum) -> new Candle(
+            rs.getString("symbol"),
+            rs.getString("candle_interval"),
+            rs.getLong("open_time"),
+            rs.getBigDecimal("open_price"),
+            rs.getBigDecimal("high_price"),
+            rs.getBigDecimal("low_price"),
+            rs.getBigDecimal("close_price"),
+            rs.getBigDecimal("volume"));
+
+    @Autowired
+    public CandleRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts closed candles in one batch, replacing any candle already stored for the same
+     * symbol, interval and open time
+     * @return number of candles written
+     */
+    public int saveAll(List<Candle> candles) {
+        if (candles.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+            INSERT INTO candles (symbol, candle_interval, open_time, open_price, high_price, low_price, close_price, volume)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                high_price = VALUES(high_price),
+                low_price = VALUES(low_price),
+                close_price = VALUES(close_price),
+                volume = VALUES(volume)
+            """;
+        List<Object[]> batch = new ArrayList<>(candles.size());
+        for (Candle candle : candles) {
+            batch.add(new Object[] {
+                    candle.getSymbol(),
+                    candle.getInterval(),
+                    candle.getOpenTime(),
+                    candle.getOpen(),
+                    candle.getHigh(),
+                    candle.getLow(),
+                    candle.getClose(),
+                    candle.getVolume()
+            });
+        }
+        jdbcTemplate.batchUpdate(sql, batch);
+        return candles.size();
+    }
+
+    /**
+     * Finds stored candles with an open time in {@code [from, to]}, oldest first
+     */
+    public List<Candle> find(String symbol, String interval, long from, long to) {
+        String sql = """
+            SELECT symbol, candle_interval, open_time, open_price, high_price, low_price, close_price, volume
+            FROM candles
+            WHERE symbol = ? AND candle_interval = ? AND open_time BETWEEN ? AND ?
+            ORDER BY open_time
+            """;
+        return jdbcTemplate.query(sql, candleRowMapper, symbol, interval, from, to);
+    }
+}
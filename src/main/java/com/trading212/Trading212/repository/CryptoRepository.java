@@ -12,7 +12,10 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.math.RoundingMode;
 
@@ -20,6 +23,8 @@ import java.math.RoundingMode;
 public class CryptoRepository {
     private static final Logger logger = LoggerFactory.getLogger(CryptoRepository.class);
     private final JdbcTemplate jdbcTemplate;
+    // Set once user_holdings is known to exist, which then is not checked again
+    private volatile boolean userHoldingsTableChecked;
 
     @Autowired
     public CryptoRepository(JdbcTemplate jdbcTemplate) {
@@ -36,6 +41,7 @@ public class CryptoRepository {
             crypto.setName(rs.getString("name"));
             crypto.setKrakenPairName(rs.getString("kraken_pair_name"));
             crypto.setCurrentPrice(rs.getBigDecimal("current_price"));
+            crypto.setEnabled(rs.getBoolean("enabled"));
             // Handle nullable timestamp if necessary, though your DDL has a default
             crypto.setLastUpdated(rs.getTimestamp("last_updated") != null ?
                     rs.getTimestamp("last_updated").toLocalDateTime() : null);
@@ -57,11 +63,47 @@ public class CryptoRepository {
                     name VARCHAR(100) NOT NULL,
                     kraken_pair_name VARCHAR(20) NOT NULL UNIQUE,
                     current_price DECIMAL(20, 8) NOT NULL,
+                    enabled BOOLEAN NOT NULL DEFAULT TRUE,
                     last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
                 )
                 """);
             logger.info("cryptocurrencies table created successfully");
         }
+        ensureEnabledColumnExists();
+    }
+
+    /**
+     * Adds the {@code enabled} column to tables created before it existed. VET/USD and NEO/USD,
+     * which Kraken's WebSocket API does not list, start out disabled.
+     */
+    private void ensureEnabledColumnExists() {
+        String sql = "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = DATABASE() " +
+                "AND table_name = 'cryptocurrencies' AND column_name = 'enabled'";
+        if (jdbcTemplate.queryForObject(sql, Integer.class) > 0) {
+            return;
+        }
+        logger.info("Adding enabled column to cryptocurrencies table...");
+        jdbcTemplate.execute("ALTER TABLE cryptocurrencies ADD COLUMN enabled BOOLEAN NOT NULL DEFAULT TRUE AFTER current_price");
+        jdbcTemplate.update("UPDATE cryptocurrencies SET enabled = FALSE WHERE kraken_pair_name IN ('VET/USD', 'NEO/USD')");
+    }
+
+    /**
+     * Enables or disables the feed subscription of a cryptocurrency.
+     *
+     * @return {@code true} if the cryptocurrency exists
+     */
+    public boolean setEnabled(String symbol, boolean enabled) {
+        final String sql = "UPDATE cryptocurrencies SET enabled = ? WHERE symbol = ?";
+        return jdbcTemplate.update(sql, enabled, symbol) > 0;
+    }
+
+    /**
+     * All cryptocurrencies in insertion order, without the diagnostics of {@link #findAll()}; for
+     * periodic refreshes.
+     */
+    public List<CryptoCurrencyEntity> findAllInInsertionOrder() {
+        final String sql = "SELECT id, symbol, name, kraken_pair_name, current_price, enabled, last_updated FROM cryptocurrencies ORDER BY id";
+        return jdbcTemplate.query(sql, new CryptocurrencyRowMapper());
     }
     
     @Transactional
@@ -115,9 +157,34 @@ public class CryptoRepository {
         final String sql = "UPDATE cryptocurrencies SET current_price = ?, last_updated = CURRENT_TIMESTAMP WHERE kraken_pair_name = ?";
         jdbcTemplate.update(sql, newPrice, krakenPairName);
     }
-    
+
+    /**
+     * Updates the prices of several cryptocurrencies in a single statement
+     * @param pricesByPair new price keyed by Kraken pair name
+     * @return number of rows updated
+     */
+    public int updatePrices(Map<String, BigDecimal> pricesByPair) {
+        if (pricesByPair.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE cryptocurrencies SET current_price = CASE kraken_pair_name");
+        List<Object> params = new ArrayList<>(pricesByPair.size() * 3);
+        for (Map.Entry<String, BigDecimal> entry : pricesByPair.entrySet()) {
+            sql.append(" WHEN ? THEN ?");
+            params.add(entry.getKey());
+            params.add(entry.getValue());
+        }
+        sql.append(" END, last_updated = CURRENT_TIMESTAMP WHERE kraken_pair_name IN (");
+        sql.append(String.join(", ", Collections.nCopies(pricesByPair.size(), "?")));
+        sql.append(")");
+        params.addAll(pricesByPair.keySet());
+
+        return jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+
     public Optional<CryptoCurrencyEntity> findBySymbol(String symbol) {
-        final String sql = "SELECT id, symbol, name, kraken_pair_name, current_price, last_updated FROM cryptocurrencies WHERE symbol = ?";
+        final String sql = "SELECT id, symbol, name, kraken_pair_name, current_price, enabled, last_updated FROM cryptocurrencies WHERE symbol = ?";
         List<CryptoCurrencyEntity> cryptos = jdbcTemplate.query(sql, new CryptocurrencyRowMapper(), symbol);
         return cryptos.stream().findFirst();
     }
@@ -143,6 +210,35 @@ public class CryptoRepository {
         }
     }
     
+    /**
+     * Adds to a user's holding, creating it if the user has none, in one statement
+     */
+    public void addToHolding(Long userId, Long cryptoId, BigDecimal quantity) {
+        ensureUserHoldingsTableExists();
+        String sql = """
+            INSERT INTO user_holdings (user_id, crypto_id, quantity)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE quantity = quantity + ?
+            """;
+        jdbcTemplate.update(sql, userId, cryptoId, quantity, quantity);
+    }
+
+    /**
+     * Subtracts from a user's holding if the holding covers the quantity, checking and writing in
+     * one statement.
+     *
+     * @return {@code false} if the user holds less than the quantity
+     */
+    public boolean subtractFromHoldingIfSufficient(Long userId, Long cryptoId, BigDecimal quantity) {
+        ensureUserHoldingsTableExists();
+        String sql = """
+            UPDATE user_holdings
+            SET quantity = quantity - ?
+            WHERE user_id = ? AND crypto_id = ? AND quantity >= ?
+            """;
+        return jdbcTemplate.update(sql, quantity, userId, cryptoId, quantity) > 0;
+    }
+
     /**
      * Checks if a user has an existing holding for a specific cryptocurrency
      */
@@ -212,6 +308,9 @@ public class CryptoRepository {
     }
     
     private void ensureUserHoldingsTableExists() {
+        if (userHoldingsTableChecked) {
+            return;
+        }
         if (!tableExists("user_holdings")) {
             logger.info("Creating user_holdings table...");
             jdbcTemplate.execute("""
@@ -228,10 +327,11 @@ public class CryptoRepository {
                 """);
             logger.info("user_holdings table created successfully");
         }
+        userHoldingsTableChecked = true;
     }
 
     public Optional<CryptoCurrencyEntity> findByKrakenPairName(String krakenPairName) {
-        final String sql = "SELECT id, symbol, name, kraken_pair_name, current_price, last_updated FROM cryptocurrencies WHERE kraken_pair_name = ?";
+        final String sql = "SELECT id, symbol, name, kraken_pair_name, current_price, enabled, last_updated FROM cryptocurrencies WHERE kraken_pair_name = ?";
         List<CryptoCurrencyEntity> cryptos = jdbcTemplate.query(sql, new CryptocurrencyRowMapper(), krakenPairName);
         return cryptos.stream().findFirst();
     }
@@ -262,7 +362,7 @@ public class CryptoRepository {
             }
             
             final String sql = """
-                SELECT id, symbol, name, kraken_pair_name, current_price, last_updated 
+                SELECT id, symbol, name, kraken_pair_name, current_price, enabled, last_updated 
                 FROM cryptocurrencies 
                 ORDER BY symbol 
                 LIMIT ? OFFSET ?
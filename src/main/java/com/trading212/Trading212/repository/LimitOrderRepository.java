@@ -0,0 +1,110 @@
+package com.trading212.Trading212.repository;
+
+import com.trading212.Trading212.model.LimitOrderEntity;
+import com.trading212.Trading212.model.LimitOrderStatus;
+import com.trading212.Trading212.model.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Limit orders. Status changes are conditional on the order still being open, so a fill and a
+ * cancellation racing for the same order cannot both succeed.
+ */
+@Repository
+public class LimitOrderRepository {
+    private static final String SELECT = """
+            SELECT o.*, c.symbol
+            FROM limit_orders o
+            JOIN cryptocurrencies c ON o.crypto_id = c.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RowMapper<LimitOrderEntity> limitOrderRowMapper;
+
+    @Autowired
+    public LimitOrderRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.limitOrderRowMapper = (rs, rowNum) -> {
+            LimitOrderEntity order = new LimitOrderEntity();
+            order.setId(rs.getLong("id"));
+            order.setUserId(rs.getLong("user_id"));
+            order.setCryptoId(rs.getLong("crypto_id"));
+            order.setSymbol(rs.getString("symbol"));
+            order.setSide(TransactionType.valueOf(rs.getString("side")));
+            order.setQuantity(rs.getBigDecimal("quantity"));
+            order.setLimitPrice(rs.getBigDecimal("limit_price"));
+            order.setStatus(LimitOrderStatus.valueOf(rs.getString("status")));
+            long transactionId = rs.getLong("transaction_id");
+            order.setTransactionId(rs.wasNull() ? null : transactionId);
+            order.setStatusMessage(rs.getString("status_message"));
+            order.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            order.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
+            return order;
+        };
+    }
+
+    /**
+     * @return the id of the new open order
+     */
+    public Long insert(Long userId, Long cryptoId, TransactionType side, BigDecimal quantity, BigDecimal limitPrice) {
+        String sql = "INSERT INTO limit_orders (user_id, crypto_id, side, quantity, limit_price) VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, userId);
+            ps.setLong(2, cryptoId);
+            ps.setString(3, side.name());
+            ps.setBigDecimal(4, quantity);
+            ps.setBigDecimal(5, limitPrice);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
+    }
+
+    public Optional<LimitOrderEntity> findById(Long id) {
+        return jdbcTemplate.query(SELECT + "WHERE o.id = ?", limitOrderRowMapper, id).stream().findFirst();
+    }
+
+    public List<LimitOrderEntity> findOpen() {
+        return jdbcTemplate.query(SELECT + "WHERE o.status = 'OPEN' ORDER BY o.id", limitOrderRowMapper);
+    }
+
+    public List<LimitOrderEntity> findByUserId(Long userId, int limit, int offset) {
+        return jdbcTemplate.query(SELECT + "WHERE o.user_id = ? ORDER BY o.id DESC LIMIT ? OFFSET ?",
+                limitOrderRowMapper, userId, limit, offset);
+    }
+
+    /**
+     * @return {@code false} if the order is no longer open
+     */
+    public boolean markFilled(Long id, Long transactionId) {
+        String sql = "UPDATE limit_orders SET status = 'FILLED', transaction_id = ? WHERE id = ? AND status = 'OPEN'";
+        return jdbcTemplate.update(sql, transactionId, id) > 0;
+    }
+
+    /**
+     * @return {@code false} if the order is no longer open
+     */
+    public boolean markRejected(Long id, String message) {
+        String sql = "UPDATE limit_orders SET status = 'REJECTED', status_message = ? WHERE id = ? AND status = 'OPEN'";
+        return jdbcTemplate.update(sql, message, id) > 0;
+    }
+
+    /**
+     * @return {@code false} if the user has no such open order
+     */
+    public boolean cancel(Long id, Long userId) {
+        String sql = "UPDATE limit_orders SET status = 'CANCELLED' WHERE id = ? AND user_id = ? AND status = 'OPEN'";
+        return jdbcTemplate.update(sql, id, userId) > 0;
+    }
+}
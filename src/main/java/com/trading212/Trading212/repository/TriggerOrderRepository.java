@@ -0,0 +1,138 @@
+package com.trading212.Trading212.repository;
+
+import com.trading212.Trading212.model.TriggerOrderEntity;
+import com.trading212.Trading212.model.TriggerOrderStatus;
+import com.trading212.Trading212.model.TriggerType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stop-loss, take-profit and trailing-stop orders. Status changes are conditional on the order
+ * still being active, so a fill and a cancellation racing for the same order cannot both succeed.
+ */
+@Repository
+public class TriggerOrderRepository {
+    private static final String SELECT = """
+            SELECT o.*, c.symbol
+            FROM trigger_orders o
+            JOIN cryptocurrencies c ON o.crypto_id = c.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RowMapper<TriggerOrderEntity> triggerOrderRowMapper;
+
+    @Autowired
+    public TriggerOrderRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.triggerOrderRowMapper = (rs, rowNum) -> {
+            TriggerOrderEntity order = new TriggerOrderEntity();
+            order.setId(rs.getLong("id"));
+            order.setUserId(rs.getLong("user_id"));
+            order.setCryptoId(rs.getLong("crypto_id"));
+            order.setSymbol(rs.getString("symbol"));
+            order.setType(TriggerType.valueOf(rs.getString("trigger_type")));
+            order.setQuantity(rs.getBigDecimal("quantity"));
+            order.setTriggerPrice(rs.getBigDecimal("trigger_price"));
+            order.setTrailDistance(rs.getBigDecimal("trail_distance"));
+            order.setPeakPrice(rs.getBigDecimal("peak_price"));
+            order.setStatus(TriggerOrderStatus.valueOf(rs.getString("status")));
+            long transactionId = rs.getLong("transaction_id");
+            order.setTransactionId(rs.wasNull() ? null : transactionId);
+            order.setStatusMessage(rs.getString("status_message"));
+            order.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            order.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
+            return order;
+        };
+    }
+
+    /**
+     * @param triggerPrice trigger of a stop-loss or take-profit order, else {@code null}
+     * @param trailDistance distance of a trailing stop, else {@code null}
+     * @param peakPrice price a trailing stop starts trailing from, else {@code null}
+     * @return the id of the new active order
+     */
+    public Long insert(Long userId, Long cryptoId, TriggerType type, BigDecimal quantity,
+                       BigDecimal triggerPrice, BigDecimal trailDistance, BigDecimal peakPrice) {
+        String sql = """
+            INSERT INTO trigger_orders (user_id, crypto_id, trigger_type, quantity, trigger_price, trail_distance, peak_price)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, userId);
+            ps.setLong(2, cryptoId);
+            ps.setString(3, type.name());
+            ps.setBigDecimal(4, quantity);
+            ps.setBigDecimal(5, triggerPrice);
+            ps.setBigDecimal(6, trailDistance);
+            ps.setBigDecimal(7, peakPrice);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey() != null ? keyHolder.getKey().longValue() : null;
+    }
+
+    public Optional<TriggerOrderEntity> findById(Long id) {
+        return jdbcTemplate.query(SELECT + "WHERE o.id = ?", triggerOrderRowMapper, id).stream().findFirst();
+    }
+
+    public List<TriggerOrderEntity> findActive() {
+        return jdbcTemplate.query(SELECT + "WHERE o.status = 'ACTIVE' ORDER BY o.id", triggerOrderRowMapper);
+    }
+
+    public List<TriggerOrderEntity> findByUserId(Long userId, int limit, int offset) {
+        return jdbcTemplate.query(SELECT + "WHERE o.user_id = ? ORDER BY o.id DESC LIMIT ? OFFSET ?",
+                triggerOrderRowMapper, userId, limit, offset);
+    }
+
+    /**
+     * @return {@code false} if the order is no longer active
+     */
+    public boolean markFilled(Long id, Long transactionId) {
+        String sql = "UPDATE trigger_orders SET status = 'FILLED', transaction_id = ? WHERE id = ? AND status = 'ACTIVE'";
+        return jdbcTemplate.update(sql, transactionId, id) > 0;
+    }
+
+    /**
+     * @return {@code false} if the order is no longer active
+     */
+    public boolean markRejected(Long id, String message) {
+        String sql = "UPDATE trigger_orders SET status = 'REJECTED', status_message = ? WHERE id = ? AND status = 'ACTIVE'";
+        return jdbcTemplate.update(sql, message, id) > 0;
+    }
+
+    /**
+     * @return {@code false} if the user has no such active order
+     */
+    public boolean cancel(Long id, Long userId) {
+        String sql = "UPDATE trigger_orders SET status = 'CANCELLED' WHERE id = ? AND user_id = ? AND status = 'ACTIVE'";
+        return jdbcTemplate.update(sql, id, userId) > 0;
+    }
+
+    /**
+     * Writes the peaks of trailing stops as one batch
+     * @param peaksById new peak keyed by order id
+     */
+    public void updatePeaks(Map<Long, BigDecimal> peaksById) {
+        if (peaksById.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(peaksById.size());
+        for (Map.Entry<Long, BigDecimal> entry : peaksById.entrySet()) {
+            args.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE trigger_orders SET peak_price = ? WHERE id = ? AND status = 'ACTIVE'", args);
+    }
+}
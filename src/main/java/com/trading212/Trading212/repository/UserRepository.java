@@ -53,6 +53,30 @@ public class UserRepository {
         return updated > 0;
     }
 
+    /**
+     * Subtracts the amount from the balance if the balance covers it, checking and writing in one
+     * statement.
+     *
+     * @return {@code false} if the user does not exist or the balance is too low
+     */
+    public boolean debitIfSufficient(Long userId, BigDecimal amount) {
+        String sql = "UPDATE users SET balance = balance - ?, last_updated = CURRENT_TIMESTAMP WHERE id = ? AND balance >= ?";
+        return jdbcTemplate.update(sql, amount, userId, amount) > 0;
+    }
+
+    /**
+     * @return {@code false} if the user does not exist
+     */
+    public boolean credit(Long userId, BigDecimal amount) {
+        String sql = "UPDATE users SET balance = balance + ?, last_updated = CURRENT_TIMESTAMP WHERE id = ?";
+        return jdbcTemplate.update(sql, amount, userId) > 0;
+    }
+
+    public Optional<BigDecimal> findBalance(Long userId) {
+        String sql = "SELECT balance FROM users WHERE id = ?";
+        return jdbcTemplate.queryForList(sql, BigDecimal.class, userId).stream().findFirst();
+    }
+
     @Transactional
     public UserEntity createUser(String username) {
         String sql = "INSERT INTO users (username, balance) VALUES (?, ?) RETURNING *";
@@ -0,0 +1,179 @@
+package com.trading212.Trading212.service;
+
+import com.trading212.Trading212.model.Candle;
+import com.trading212.Trading212.model.CandleInterval;
+import com.trading212.Trading212.repository.CandleRepository;
+import com.trading212.Trading212.util.FixedPoint;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Streaming OHLCV aggregation of feed ticks.
+ * <p>
+ * Every symbol keeps a {@link CandleSeries} ring buffer per {@link CandleInterval}, indexed by
+ * {@link SymbolRegistry} id, so recent candles are served straight from memory. Closed candles of
+ * the intervals listed in {@code candles.persist-intervals} are written to the {@code candles}
+ * table in batches.
+ */
+@Service
+public class CandleAggregator {
+    private static final Logger logger = LoggerFactory.getLogger(CandleAggregator.class);
+
+    // Upper bound on closed candles waiting for the database; the oldest are dropped beyond it
+    private static final int MAX_PENDING = 100_000;
+
+    private final CandleRepository candleRepository;
+    private final SymbolRegistry symbolRegistry;
+    private final Set<String> persistedIntervals;
+    private final AtomicReferenceArray<CandleSeries[]> seriesById;
+    // Last cumulative day volume seen per id, to turn it into per-tick volume
+    private final AtomicLongArray dayVolumes;
+    private final ConcurrentLinkedQueue<Candle> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    @Autowired
+    public CandleAggregator(CandleRepository candleRepository, SymbolRegistry symbolRegistry,
+                            @Value("${candles.persist-intervals:1m,5m,1h}") List<String> persistIntervals) {
+        this.candleRepository = candleRepository;
+        this.symbolRegistry = symbolRegistry;
+        this.persistedIntervals = Set.copyOf(persistIntervals);
+        this.seriesById = new AtomicReferenceArray<>(symbolRegistry.getCapacity());
+        this.dayVolumes = new AtomicLongArray(symbolRegistry.getCapacity());
+        for (int i = 0; i < dayVolumes.length(); i++) {
+            dayVolumes.set(i, FixedPoint.NULL);
+        }
+    }
+
+    /**
+     * Folds one tick into every interval of the symbol.
+     *
+     * @param id {@link SymbolRegistry} id of the symbol
+     * @param price {@link FixedPoint} price
+     * @param dayVolume {@link FixedPoint} cumulative volume since the start of the day as reported
+     *                  by the exchange, or {@link FixedPoint#NULL} if unknown
+     */
+    public void onTick(int id, long price, long dayVolume, long timestamp) {
+        long volume = volumeSinceLastTick(id, dayVolume);
+        CandleSeries[] series = seriesById.get(id);
+        if (series == null) {
+            seriesById.compareAndSet(id, null, createSeries(symbolRegistry.get(id).getSymbol()));
+            series = seriesById.get(id);
+        }
+        for (CandleSeries interval : series) {
+            Candle closed = interval.onTick(timestamp, price, volume);
+            if (closed != null) {
+                enqueue(closed);
+            }
+        }
+    }
+
+    private CandleSeries[] createSeries(String symbol) {
+        CandleInterval[] intervals = CandleInterval.values();
+        CandleSeries[] series = new CandleSeries[intervals.length];
+        for (int i = 0; i < intervals.length; i++) {
+            series[i] = new CandleSeries(symbol, intervals[i]);
+        }
+        return series;
+    }
+
+    private long volumeSinceLastTick(int id, long dayVolume) {
+        if (dayVolume == FixedPoint.NULL) {
+            return 0;
+        }
+        long previous = dayVolumes.getAndSet(id, dayVolume);
+        if (previous == FixedPoint.NULL) {
+            return 0;
+        }
+        long delta = FixedPoint.subtract(dayVolume, previous);
+        // The exchange resets the day volume at midnight UTC
+        return delta < 0 ? dayVolume : delta;
+    }
+
+    private void enqueue(Candle candle) {
+        if (!persistedIntervals.contains(candle.getInterval())) {
+            return;
+        }
+        pending.add(candle);
+        if (pendingCount.incrementAndGet() > MAX_PENDING && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Candles of a symbol with an open time in {@code [from, to]}, oldest first. Served from memory
+     * when the range is still held there, otherwise from the database topped up with the candles
+     * not yet persisted.
+     */
+    public List<Candle> getCandles(String symbol, CandleInterval interval, long from, long to) {
+        int id = symbolRegistry.idOfSymbol(symbol);
+        CandleSeries[] all = id >= 0 ? seriesById.get(id) : null;
+        CandleSeries series = all != null ? all[interval.ordinal()] : null;
+        if (series != null && from >= series.oldestOpenTime()) {
+            return series.range(from, to);
+        }
+        if (!persistedIntervals.contains(interval.getCode())) {
+            return series != null ? series.range(from, to) : List.of();
+        }
+
+        List<Candle> candles = new ArrayList<>(candleRepository.find(symbol, interval.getCode(), from, to));
+        if (series != null) {
+            long lastStored = candles.isEmpty() ? Long.MIN_VALUE : candles.get(candles.size() - 1).getOpenTime();
+            candles.addAll(series.range(Math.max(from, lastStored + 1), to));
+        }
+        return candles;
+    }
+
+    @Scheduled(fixedDelayString = "${candles.flush-interval-ms:5000}")
+    public void flush() {
+        // Close candles whose interval ended without a newer tick
+        long now = System.currentTimeMillis();
+        for (int id = 0; id < symbolRegistry.size(); id++) {
+            CandleSeries[] series = seriesById.get(id);
+            if (series == null) {
+                continue;
+            }
+            for (CandleSeries interval : series) {
+                Candle closed = interval.closeIfEnded(now);
+                if (closed != null) {
+                    enqueue(closed);
+                }
+            }
+        }
+
+        List<Candle> batch = new ArrayList<>();
+        Candle candle;
+        while ((candle = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(candle);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            candleRepository.saveAll(batch);
+            logger.debug("Persisted {} closed candles", batch.size());
+        } catch (Exception e) {
+            logger.error("Failed to persist {} candles: {}", batch.size(), e.getMessage());
+            batch.forEach(this::enqueue);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Flushing closed candles before shutdown...");
+        flush();
+    }
+}
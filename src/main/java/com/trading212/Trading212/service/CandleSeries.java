@@ -0,0 +1,116 @@
+package com.trading212.Trading212.service;
+
+import com.trading212.Trading212.model.Candle;
+import com.trading212.Trading212.model.CandleInterval;
+import com.trading212.Trading212.util.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring buffer of the most recent candles of one symbol at one interval. The newest
+ * slot is the candle currently being built; older slots are overwritten once the buffer is full.
+ * Prices and volumes are held as {@link FixedPoint} values.
+ */
+final class CandleSeries {
+    private final String symbol;
+    private final CandleInterval interval;
+    private final int capacity;
+    private final long[] openTimes;
+    private final long[] opens;
+    private final long[] highs;
+    private final long[] lows;
+    private final long[] closes;
+    private final long[] volumes;
+    // Index of the newest candle
+    private int head = -1;
+    private int count;
+    // Whether the newest candle was already handed out as closed
+    private boolean headClosed;
+
+    CandleSeries(String symbol, CandleInterval interval) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.capacity = interval.getCapacity();
+        this.openTimes = new long[capacity];
+        this.opens = new long[capacity];
+        this.highs = new long[capacity];
+        this.lows = new long[capacity];
+        this.closes = new long[capacity];
+        this.volumes = new long[capacity];
+    }
+
+    /**
+     * Folds a tick into the current candle, starting a new one when the tick falls into a later
+     * interval. Ticks older than the current candle are ignored.
+     *
+     * @return the candle closed by this tick, or {@code null}
+     */
+    synchronized Candle onTick(long timestamp, long price, long volume) {
+        long openTime = interval.openTime(timestamp);
+        if (count > 0 && openTime < openTimes[head]) {
+            return null;
+        }
+        if (count > 0 && openTime == openTimes[head]) {
+            highs[head] = Math.max(highs[head], price);
+            lows[head] = Math.min(lows[head], price);
+            closes[head] = price;
+            volumes[head] = FixedPoint.add(volumes[head], volume);
+            return null;
+        }
+
+        Candle closed = count > 0 && !headClosed ? toCandle(head) : null;
+        head = (head + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+        openTimes[head] = openTime;
+        opens[head] = price;
+        highs[head] = price;
+        lows[head] = price;
+        closes[head] = price;
+        volumes[head] = volume;
+        headClosed = false;
+        return closed;
+    }
+
+    /**
+     * Closes the current candle if its interval has ended without a later tick arriving.
+     *
+     * @return the closed candle, or {@code null}
+     */
+    synchronized Candle closeIfEnded(long now) {
+        if (count == 0 || headClosed || now < openTimes[head] + interval.getMillis()) {
+            return null;
+        }
+        headClosed = true;
+        return toCandle(head);
+    }
+
+    /**
+     * Open time of the oldest candle still held, or {@link Long#MAX_VALUE} if there is none
+     */
+    synchronized long oldestOpenTime() {
+        return count == 0 ? Long.MAX_VALUE : openTimes[Math.floorMod(head - count + 1, capacity)];
+    }
+
+    /**
+     * Candles with an open time in {@code [from, to]}, oldest first.
+     */
+    synchronized List<Candle> range(long from, long to) {
+        List<Candle> result = new ArrayList<>();
+        for (int i = count - 1; i >= 0; i--) {
+            int index = Math.floorMod(head - i, capacity);
+            if (openTimes[index] >= from && openTimes[index] <= to) {
+                result.add(toCandle(index));
+            }
+        }
+        return result;
+    }
+
+    private Candle toCandle(int index) {
+        return new Candle(symbol, interval.getCode(), openTimes[index], FixedPoint.toBigDecimal(opens[index]),
+                FixedPoint.toBigDecimal(highs[index]), FixedPoint.toBigDecimal(lows[index]),
+                FixedPoint.toBigDecimal(closes[index]), FixedPoint.toBigDecimal(volumes[index]));
+    }
+}
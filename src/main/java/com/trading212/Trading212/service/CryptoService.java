@@ -3,6 +3,8 @@ package com.trading212.Trading212.service;
 import com.trading212.Trading212.model.CryptoCurrencyEntity;
 import com.trading212.Trading212.model.CryptoPriceUpdate;
 import com.trading212.Trading212.repository.CryptoRepository;
+import com.trading212.Trading212.service.WebSocket.KrakenWebSocketClient;
+import com.trading212.Trading212.util.FixedPoint;
 import jakarta.annotation.PostConstruct;
 
 import java.math.BigDecimal;
@@ -24,19 +26,27 @@ public class CryptoService {
     private static final Logger logger = LoggerFactory.getLogger(CryptoService.class);
     private final CryptoRepository cryptoRepo;
     private final SimpMessagingTemplate messagingTemplate;
-    private final Map<String, BigDecimal> lastPrices = new HashMap<>();
     private final JdbcTemplate jdbcTemplate;
     private final MarketDataService marketDataService;
+    private final PriceBook priceBook;
+    private final PriceBroadcaster priceBroadcaster;
+    private final KrakenWebSocketClient krakenWebSocketClient;
 
     @Autowired
     public CryptoService(CryptoRepository cryptoRepo, 
                         SimpMessagingTemplate messagingTemplate, 
                         JdbcTemplate jdbcTemplate,
-                        MarketDataService marketDataService) {
+                        MarketDataService marketDataService,
+                        PriceBook priceBook,
+                        PriceBroadcaster priceBroadcaster,
+                        KrakenWebSocketClient krakenWebSocketClient) {
         this.cryptoRepo = cryptoRepo;
         this.messagingTemplate = messagingTemplate;
         this.jdbcTemplate = jdbcTemplate;
         this.marketDataService = marketDataService;
+        this.priceBook = priceBook;
+        this.priceBroadcaster = priceBroadcaster;
+        this.krakenWebSocketClient = krakenWebSocketClient;
     }
 
     @PostConstruct
@@ -64,16 +74,14 @@ public class CryptoService {
                 new CryptoCurrencyEntity("LINK", "Chainlink", "LINK/USD", BigDecimal.ZERO),
                 new CryptoCurrencyEntity("SOL", "Solana", "SOL/USD", BigDecimal.ZERO),
                 new CryptoCurrencyEntity("UNI", "Uniswap", "UNI/USD", BigDecimal.ZERO),
-                new CryptoCurrencyEntity("DOGE", "Dogecoin", "DOGE/USD", BigDecimal.ZERO),
+                new CryptoCurrencyEntity("DOGE", "Dogecoin", "XDG/USD", BigDecimal.ZERO),
                 new CryptoCurrencyEntity("TRX", "TRON", "TRX/USD", BigDecimal.ZERO),
                 new CryptoCurrencyEntity("ETC", "Ethereum Classic", "ETC/USD", BigDecimal.ZERO),
                 new CryptoCurrencyEntity("XLM", "Stellar", "XLM/USD", BigDecimal.ZERO),
                 new CryptoCurrencyEntity("EOS", "EOS", "EOS/USD", BigDecimal.ZERO),
                 new CryptoCurrencyEntity("XTZ", "Tezos", "XTZ/USD", BigDecimal.ZERO),
                 new CryptoCurrencyEntity("ATOM", "Cosmos", "ATOM/USD", BigDecimal.ZERO),
-                new CryptoCurrencyEntity("FIL", "Filecoin", "FIL/USD", BigDecimal.ZERO),
-                new CryptoCurrencyEntity("VET", "VeChain", "VET/USD", BigDecimal.ZERO),
-                new CryptoCurrencyEntity("NEO", "NEO", "NEO/USD", BigDecimal.ZERO)
+                new CryptoCurrencyEntity("FIL", "Filecoin", "FIL/USD", BigDecimal.ZERO)
             );
 
             // Get existing symbols
@@ -104,26 +112,60 @@ public class CryptoService {
             if (inserted > 0) {
                 logger.info("Successfully inserted {} new cryptocurrencies", inserted);
             }
+
+            refreshSymbols();
         } catch (Exception e) {
             logger.error("Error initializing cryptocurrency data: " + e.getMessage(), e);
             throw new RuntimeException("Failed to initialize cryptocurrency data", e);
         }
     }
 
-    @Transactional
+    /**
+     * Registers cryptocurrencies added to the table, seeding the price book, and subscribes the
+     * feed to exactly the enabled ones. Also picks up rows changed directly in the database.
+     */
+    @Scheduled(fixedDelayString = "${symbols.refresh-interval-ms:30000}",
+            initialDelayString = "${symbols.refresh-interval-ms:30000}")
+    public synchronized void refreshSymbols() {
+        List<CryptoCurrencyEntity> cryptos = cryptoRepo.findAllInInsertionOrder();
+        priceBook.load(cryptos);
+        krakenWebSocketClient.updatePairs(cryptos.stream()
+                .filter(CryptoCurrencyEntity::isEnabled)
+                .map(CryptoCurrencyEntity::getKrakenPairName)
+                .toList());
+    }
+
+    /**
+     * Enables or disables the feed subscription of a cryptocurrency, applying it right away.
+     *
+     * @throws IllegalArgumentException if the symbol is unknown
+     */
+    public void setEnabled(String symbol, boolean enabled) {
+        if (!cryptoRepo.setEnabled(symbol, enabled)) {
+            throw new IllegalArgumentException("Cryptocurrency not found");
+        }
+        logger.info("{} {}", enabled ? "Enabled" : "Disabled", symbol);
+        refreshSymbols();
+    }
+
     public void updatePrice(String symbol, BigDecimal newPrice) {
+        long price = FixedPoint.of(newPrice);
         // Only update and notify if price has changed
-        if (!newPrice.equals(lastPrices.get(symbol))) {
-            cryptoRepo.updatePrice(symbol, newPrice);
-            lastPrices.put(symbol, newPrice);
+        PriceBook.Entry current = priceBook.getBySymbol(symbol).orElse(null);
+        if (current == null || current.getFixedPrice() != price) {
+            long timestamp = Instant.now().toEpochMilli();
+            if (priceBook.updateBySymbol(symbol, price, timestamp).isEmpty()) {
+                logger.warn("Ignoring price update for unknown symbol {}", symbol);
+                return;
+            }
             
             // Send update via WebSocket
             CryptoPriceUpdate update = new CryptoPriceUpdate(
                 symbol, 
                 newPrice, 
-                Instant.now().toEpochMilli()
+                timestamp
             );
-            messagingTemplate.convertAndSend("/topic/prices", update);
+            priceBroadcaster.publish(update);
         }
     }
 
@@ -159,8 +201,9 @@ public class CryptoService {
         // Get market ranks for all cryptocurrencies
         Map<String, Integer> marketRanks = marketDataService.getMarketRanks();
         
-        // Set market ranks
+        // Set market ranks and the latest prices from the price book
         for (CryptoCurrencyEntity crypto : cryptos) {
+            priceBook.getPriceBySymbol(crypto.getSymbol()).ifPresent(crypto::setCurrentPrice);
             Integer rank = marketRanks.get(crypto.getSymbol());
             if (rank != null) {
                 crypto.setMarketRank(rank);
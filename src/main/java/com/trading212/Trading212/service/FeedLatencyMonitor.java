@@ -0,0 +1,115 @@
+package com.trading212.Trading212.service;
+
+import com.trading212.Trading212.util.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the market data path, one {@link LatencyHistogram} per stage. Every stage is
+ * measured from the moment the frame was received, so each histogram answers "how old is a
+ * price by the time it gets here".
+ * <p>
+ * Cumulative figures are served by the {@code feedlatency} actuator endpoint; a summary of the
+ * last interval is logged every {@code latency.log-interval-ms}.
+ */
+@Service
+public class FeedLatencyMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(FeedLatencyMonitor.class);
+
+    public enum Stage {
+        // Kraken's own timestamp to frame receipt; includes any clock offset between the two hosts
+        EXCHANGE("exchangeToReceipt"),
+        DECODED("decoded"),
+        PRICE_BOOK("priceBook"),
+        PERSISTED("persisted"),
+        DISPATCHED("dispatched"),
+        // Age of the price a trade executes against
+        TRADE("trade");
+
+        private final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final Map<Stage, LatencyHistogram.Snapshot> lastLogged = new EnumMap<>(Stage.class);
+
+    public FeedLatencyMonitor() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+            lastLogged.put(stage, histograms.get(stage).snapshot());
+        }
+    }
+
+    public void record(Stage stage, long micros) {
+        histograms.get(stage).record(micros);
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} when the frame was received
+     */
+    public void recordSinceNanos(Stage stage, long startNanos) {
+        record(stage, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @param startMillis wall-clock time when the frame was received
+     */
+    public void recordSinceMillis(Stage stage, long startMillis) {
+        record(stage, TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - startMillis));
+    }
+
+    /**
+     * Cumulative percentiles of every stage, in microseconds
+     */
+    public Map<String, Map<String, Object>> getSummary() {
+        Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            summary.put(stage.getKey(), describe(histograms.get(stage).snapshot()));
+        }
+        return summary;
+    }
+
+    @Scheduled(fixedDelayString = "${latency.log-interval-ms:60000}")
+    public void logSummary() {
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram.Snapshot current = histograms.get(stage).snapshot();
+            LatencyHistogram.Snapshot interval = current.since(lastLogged.get(stage));
+            lastLogged.put(stage, current);
+            if (interval.getCount() == 0) {
+                continue;
+            }
+            logger.info("Feed latency {}: count={} p50={}us p99={}us p99.9={}us max={}us",
+                    stage.getKey(), interval.getCount(),
+                    interval.getValueAtPercentile(50),
+                    interval.getValueAtPercentile(99),
+                    interval.getValueAtPercentile(99.9),
+                    interval.getMax());
+        }
+    }
+
+    private static Map<String, Object> describe(LatencyHistogram.Snapshot snapshot) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.getCount());
+        stats.put("meanMicros", Math.round(snapshot.getMean()));
+        stats.put("p50Micros", snapshot.getValueAtPercentile(50));
+        stats.put("p90Micros", snapshot.getValueAtPercentile(90));
+        stats.put("p99Micros", snapshot.getValueAtPercentile(99));
+        stats.put("p999Micros", snapshot.getValueAtPercentile(99.9));
+        stats.put("maxMicros", snapshot.getMax());
+        return stats;
+    }
+}
@@ -0,0 +1,123 @@
+package com.trading212.Trading212.service;
+
+import java.util.Arrays;
+
+/**
+ * Reusable batch of price level changes for one pair, as decoded from a single book message.
+ * <p>
+ * Prices and volumes are kept as unscaled {@code long} values with their number of decimal places,
+ * exactly as the exchange sent them, so that applying a delta allocates nothing and the book can
+ * reproduce the exchange's checksum.
+ */
+public class L2BookDelta {
+    private String pair;
+    private boolean snapshot;
+    private int size;
+    private boolean[] asks = new boolean[64];
+    private long[] prices = new long[64];
+    private int[] priceScales = new int[64];
+    private long[] volumes = new long[64];
+    private int[] volumeScales = new int[64];
+    private boolean hasChecksum;
+    private long checksum;
+    private long latestTimestampMicros;
+
+    public void clear() {
+        pair = null;
+        snapshot = false;
+        size = 0;
+        hasChecksum = false;
+        checksum = 0;
+        latestTimestampMicros = 0;
+    }
+
+    public void add(boolean ask, long price, int priceScale, long volume, int volumeScale) {
+        if (size == prices.length) {
+            int capacity = size * 2;
+            asks = Arrays.copyOf(asks, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            priceScales = Arrays.copyOf(priceScales, capacity);
+            volumes = Arrays.copyOf(volumes, capacity);
+            volumeScales = Arrays.copyOf(volumeScales, capacity);
+        }
+        asks[size] = ask;
+        prices[size] = price;
+        priceScales[size] = priceScale;
+        volumes[size] = volume;
+        volumeScales[size] = volumeScale;
+        size++;
+    }
+
+    public String getPair() {
+        return pair;
+    }
+
+    public void setPair(String pair) {
+        this.pair = pair;
+    }
+
+    /**
+     * Whether this delta replaces the whole book rather than updating it
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isAsk(int index) {
+        return asks[index];
+    }
+
+    public long price(int index) {
+        return prices[index];
+    }
+
+    public int priceScale(int index) {
+        return priceScales[index];
+    }
+
+    /**
+     * Unscaled volume; zero removes the level
+     */
+    public long volume(int index) {
+        return volumes[index];
+    }
+
+    public int volumeScale(int index) {
+        return volumeScales[index];
+    }
+
+    public boolean hasChecksum() {
+        return hasChecksum;
+    }
+
+    /**
+     * Unsigned CRC32 of the top of the book after this delta is applied
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(long checksum) {
+        this.checksum = checksum;
+        this.hasChecksum = true;
+    }
+
+    /**
+     * Most recent exchange timestamp of any level in this delta, in epoch microseconds, or 0
+     */
+    public long getLatestTimestampMicros() {
+        return latestTimestampMicros;
+    }
+
+    public void noteTimestampMicros(long timestampMicros) {
+        latestTimestampMicros = Math.max(latestTimestampMicros, timestampMicros);
+    }
+}
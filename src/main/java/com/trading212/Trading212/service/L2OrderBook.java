@@ -0,0 +1,301 @@
+package com.trading212.Trading212.service;
+
+import com.trading212.Trading212.model.OrderBookSnapshot;
+import com.trading212.Trading212.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.zip.CRC32;
+
+/**
+ * Level-2 order book for one Kraken pair.
+ * <p>
+ * Each side is a pair of parallel {@code long} arrays of unscaled prices and volumes kept sorted by
+ * price (asks ascending, bids descending), so applying an update is a binary search plus an array
+ * shift and allocates nothing. Prices and volumes keep the exchange's decimal precision, which lets
+ * the book recompute Kraken's CRC32 checksum after every update; on a mismatch the book marks
+ * itself invalid until the next snapshot.
+ */
+public class L2OrderBook {
+    // Kraken checksums the top 10 levels of each side
+    private static final int CHECKSUM_LEVELS = 10;
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final String pair;
+    private final int depth;
+    private final Side asks = new Side(true);
+    private final Side bids = new Side(false);
+    private int priceScale = -1;
+    private int volumeScale = -1;
+    private boolean valid;
+    private long timestamp;
+    private long lastBroadcastAt;
+    private final CRC32 crc = new CRC32();
+    private final byte[] digits = new byte[20];
+
+    public L2OrderBook(String pair, int depth) {
+        this.pair = pair;
+        this.depth = depth;
+    }
+
+    /**
+     * Applies a snapshot or incremental update and verifies the checksum if the delta carries one.
+     *
+     * @return {@code false} if the book is out of sync and needs a fresh snapshot
+     */
+    public synchronized boolean apply(L2BookDelta delta, long timestamp) {
+        if (delta.isSnapshot()) {
+            asks.clear();
+            bids.clear();
+            priceScale = -1;
+            volumeScale = -1;
+            valid = true;
+        } else if (!valid) {
+            // Updates are meaningless until the next snapshot arrives
+            return false;
+        }
+
+        for (int i = 0; i < delta.size(); i++) {
+            if (priceScale < 0) {
+                priceScale = delta.priceScale(i);
+                volumeScale = delta.volumeScale(i);
+            }
+            long price = rescale(delta.price(i), delta.priceScale(i), priceScale);
+            long volume = rescale(delta.volume(i), delta.volumeScale(i), volumeScale);
+            if (price < 0 || volume < 0) {
+                valid = false;
+                return false;
+            }
+            Side side = delta.isAsk(i) ? asks : bids;
+            if (volume == 0) {
+                side.remove(price);
+            } else {
+                side.put(price, volume);
+            }
+        }
+        asks.truncate(depth);
+        bids.truncate(depth);
+        this.timestamp = timestamp;
+
+        if (delta.hasChecksum() && checksum() != delta.getChecksum()) {
+            valid = false;
+        }
+        return valid;
+    }
+
+    /**
+     * Converts an unscaled value between precisions, or returns -1 if that would lose digits.
+     */
+    private static long rescale(long value, int fromScale, int toScale) {
+        if (fromScale == toScale) {
+            return value;
+        }
+        if (fromScale < toScale) {
+            int shift = toScale - fromScale;
+            if (shift >= POWERS_OF_TEN.length) {
+                return -1;
+            }
+            try {
+                return Math.multiplyExact(value, POWERS_OF_TEN[shift]);
+            } catch (ArithmeticException e) {
+                return -1;
+            }
+        }
+        int shift = fromScale - toScale;
+        if (shift >= POWERS_OF_TEN.length || value % POWERS_OF_TEN[shift] != 0) {
+            return -1;
+        }
+        return value / POWERS_OF_TEN[shift];
+    }
+
+    /**
+     * Kraken's checksum: CRC32 over the top asks then the top bids, each level written as the
+     * price digits followed by the volume digits with the decimal point and leading zeros removed.
+     */
+    private long checksum() {
+        crc.reset();
+        appendLevels(asks);
+        appendLevels(bids);
+        return crc.getValue();
+    }
+
+    private void appendLevels(Side side) {
+        int levels = Math.min(CHECKSUM_LEVELS, side.size);
+        for (int i = 0; i < levels; i++) {
+            appendDigits(side.prices[i]);
+            appendDigits(side.volumes[i]);
+        }
+    }
+
+    private void appendDigits(long value) {
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        crc.update(digits, pos, digits.length - pos);
+    }
+
+    public String getPair() {
+        return pair;
+    }
+
+    /**
+     * Whether the book is in sync with the exchange
+     */
+    public synchronized boolean isValid() {
+        return valid;
+    }
+
+    public synchronized long getTimestamp() {
+        return timestamp;
+    }
+
+    public synchronized Optional<BigDecimal> bestBid() {
+        return valid && bids.size > 0 ? Optional.of(BigDecimal.valueOf(bids.prices[0], priceScale)) : Optional.empty();
+    }
+
+    public synchronized Optional<BigDecimal> bestAsk() {
+        return valid && asks.size > 0 ? Optional.of(BigDecimal.valueOf(asks.prices[0], priceScale)) : Optional.empty();
+    }
+
+    /**
+     * Average price of filling {@code quantity} against the book: buys walk the asks, sells walk
+     * the bids. The cost of each level is rounded to 8 digits, the precision amounts are stored at.
+     *
+     * @param quantity {@link FixedPoint} quantity
+     * @return the {@link FixedPoint} price, or empty if the book is invalid or not deep enough to
+     *         fill the quantity
+     */
+    public synchronized OptionalLong fillPrice(boolean buy, long quantity) {
+        if (!valid || quantity <= 0) {
+            return OptionalLong.empty();
+        }
+        Side side = buy ? asks : bids;
+        long remaining = quantity;
+        long cost = 0;
+        try {
+            for (int i = 0; i < side.size && remaining > 0; i++) {
+                long taken = Math.min(remaining, FixedPoint.fromUnscaled(side.volumes[i], volumeScale));
+                long price = FixedPoint.fromUnscaled(side.prices[i], priceScale);
+                cost = FixedPoint.add(cost, FixedPoint.multiply(taken, price));
+                remaining -= taken;
+            }
+        } catch (ArithmeticException e) {
+            // Beyond the fixed-point range; let the caller fall back to the last price
+            return OptionalLong.empty();
+        }
+        if (remaining > 0) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(FixedPoint.divide(cost, quantity));
+    }
+
+    /**
+     * Copies the top {@code levels} of each side for publishing.
+     */
+    public synchronized OrderBookSnapshot snapshot(String symbol, int levels) {
+        return new OrderBookSnapshot(symbol, timestamp, toLevels(bids, levels), toLevels(asks, levels));
+    }
+
+    private List<OrderBookSnapshot.Level> toLevels(Side side, int levels) {
+        int count = Math.min(levels, side.size);
+        List<OrderBookSnapshot.Level> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new OrderBookSnapshot.Level(
+                    BigDecimal.valueOf(side.prices[i], priceScale),
+                    BigDecimal.valueOf(side.volumes[i], volumeScale)));
+        }
+        return result;
+    }
+
+    synchronized boolean markBroadcast(long now, long minIntervalMs) {
+        if (now - lastBroadcastAt < minIntervalMs) {
+            return false;
+        }
+        lastBroadcastAt = now;
+        return true;
+    }
+
+    /**
+     * One side of the book: unscaled prices and volumes sorted best price first.
+     */
+    private static final class Side {
+        private final boolean ascending;
+        private long[] prices = new long[32];
+        private long[] volumes = new long[32];
+        private int size;
+
+        Side(boolean ascending) {
+            this.ascending = ascending;
+        }
+
+        /**
+         * Binary search in book order; same contract as {@link Arrays#binarySearch(long[], long)}.
+         */
+        private int indexOf(long price) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = ascending ? Long.compare(prices[mid], price) : Long.compare(price, prices[mid]);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void put(long price, long volume) {
+            int index = indexOf(price);
+            if (index >= 0) {
+                volumes[index] = volume;
+                return;
+            }
+            index = -index - 1;
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+                volumes = Arrays.copyOf(volumes, size * 2);
+            }
+            System.arraycopy(prices, index, prices, index + 1, size - index);
+            System.arraycopy(volumes, index, volumes, index + 1, size - index);
+            prices[index] = price;
+            volumes[index] = volume;
+            size++;
+        }
+
+        void remove(long price) {
+            int index = indexOf(price);
+            if (index >= 0) {
+                System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+                System.arraycopy(volumes, index + 1, volumes, index, size - index - 1);
+                size--;
+            }
+        }
+
+        void truncate(int depth) {
+            if (size > depth) {
+                size = depth;
+            }
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.trading212.Trading212.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds the level-2 book of every pair fed from Kraken's {@code book} channel and publishes
+ * the top of each book to {@code /topic/book/{symbol}}. Books are indexed by {@link SymbolRegistry} id.
+ */
+@Service
+public class L2OrderBookService {
+    private static final Logger logger = LoggerFactory.getLogger(L2OrderBookService.class);
+
+    private final SymbolRegistry symbolRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final AtomicReferenceArray<L2OrderBook> books;
+
+    @Value("${kraken.book.depth:10}")
+    private int depth;
+
+    // Minimum time between two broadcasts of the same book
+    @Value("${kraken.book.broadcast-interval-ms:250}")
+    private long broadcastIntervalMs;
+
+    @Autowired
+    public L2OrderBookService(SymbolRegistry symbolRegistry, SimpMessagingTemplate messagingTemplate) {
+        this.symbolRegistry = symbolRegistry;
+        this.messagingTemplate = messagingTemplate;
+        this.books = new AtomicReferenceArray<>(symbolRegistry.getCapacity());
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Applies a decoded book message to its pair's book.
+     *
+     * @return {@code false} if the book failed validation and must be resubscribed
+     */
+    public boolean apply(L2BookDelta delta) {
+        int id = symbolRegistry.idOfPair(delta.getPair());
+        if (id < 0) {
+            // Not ours to track; resubscribing would not help
+            return true;
+        }
+        L2OrderBook book = books.get(id);
+        if (book == null) {
+            books.compareAndSet(id, null, new L2OrderBook(delta.getPair(), depth));
+            book = books.get(id);
+        }
+        long now = System.currentTimeMillis();
+        if (!book.apply(delta, now)) {
+            logger.warn("Order book for {} is out of sync", delta.getPair());
+            return false;
+        }
+        if (book.markBroadcast(now, broadcastIntervalMs)) {
+            broadcast(book, symbolRegistry.get(id).getSymbol());
+        }
+        return true;
+    }
+
+    private void broadcast(L2OrderBook book, String symbol) {
+        try {
+            messagingTemplate.convertAndSend("/topic/book/" + symbol, book.snapshot(symbol, depth));
+        } catch (Exception e) {
+            logger.error("Failed to send order book for {}: {}", symbol, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The in-sync book for a trading symbol, if there is one.
+     */
+    public Optional<L2OrderBook> getBySymbol(String symbol) {
+        int id = symbolRegistry.idOfSymbol(symbol);
+        return id >= 0 ? getById(id) : Optional.empty();
+    }
+
+    /**
+     * The in-sync book for a {@link SymbolRegistry} id, if there is one.
+     */
+    public Optional<L2OrderBook> getById(int id) {
+        return Optional.ofNullable(books.get(id)).filter(L2OrderBook::isValid);
+    }
+}
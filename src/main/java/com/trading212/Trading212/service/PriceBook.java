@@ -0,0 +1,174 @@
+package com.trading212.Trading212.service;
+
+import com.trading212.Trading212.model.CryptoCurrencyEntity;
+import com.trading212.Trading212.util.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory authoritative store of the latest price per Kraken pair.
+ * <p>
+ * The market data feed writes here instead of the database; trading, the REST API and the
+ * STOMP broadcast read from here. Changed prices are tracked as dirty and written back to the
+ * {@code cryptocurrencies} table by {@link PriceBookFlusher}.
+ * <p>
+ * Prices are held as {@link FixedPoint} values in an array indexed by {@link SymbolRegistry} id;
+ * {@code BigDecimal} is only produced for callers on the JDBC and JSON side.
+ */
+@Service
+public class PriceBook {
+    private static final Logger logger = LoggerFactory.getLogger(PriceBook.class);
+
+    private final SymbolRegistry symbolRegistry;
+    private final AtomicReferenceArray<Entry> entries;
+    // 1 for ids whose price changed since the last flush; the flush reads their latest entry
+    private final AtomicIntegerArray dirty;
+
+    @Autowired
+    public PriceBook(SymbolRegistry symbolRegistry) {
+        this.symbolRegistry = symbolRegistry;
+        this.entries = new AtomicReferenceArray<>(symbolRegistry.getCapacity());
+        this.dirty = new AtomicIntegerArray(symbolRegistry.getCapacity());
+    }
+
+    /**
+     * Registers the persisted cryptocurrencies and seeds their prices. Prices already received
+     * from the feed win over the persisted ones.
+     */
+    public void load(List<CryptoCurrencyEntity> cryptos) {
+        symbolRegistry.registerAll(cryptos);
+        for (CryptoCurrencyEntity crypto : cryptos) {
+            symbolRegistry.getBySymbol(crypto.getSymbol())
+                    .filter(instrument -> crypto.getCurrentPrice() != null)
+                    .ifPresent(instrument -> entries.compareAndSet(instrument.getId(), null,
+                            new Entry(instrument, FixedPoint.of(crypto.getCurrentPrice()), 0L)));
+        }
+        logger.debug("Price book loaded with {} cryptocurrencies", cryptos.size());
+    }
+
+    /**
+     * Records a new price for a registered instrument and marks it for persistence.
+     *
+     * @param id {@link SymbolRegistry} id
+     * @param price {@link FixedPoint} price
+     * @return the entry now held in the book
+     */
+    public Entry update(int id, long price, long timestamp) {
+        Entry entry = new Entry(symbolRegistry.get(id), price, timestamp);
+        entries.set(id, entry);
+        dirty.set(id, 1);
+        return entry;
+    }
+
+    /**
+     * Records a new price for the given trading symbol, if it is registered.
+     *
+     * @param price {@link FixedPoint} price
+     */
+    public Optional<Entry> updateBySymbol(String symbol, long price, long timestamp) {
+        int id = symbolRegistry.idOfSymbol(symbol);
+        return id >= 0 ? Optional.of(update(id, price, timestamp)) : Optional.empty();
+    }
+
+    /**
+     * @param id {@link SymbolRegistry} id
+     * @return the latest entry, or {@code null} if there is no price yet
+     */
+    public Entry getById(int id) {
+        return entries.get(id);
+    }
+
+    public Optional<Entry> getByPair(String krakenPairName) {
+        int id = symbolRegistry.idOfPair(krakenPairName);
+        return id >= 0 ? Optional.ofNullable(entries.get(id)) : Optional.empty();
+    }
+
+    public Optional<Entry> getBySymbol(String symbol) {
+        int id = symbolRegistry.idOfSymbol(symbol);
+        return id >= 0 ? Optional.ofNullable(entries.get(id)) : Optional.empty();
+    }
+
+    public Optional<BigDecimal> getPriceBySymbol(String symbol) {
+        return getBySymbol(symbol).map(Entry::getPrice);
+    }
+
+    /**
+     * Removes and returns the prices changed since the last drain, one per pair.
+     */
+    Map<String, BigDecimal> drainDirty() {
+        Map<String, BigDecimal> drained = new HashMap<>();
+        int size = symbolRegistry.size();
+        for (int id = 0; id < size; id++) {
+            // Cleared before reading, so a price arriving in between marks the id again
+            if (dirty.get(id) == 1 && dirty.getAndSet(id, 0) == 1) {
+                Entry entry = entries.get(id);
+                drained.put(entry.getKrakenPairName(), entry.getPrice());
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Marks pairs whose write failed for the next flush, which will write their latest price.
+     */
+    void restoreDirty(Map<String, BigDecimal> prices) {
+        for (String pair : prices.keySet()) {
+            int id = symbolRegistry.idOfPair(pair);
+            if (id >= 0) {
+                dirty.set(id, 1);
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot of the latest price for one instrument.
+     */
+    public static final class Entry {
+        private final SymbolRegistry.Instrument instrument;
+        private final long price;
+        private final long timestamp;
+
+        Entry(SymbolRegistry.Instrument instrument, long price, long timestamp) {
+            this.instrument = instrument;
+            this.price = price;
+            this.timestamp = timestamp;
+        }
+
+        public int getInstrumentId() {
+            return instrument.getId();
+        }
+
+        public String getSymbol() {
+            return instrument.getSymbol();
+        }
+
+        public String getKrakenPairName() {
+            return instrument.getKrakenPairName();
+        }
+
+        public BigDecimal getPrice() {
+            return FixedPoint.toBigDecimal(price);
+        }
+
+        /**
+         * Price as a {@link FixedPoint} value, without allocating
+         */
+        public long getFixedPrice() {
+            return price;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.trading212.Trading212.service;
+
+import com.trading212.Trading212.repository.CryptoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Write-behind persistence for the {@link PriceBook}: periodically writes the latest price of
+ * every pair that changed since the previous flush in a single statement.
+ */
+@Service
+public class PriceBookFlusher {
+    private static final Logger logger = LoggerFactory.getLogger(PriceBookFlusher.class);
+
+    private final PriceBook priceBook;
+    private final CryptoRepository cryptoRepository;
+    private final FeedLatencyMonitor latencyMonitor;
+
+    @Autowired
+    public PriceBookFlusher(PriceBook priceBook, CryptoRepository cryptoRepository,
+                            FeedLatencyMonitor latencyMonitor) {
+        this.priceBook = priceBook;
+        this.cryptoRepository = cryptoRepository;
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    @Scheduled(fixedDelayString = "${pricebook.flush-interval-ms:1000}")
+    public void flush() {
+        Map<String, BigDecimal> prices = priceBook.drainDirty();
+        if (prices.isEmpty()) {
+            return;
+        }
+        try {
+            int updated = cryptoRepository.updatePrices(prices);
+            // Age of the latest tick of each pair once it is in the database
+            for (String pair : prices.keySet()) {
+                priceBook.getByPair(pair).ifPresent(entry ->
+                        latencyMonitor.recordSinceMillis(FeedLatencyMonitor.Stage.PERSISTED, entry.getTimestamp()));
+            }
+            logger.debug("Flushed {} prices to database ({} rows updated)", prices.size(), updated);
+        } catch (Exception e) {
+            logger.error("Failed to flush {} prices to database: {}", prices.size(), e.getMessage());
+            priceBook.restoreDirty(prices);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Flushing price book before shutdown...");
+        flush();
+    }
+}
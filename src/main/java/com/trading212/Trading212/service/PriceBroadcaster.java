@@ -0,0 +1,332 @@
+package com.trading212.Trading212.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading212.Trading212.model.CryptoPriceUpdate;
+import com.trading212.Trading212.service.outbound.PriceBatch;
+import com.trading212.Trading212.service.outbound.SessionOutboundBroker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conflates price updates before they reach browser clients.
+ * <p>
+ * Only the latest update per symbol is kept, and every {@code prices.broadcast.interval-ms} all
+ * symbols that changed are sent to {@code /topic/prices} as one JSON array. Slower tiers listed in
+ * {@code prices.broadcast.tier-intervals-ms} get the same batches at their own cadence on
+ * {@code /topic/prices-<interval>ms}, for clients that want fewer messages.
+ * <p>
+ * Every update is numbered from one sequence shared by all symbols. A session subscribing to any
+ * of these destinations is first sent a snapshot of the latest update of every symbol, taken from
+ * memory, so it can paint prices without asking the REST API. Snapshot and batches may reach the
+ * client in either order, so it keeps the highest sequence seen per symbol and drops older updates.
+ * <p>
+ * Sessions that only want some symbols subscribe to {@code /topic/prices/<symbols>} instead; each
+ * base-interval batch is split by {@link PriceSubscriptionIndex} and every such subscription is
+ * sent only the updates of its own symbols, straight to its session. Subscriptions to the same
+ * destination share one frame body, serialized once, see {@link PriceBatch}.
+ * <p>
+ * In the queued broker mode the batches for {@code /topic/prices} and its tiers also bypass the
+ * broker: they are handed to {@link SessionOutboundBroker} for every subscribed session, where a
+ * batch still waiting for a slow session absorbs the next one.
+ */
+@Service
+public class PriceBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(PriceBroadcaster.class);
+
+    public static final String PRICES_DESTINATION = "/topic/prices";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    // Takes messages straight to one session's subscription, bypassing the broker
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectMapper objectMapper;
+    private final FeedLatencyMonitor latencyMonitor;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceBook priceBook;
+    private final PriceSubscriptionIndex subscriptionIndex;
+    private final SessionOutboundBroker outboundBroker;
+    private final List<Tier> tiers = new ArrayList<>();
+    // Latest update per symbol, whether or not it was sent yet
+    private final ConcurrentMap<String, CryptoPriceUpdate> current = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong updatesReceived = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong snapshotsSent = new AtomicLong();
+    private final AtomicLong symbolFramesSent = new AtomicLong();
+
+    @Autowired
+    public PriceBroadcaster(SimpMessagingTemplate messagingTemplate,
+                            @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                            ObjectMapper objectMapper,
+                            FeedLatencyMonitor latencyMonitor, SymbolRegistry symbolRegistry, PriceBook priceBook,
+                            PriceSubscriptionIndex subscriptionIndex, SessionOutboundBroker outboundBroker,
+                            @Value("${prices.broadcast.interval-ms:250}") long intervalMs,
+                            @Value("${prices.broadcast.tier-intervals-ms:}") List<Long> tierIntervalsMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.objectMapper = objectMapper;
+        this.latencyMonitor = latencyMonitor;
+        this.symbolRegistry = symbolRegistry;
+        this.priceBook = priceBook;
+        this.subscriptionIndex = subscriptionIndex;
+        this.outboundBroker = outboundBroker;
+        tiers.add(new Tier(PRICES_DESTINATION, 0));
+        for (Long tierInterval : tierIntervalsMs) {
+            if (tierInterval != null && tierInterval > intervalMs) {
+                tiers.add(new Tier(PRICES_DESTINATION + "-" + tierInterval + "ms", tierInterval));
+            }
+        }
+    }
+
+    /**
+     * Numbers and queues an update, replacing any update of the same symbol not yet sent.
+     */
+    public void publish(CryptoPriceUpdate update) {
+        updatesReceived.incrementAndGet();
+        // Numbered and queued under the symbol's entry, so a symbol's updates are queued in sequence order
+        current.compute(update.getSymbol(), (symbol, previous) -> {
+            update.setSequence(sequence.incrementAndGet());
+            for (Tier tier : tiers) {
+                tier.latest.put(symbol, update);
+            }
+            return update;
+        });
+    }
+
+    /**
+     * @return whether {@code destination} is one of the price destinations, including the tiers
+     */
+    public boolean isPriceDestination(String destination) {
+        for (Tier tier : tiers) {
+            if (tier.destination.equals(destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the latest price of every symbol to one subscription of one session, on the destination
+     * it subscribed to. Symbols not updated since startup carry the price loaded from the database
+     * and sequence 0.
+     */
+    public void sendSnapshot(String sessionId, String subscriptionId, String destination) {
+        List<CryptoPriceUpdate> snapshot = snapshot(null);
+        if (sendToSession(sessionId, subscriptionId, destination, new PriceBatch(snapshot), false)) {
+            snapshotsSent.incrementAndGet();
+            logger.debug("Sent snapshot of {} prices to session {} on {}", snapshot.size(), sessionId, destination);
+        }
+    }
+
+    /**
+     * Sends the latest price of the subscription's symbols to its session.
+     */
+    public void sendSnapshot(PriceSubscriptionIndex.Subscription subscription) {
+        List<CryptoPriceUpdate> snapshot = snapshot(subscription);
+        if (sendToSession(subscription.getSessionId(), subscription.getSubscriptionId(),
+                subscription.getDestination(), new PriceBatch(snapshot), false)) {
+            snapshotsSent.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param subscription the subscription whose symbols to include, or {@code null} for all symbols
+     */
+    private List<CryptoPriceUpdate> snapshot(PriceSubscriptionIndex.Subscription subscription) {
+        List<SymbolRegistry.Instrument> instruments = symbolRegistry.getAll();
+        List<CryptoPriceUpdate> snapshot = new ArrayList<>(instruments.size());
+        for (SymbolRegistry.Instrument instrument : instruments) {
+            if (subscription != null && !subscription.includes(instrument.getId())) {
+                continue;
+            }
+            CryptoPriceUpdate latest = current.get(instrument.getSymbol());
+            CryptoPriceUpdate entry;
+            if (latest != null) {
+                // Copied, as the queued update is shared with the batches
+                entry = new CryptoPriceUpdate(latest.getSymbol(), latest.getNewPrice(), latest.getTimestamp());
+                entry.setSequence(latest.getSequence());
+            } else {
+                PriceBook.Entry book = priceBook.getById(instrument.getId());
+                if (book == null) {
+                    continue;
+                }
+                entry = new CryptoPriceUpdate(instrument.getSymbol(), book.getPrice(), book.getTimestamp());
+            }
+            entry.setName(instrument.getName());
+            snapshot.add(entry);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param mergeable whether the queued broker may merge later batches into this one
+     */
+    private boolean sendToSession(String sessionId, String subscriptionId, String destination,
+                                  PriceBatch batch, boolean mergeable) {
+        if (outboundBroker.isQueued()) {
+            return outboundBroker.offerPrices(sessionId, subscriptionId, destination, batch, mergeable);
+        }
+        try {
+            return clientOutboundChannel.send(
+                    PriceBatch.toMessage(sessionId, subscriptionId, destination, batch.getJson(objectMapper)));
+        } catch (Exception e) {
+            logger.error("Failed to send prices to session {} on {}: {}", sessionId, destination, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @Scheduled(fixedRateString = "${prices.broadcast.interval-ms:250}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Tier tier : tiers) {
+            if (now - tier.lastFlushAt < tier.intervalMs) {
+                continue;
+            }
+            tier.lastFlushAt = now;
+            List<CryptoPriceUpdate> batch = tier.drain();
+            if (batch.isEmpty()) {
+                continue;
+            }
+            // Serialized at most once, by the first session written to
+            PriceBatch shared = new PriceBatch(batch);
+            try {
+                if (outboundBroker.isQueued()) {
+                    for (PriceSubscriptionIndex.Subscription subscription : subscriptionIndex.subscribersOf(tier.destination)) {
+                        sendToSession(subscription.getSessionId(), subscription.getSubscriptionId(),
+                                tier.destination, shared, true);
+                    }
+                } else {
+                    // The simple broker converts the payload once and copies it to every subscriber
+                    messagingTemplate.convertAndSend(tier.destination, batch);
+                }
+                framesSent.incrementAndGet();
+                if (tier.intervalMs == 0) {
+                    sendToSymbolSubscribers(shared);
+                    for (CryptoPriceUpdate update : batch) {
+                        latencyMonitor.recordSinceMillis(FeedLatencyMonitor.Stage.DISPATCHED, update.getTimestamp());
+                    }
+                }
+                logger.trace("Sent {} price updates to {}", batch.size(), tier.destination);
+            } catch (Exception e) {
+                logger.error("Failed to send price updates to {}: {}", tier.destination, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Sends each per-symbol subscription the updates of its own symbols, one frame per subscription.
+     * Subscriptions to the same symbols share one {@link PriceBatch}; those to all symbols share the
+     * base batch.
+     */
+    private void sendToSymbolSubscribers(PriceBatch batch) {
+        Map<String, List<CryptoPriceUpdate>> updatesBySymbols = new LinkedHashMap<>();
+        Map<String, Set<PriceSubscriptionIndex.Subscription>> subscriptionsBySymbols = new LinkedHashMap<>();
+        for (CryptoPriceUpdate update : batch.getUpdates()) {
+            int id = symbolRegistry.idOfSymbol(update.getSymbol());
+            if (id < 0) {
+                continue;
+            }
+            for (PriceSubscriptionIndex.Subscription subscription : subscriptionIndex.subscribersOf(id)) {
+                String symbols = subscription.getSymbolsKey();
+                List<CryptoPriceUpdate> updates = updatesBySymbols.computeIfAbsent(symbols, key -> new ArrayList<>());
+                // Added once however many subscriptions share the symbols
+                if (updates.isEmpty() || updates.get(updates.size() - 1) != update) {
+                    updates.add(update);
+                }
+                subscriptionsBySymbols.computeIfAbsent(symbols, key -> new LinkedHashSet<>()).add(subscription);
+            }
+        }
+        subscriptionsBySymbols.forEach((symbols, subscriptions) -> {
+            PriceBatch shared = new PriceBatch(updatesBySymbols.get(symbols));
+            for (PriceSubscriptionIndex.Subscription subscription : subscriptions) {
+                sendToSymbolSubscriber(subscription, shared);
+            }
+        });
+        for (PriceSubscriptionIndex.Subscription subscription : subscriptionIndex.allSymbolSubscribers()) {
+            sendToSymbolSubscriber(subscription, batch);
+        }
+    }
+
+    private void sendToSymbolSubscriber(PriceSubscriptionIndex.Subscription subscription, PriceBatch batch) {
+        if (sendToSession(subscription.getSessionId(), subscription.getSubscriptionId(),
+                subscription.getDestination(), batch, true)) {
+            symbolFramesSent.incrementAndGet();
+        }
+    }
+
+    public long getUpdatesReceived() {
+        return updatesReceived.get();
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent.get();
+    }
+
+    /**
+     * Sequence of the latest update, 0 before the first
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        List<String> destinations = new ArrayList<>();
+        for (Tier tier : tiers) {
+            destinations.add(tier.destination);
+        }
+        status.put("destinations", destinations);
+        status.put("sequence", sequence.get());
+        status.put("updatesReceived", updatesReceived.get());
+        status.put("framesSent", framesSent.get());
+        status.put("snapshotsSent", snapshotsSent.get());
+        status.put("symbolFramesSent", symbolFramesSent.get());
+        status.put("symbolSubscriptions", subscriptionIndex.getStatus());
+        return status;
+    }
+
+    private static final class Tier {
+        private final String destination;
+        // Minimum time between two batches; 0 sends on every flush
+        private final long intervalMs;
+        private final Map<String, CryptoPriceUpdate> latest = new ConcurrentHashMap<>();
+        private long lastFlushAt;
+
+        private Tier(String destination, long intervalMs) {
+            this.destination = destination;
+            this.intervalMs = intervalMs;
+        }
+
+        private List<CryptoPriceUpdate> drain() {
+            List<CryptoPriceUpdate> batch = new ArrayList<>(latest.size());
+            for (String symbol : latest.keySet()) {
+                // An update arriving after the removal waits for the next batch
+                CryptoPriceUpdate update = latest.remove(symbol);
+                if (update != null) {
+                    batch.add(update);
+                }
+            }
+            return batch;
+        }
+    }
+}
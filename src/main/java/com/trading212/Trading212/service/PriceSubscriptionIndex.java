@@ -0,0 +1,280 @@
+package com.trading212.Trading212.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Which sessions want which symbols, for the per-symbol price destinations. A subscription to
+ * {@code /topic/prices/<symbols>} names one symbol ({@code /topic/prices/BTC}), several separated by
+ * commas ({@code /topic/prices/BTC,ETH}) or all of them ({@code /topic/prices/*}).
+ * <p>
+ * Subscriptions are resolved to {@link SymbolRegistry} ids once, when they are made, and kept in an
+ * array indexed by id, so {@link PriceBroadcaster} finds the subscribers of a changed symbol with a
+ * single read and sends nothing to sessions that do not want it. Subscribing and unsubscribing,
+ * which are rare next to price updates, publish fresh copies of the affected entries.
+ * <p>
+ * Subscriptions to the batch destinations, {@code /topic/prices} and its tiers, are kept by
+ * destination for the queued broker mode, in which the broadcaster addresses sessions itself.
+ */
+@Service
+public class PriceSubscriptionIndex {
+    private static final Logger logger = LoggerFactory.getLogger(PriceSubscriptionIndex.class);
+
+    public static final String SYMBOL_DESTINATION_PREFIX = PriceBroadcaster.PRICES_DESTINATION + "/";
+    private static final String ALL_SYMBOLS = "*";
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private final SymbolRegistry symbolRegistry;
+    private final AtomicReferenceArray<Subscription[]> bySymbol;
+    private volatile Subscription[] allSymbols = NONE;
+    // Subscriptions to batch destinations; replaced, never mutated, under this
+    private final Map<String, Subscription[]> byDestination = new ConcurrentHashMap<>();
+    // Session id to subscription id to subscription, guarded by this
+    private final Map<String, Map<String, Subscription>> bySession = new HashMap<>();
+
+    @Autowired
+    public PriceSubscriptionIndex(SymbolRegistry symbolRegistry) {
+        this.symbolRegistry = symbolRegistry;
+        this.bySymbol = new AtomicReferenceArray<>(symbolRegistry.getCapacity());
+    }
+
+    public static boolean isSymbolDestination(String destination) {
+        return destination != null && destination.startsWith(SYMBOL_DESTINATION_PREFIX)
+                && destination.length() > SYMBOL_DESTINATION_PREFIX.length();
+    }
+
+    /**
+     * Indexes a subscription to a per-symbol destination. Unknown symbols are ignored.
+     *
+     * @return the subscription, or empty if the destination names no known symbol
+     */
+    public synchronized Optional<Subscription> subscribe(String sessionId, String subscriptionId, String destination) {
+        String symbols = destination.substring(SYMBOL_DESTINATION_PREFIX.length());
+        Subscription subscription;
+        if (ALL_SYMBOLS.equals(symbols)) {
+            subscription = new Subscription(sessionId, subscriptionId, destination, null, false);
+        } else {
+            int[] ids = Arrays.stream(symbols.split(","))
+                    .map(String::trim)
+                    .mapToInt(symbolRegistry::idOfSymbol)
+                    .filter(id -> id >= 0)
+                    .distinct()
+                    .toArray();
+            if (ids.length == 0) {
+                logger.debug("Session {} subscribed to {}, which names no known symbol", sessionId, destination);
+                return Optional.empty();
+            }
+            subscription = new Subscription(sessionId, subscriptionId, destination, ids, false);
+        }
+        add(subscription);
+        return Optional.of(subscription);
+    }
+
+    /**
+     * Indexes a subscription to a batch destination, which receives the updates of all symbols.
+     */
+    public synchronized Subscription subscribeBatches(String sessionId, String subscriptionId, String destination) {
+        Subscription subscription = new Subscription(sessionId, subscriptionId, destination, null, true);
+        add(subscription);
+        return subscription;
+    }
+
+    public synchronized void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, Subscription> subscriptions = bySession.get(sessionId);
+        Subscription removed = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (removed != null) {
+            removeFromIndex(removed);
+            if (subscriptions.isEmpty()) {
+                bySession.remove(sessionId);
+            }
+        }
+    }
+
+    public synchronized void removeSession(String sessionId) {
+        Map<String, Subscription> subscriptions = bySession.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::removeFromIndex);
+        }
+    }
+
+    /**
+     * @param id {@link SymbolRegistry} id
+     * @return the subscriptions naming the symbol, not including those to all symbols
+     */
+    public Subscription[] subscribersOf(int id) {
+        Subscription[] subscribers = bySymbol.get(id);
+        return subscribers != null ? subscribers : NONE;
+    }
+
+    /**
+     * @return the subscriptions to {@code /topic/prices/*}
+     */
+    public Subscription[] allSymbolSubscribers() {
+        return allSymbols;
+    }
+
+    /**
+     * @return the subscriptions to a batch destination
+     */
+    public Subscription[] subscribersOf(String destination) {
+        return byDestination.getOrDefault(destination, NONE);
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("sessions", bySession.size());
+        status.put("subscriptions", bySession.values().stream().mapToInt(Map::size).sum());
+        status.put("allSymbolSubscriptions", allSymbols.length);
+        Map<String, Integer> perDestination = new LinkedHashMap<>();
+        byDestination.forEach((destination, subscribers) -> perDestination.put(destination, subscribers.length));
+        status.put("batchSubscriptions", perDestination);
+        Map<String, Integer> perSymbol = new LinkedHashMap<>();
+        for (SymbolRegistry.Instrument instrument : symbolRegistry.getAll()) {
+            int count = subscribersOf(instrument.getId()).length;
+            if (count > 0) {
+                perSymbol.put(instrument.getSymbol(), count);
+            }
+        }
+        status.put("subscriptionsPerSymbol", perSymbol);
+        return status;
+    }
+
+    private void add(Subscription subscription) {
+        Subscription replaced = bySession.computeIfAbsent(subscription.sessionId, id -> new HashMap<>())
+                .put(subscription.subscriptionId, subscription);
+        if (replaced != null) {
+            removeFromIndex(replaced);
+        }
+        addToIndex(subscription);
+    }
+
+    private void addToIndex(Subscription subscription) {
+        if (subscription.batches) {
+            byDestination.put(subscription.destination, append(subscribersOf(subscription.destination), subscription));
+            return;
+        }
+        if (subscription.isAllSymbols()) {
+            allSymbols = append(allSymbols, subscription);
+            return;
+        }
+        for (int id : subscription.ids) {
+            bySymbol.set(id, append(subscribersOf(id), subscription));
+        }
+    }
+
+    private void removeFromIndex(Subscription subscription) {
+        if (subscription.batches) {
+            Subscription[] remaining = without(subscribersOf(subscription.destination), subscription);
+            if (remaining.length == 0) {
+                byDestination.remove(subscription.destination);
+            } else {
+                byDestination.put(subscription.destination, remaining);
+            }
+            return;
+        }
+        if (subscription.isAllSymbols()) {
+            allSymbols = without(allSymbols, subscription);
+            return;
+        }
+        for (int id : subscription.ids) {
+            bySymbol.set(id, without(subscribersOf(id), subscription));
+        }
+    }
+
+    private static Subscription[] append(Subscription[] subscriptions, Subscription subscription) {
+        Subscription[] copy = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        copy[subscriptions.length] = subscription;
+        return copy;
+    }
+
+    private static Subscription[] without(Subscription[] subscriptions, Subscription subscription) {
+        List<Subscription> remaining = new ArrayList<>(subscriptions.length);
+        for (Subscription candidate : subscriptions) {
+            if (candidate != subscription) {
+                remaining.add(candidate);
+            }
+        }
+        return remaining.isEmpty() ? NONE : remaining.toArray(NONE);
+    }
+
+    /**
+     * One session's subscription to a per-symbol or batch destination.
+     */
+    public static final class Subscription {
+        private final String sessionId;
+        private final String subscriptionId;
+        private final String destination;
+        // Null for all symbols
+        private final int[] ids;
+        // Whether the destination is /topic/prices or a tier
+        private final boolean batches;
+        // Same for subscriptions to the same symbols, in whatever order they were named
+        private final String symbolsKey;
+
+        private Subscription(String sessionId, String subscriptionId, String destination, int[] ids,
+                             boolean batches) {
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+            this.destination = destination;
+            this.ids = ids;
+            this.batches = batches;
+            if (ids == null) {
+                this.symbolsKey = ALL_SYMBOLS;
+            } else {
+                int[] sorted = ids.clone();
+                Arrays.sort(sorted);
+                this.symbolsKey = Arrays.toString(sorted);
+            }
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public String getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        /**
+         * Equal for subscriptions that receive the same updates, so they can share one frame body
+         */
+        public String getSymbolsKey() {
+            return symbolsKey;
+        }
+
+        public boolean isAllSymbols() {
+            return ids == null;
+        }
+
+        /**
+         * Whether the subscription covers the symbol with this {@link SymbolRegistry} id
+         */
+        public boolean includes(int id) {
+            if (ids == null) {
+                return true;
+            }
+            for (int candidate : ids) {
+                if (candidate == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.trading212.Trading212.service;
+
+import com.trading212.Trading212.model.CryptoCurrencyEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Every tradable cryptocurrency under a dense {@code int} id, assigned in registration order from
+ * 0, with O(1) lookups between id, trading symbol, Kraken pair name and database id.
+ * <p>
+ * Hot paths resolve a symbol or pair once at the edge and from then on index plain arrays sized
+ * to {@link #getCapacity()}, such as the price book and the order books. Symbols can be registered
+ * at runtime, up to {@code symbols.capacity}; ids are never reused or reassigned.
+ * <p>
+ * Lookups are lock-free: registration, which is rare, publishes a fresh copy of the tables.
+ */
+@Service
+public class SymbolRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(SymbolRegistry.class);
+
+    private final int capacity;
+    private volatile Tables tables = new Tables(new Instrument[0], Map.of(), Map.of(), Map.of());
+
+    @Autowired
+    public SymbolRegistry(@Value("${symbols.capacity:1024}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Registers the cryptocurrencies not known yet; known symbols keep their id.
+     *
+     * @return the newly registered instruments
+     * @throws IllegalStateException if the registry is full
+     */
+    public synchronized List<Instrument> registerAll(Collection<CryptoCurrencyEntity> cryptos) {
+        List<Instrument> added = new ArrayList<>();
+        Tables current = tables;
+        Map<String, Instrument> bySymbol = new HashMap<>(current.bySymbol);
+        Map<String, Instrument> byPair = new HashMap<>(current.byPair);
+        Map<Long, Instrument> byDbId = new HashMap<>(current.byDbId);
+        List<Instrument> byId = new ArrayList<>(Arrays.asList(current.byId));
+        for (CryptoCurrencyEntity crypto : cryptos) {
+            Instrument existing = bySymbol.get(crypto.getSymbol());
+            if (existing != null) {
+                if (!existing.getKrakenPairName().equals(crypto.getKrakenPairName())) {
+                    logger.warn("Ignoring new Kraken pair {} for {}, which stays on {}",
+                            crypto.getKrakenPairName(), crypto.getSymbol(), existing.getKrakenPairName());
+                }
+                continue;
+            }
+            if (byPair.containsKey(crypto.getKrakenPairName())) {
+                logger.warn("Skipping {}: Kraken pair {} already belongs to {}", crypto.getSymbol(),
+                        crypto.getKrakenPairName(), byPair.get(crypto.getKrakenPairName()).getSymbol());
+                continue;
+            }
+            if (byId.size() == capacity) {
+                throw new IllegalStateException("Symbol registry is full (" + capacity + " symbols)");
+            }
+            Instrument instrument = new Instrument(byId.size(), crypto.getId(), crypto.getSymbol(),
+                    crypto.getKrakenPairName(), crypto.getName());
+            byId.add(instrument);
+            bySymbol.put(instrument.getSymbol(), instrument);
+            byPair.put(instrument.getKrakenPairName(), instrument);
+            if (instrument.getDbId() != null) {
+                byDbId.put(instrument.getDbId(), instrument);
+            }
+            added.add(instrument);
+        }
+        if (!added.isEmpty()) {
+            tables = new Tables(byId.toArray(new Instrument[0]), bySymbol, byPair, byDbId);
+            logger.info("Registered {} symbols ({} in total): {}", added.size(), byId.size(),
+                    added.stream().map(Instrument::getSymbol).toList());
+        }
+        return added;
+    }
+
+    /**
+     * @return the dense id of the symbol, or -1 if it is unknown
+     */
+    public int idOfSymbol(String symbol) {
+        Instrument instrument = lookupSymbol(symbol);
+        return instrument != null ? instrument.getId() : -1;
+    }
+
+    /**
+     * @return the dense id of the Kraken pair, or -1 if it is unknown
+     */
+    public int idOfPair(String krakenPairName) {
+        Instrument instrument = tables.byPair.get(krakenPairName);
+        return instrument != null ? instrument.getId() : -1;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if no instrument has the id
+     */
+    public Instrument get(int id) {
+        return tables.byId[id];
+    }
+
+    /**
+     * Looks a symbol up as given, then upper-cased, matching the case-insensitive database column.
+     */
+    public Optional<Instrument> getBySymbol(String symbol) {
+        return Optional.ofNullable(lookupSymbol(symbol));
+    }
+
+    public Optional<Instrument> getByPair(String krakenPairName) {
+        return Optional.ofNullable(tables.byPair.get(krakenPairName));
+    }
+
+    public Optional<Instrument> getByDbId(long dbId) {
+        return Optional.ofNullable(tables.byDbId.get(dbId));
+    }
+
+    private Instrument lookupSymbol(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+        Map<String, Instrument> bySymbol = tables.bySymbol;
+        Instrument instrument = bySymbol.get(symbol);
+        return instrument != null ? instrument : bySymbol.get(symbol.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * All instruments in id order
+     */
+    public List<Instrument> getAll() {
+        return List.of(tables.byId);
+    }
+
+    /**
+     * Number of registered instruments; ids run from 0 to {@code size() - 1}
+     */
+    public int size() {
+        return tables.byId.length;
+    }
+
+    /**
+     * Upper bound on ids, for sizing arrays indexed by id
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private record Tables(Instrument[] byId, Map<String, Instrument> bySymbol,
+                          Map<String, Instrument> byPair, Map<Long, Instrument> byDbId) {
+    }
+
+    /**
+     * One registered cryptocurrency.
+     */
+    public static final class Instrument {
+        private final int id;
+        private final Long dbId;
+        private final String symbol;
+        private final String krakenPairName;
+        private final String name;
+
+        Instrument(int id, Long dbId, String symbol, String krakenPairName, String name) {
+            this.id = id;
+            this.dbId = dbId;
+            this.symbol = symbol;
+            this.krakenPairName = krakenPairName;
+            this.name = name;
+        }
+
+        /**
+         * Dense id, for indexing arrays
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Primary key in the {@code cryptocurrencies} table
+         */
+        public Long getDbId() {
+            return dbId;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getKrakenPairName() {
+            return krakenPairName;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
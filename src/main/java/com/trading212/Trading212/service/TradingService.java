@@ -3,25 +3,37 @@ package com.trading212.Trading212.service;
 import com.trading212.Trading212.dto.TradeRequest;
 import com.trading212.Trading212.dto.TradeResponse;
 import com.trading212.Trading212.dto.TransactionHistoryDTO;
-import com.trading212.Trading212.model.CryptoCurrencyEntity;
 import com.trading212.Trading212.model.TransactionType;
-import com.trading212.Trading212.model.UserEntity;
 import com.trading212.Trading212.repository.CryptoRepository;
 import com.trading212.Trading212.repository.TransactionRepository;
 import com.trading212.Trading212.repository.UserRepository;
+import com.trading212.Trading212.service.execution.AccountLanes;
+import com.trading212.Trading212.service.venue.CompositePrice;
+import com.trading212.Trading212.service.venue.CompositePriceAggregator;
+import com.trading212.Trading212.service.venue.StalePriceException;
+import com.trading212.Trading212.util.FixedPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
 
+/**
+ * Executes market orders, and limit orders at the price that crossed their limit. Each order runs
+ * in its own transaction on the account's lane in {@link AccountLanes}, so orders of one user are
+ * applied one after another. The balance and the holding are checked and changed by single
+ * conditional statements rather than read and written back, so an order stays correct against
+ * writers outside the lanes, and takes three statements plus a read of the resulting balance.
+ */
 @Service
 public class TradingService {
     private static final Logger logger = LoggerFactory.getLogger(TradingService.class);
@@ -29,142 +41,227 @@ public class TradingService {
     private final UserRepository userRepository;
     private final CryptoRepository cryptoRepository;
     private final TransactionRepository transactionRepository;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceBook priceBook;
+    private final CompositePriceAggregator compositePrices;
+    private final L2OrderBookService orderBookService;
+    private final FeedLatencyMonitor latencyMonitor;
+    private final AccountLanes accountLanes;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public TradingService(UserRepository userRepository, 
                          CryptoRepository cryptoRepository,
-                         TransactionRepository transactionRepository) {
+                         TransactionRepository transactionRepository,
+                         SymbolRegistry symbolRegistry,
+                         PriceBook priceBook,
+                         CompositePriceAggregator compositePrices,
+                         L2OrderBookService orderBookService,
+                         FeedLatencyMonitor latencyMonitor,
+                         AccountLanes accountLanes,
+                         PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.cryptoRepository = cryptoRepository;
         this.transactionRepository = transactionRepository;
+        this.symbolRegistry = symbolRegistry;
+        this.priceBook = priceBook;
+        this.compositePrices = compositePrices;
+        this.orderBookService = orderBookService;
+        this.latencyMonitor = latencyMonitor;
+        this.accountLanes = accountLanes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A savepoint when the lane runs a group commit, so a rejection rolls back only its own changes
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
     }
 
-    @Transactional
     public TradeResponse buyCrypto(TradeRequest request) {
+        return accountLanes.execute(request.getUserId(),
+                () -> transactionTemplate.execute(status -> executeBuy(request, FixedPoint.NULL)));
+    }
+
+    public TradeResponse sellCrypto(TradeRequest request) {
+        return accountLanes.execute(request.getUserId(),
+                () -> transactionTemplate.execute(status -> executeSell(request, FixedPoint.NULL)));
+    }
+
+    /**
+     * Executes an order at a given price, e.g. a limit order at the price that crossed its limit.
+     * {@code inTransaction} runs in the order's transaction after the trade and can still undo it
+     * by throwing.
+     *
+     * @param price {@link FixedPoint} price, or {@link FixedPoint#NULL} for the market price
+     */
+    public TradeResponse executeAtPrice(TradeRequest request, TransactionType type, long price,
+                                        Consumer<TradeResponse> inTransaction) {
+        return accountLanes.execute(request.getUserId(), () -> transactionTemplate.execute(status -> {
+            TradeResponse response = type == TransactionType.BUY
+                    ? executeBuy(request, price)
+                    : executeSell(request, price);
+            inTransaction.accept(response);
+            return response;
+        }));
+    }
+
+    /**
+     * @param fillPrice {@link FixedPoint} price, or {@link FixedPoint#NULL} for the market price
+     */
+    private TradeResponse executeBuy(TradeRequest request, long fillPrice) {
         logger.info("Processing BUY order: {}", request);
+        Long userId = request.getUserId();
         
-        // 1. Validate user and get current balance
-        UserEntity user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        // 2. Get current crypto price
-        CryptoCurrencyEntity crypto = cryptoRepository.findBySymbol(request.getSymbol())
+        // 1. Get execution price: walk the asks when we have a book, else the last price
+        SymbolRegistry.Instrument crypto = symbolRegistry.getBySymbol(request.getSymbol())
                 .orElseThrow(() -> new IllegalArgumentException("Cryptocurrency not found"));
+        long quantity = FixedPoint.of(request.getQuantity());
+        long price = fillPrice != FixedPoint.NULL ? fillPrice : executionPrice(crypto, true, quantity);
         
-        // 3. Calculate total cost
-        BigDecimal totalCost = crypto.getCurrentPrice().multiply(request.getQuantity())
-                .setScale(8, RoundingMode.HALF_UP);
+        // 2. Calculate total cost
+        long totalCost = FixedPoint.multiply(price, quantity);
         
-        // 4. Check if user has sufficient balance
-        if (user.getBalance().compareTo(totalCost) < 0) {
-            throw new IllegalStateException("Insufficient balance");
+        // 3. Debit the balance if it covers the cost; the check and the write are one statement
+        if (!userRepository.debitIfSufficient(userId, FixedPoint.toBigDecimal(totalCost))) {
+            throw userRepository.findBalance(userId).isPresent()
+                    ? new IllegalStateException("Insufficient balance")
+                    : new IllegalArgumentException("User not found");
         }
         
-        // 5. Update user balance
-        BigDecimal newBalance = user.getBalance().subtract(totalCost);
-        userRepository.updateBalance(user.getId(), newBalance);
-        
-        // 6. Update user holdings
-        cryptoRepository.updateUserHolding(user.getId(), crypto.getId(), request.getQuantity());
+        // 4. Add to the holding, creating it on the first buy
+        cryptoRepository.addToHolding(userId, crypto.getDbId(), FixedPoint.toBigDecimal(quantity));
         
-        // 7. Record transaction
+        // 5. Record transaction
         Long transactionId = transactionRepository.recordTransaction(
-                user.getId(),
-                crypto.getId(),
+                userId,
+                crypto.getDbId(),
                 TransactionType.BUY,
-                request.getQuantity(),
-                crypto.getCurrentPrice(),
-                totalCost,
+                FixedPoint.toBigDecimal(quantity),
+                FixedPoint.toBigDecimal(price),
+                FixedPoint.toBigDecimal(totalCost),
                 null // No profit/loss for buy orders
         );
         
-        // 8. Prepare and return response
+        // 6. Prepare and return response
         return createTradeResponse(
                 transactionId,
                 crypto,
                 TransactionType.BUY,
-                request.getQuantity(),
-                crypto.getCurrentPrice(),
+                quantity,
+                price,
                 totalCost,
-                newBalance,
+                resultingBalance(userId),
                 "Buy order executed successfully"
         );
     }
 
-    @Transactional
-    public TradeResponse sellCrypto(TradeRequest request) {
+    /**
+     * @param fillPrice {@link FixedPoint} price, or {@link FixedPoint#NULL} for the market price
+     */
+    private TradeResponse executeSell(TradeRequest request, long fillPrice) {
         logger.info("Processing SELL order: {}", request);
+        Long userId = request.getUserId();
         
-        // 1. Validate user
-        UserEntity user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        // 2. Get crypto info and current holdings
-        CryptoCurrencyEntity crypto = cryptoRepository.findBySymbol(request.getSymbol())
+        // 1. Get crypto info and execution price (walking the bids when we have a book)
+        SymbolRegistry.Instrument crypto = symbolRegistry.getBySymbol(request.getSymbol())
                 .orElseThrow(() -> new IllegalArgumentException("Cryptocurrency not found"));
+        long quantity = FixedPoint.of(request.getQuantity());
+        long price = fillPrice != FixedPoint.NULL ? fillPrice : executionPrice(crypto, false, quantity);
         
-        BigDecimal currentHolding = cryptoRepository.getUserHolding(user.getId(), crypto.getId());
-        
-        // 3. Check if user has sufficient quantity to sell
-        if (currentHolding.compareTo(request.getQuantity()) < 0) {
-            throw new IllegalStateException("Insufficient quantity to sell");
+        // 2. Subtract the sold quantity if the holding covers it; the check and the write are one statement
+        if (!cryptoRepository.subtractFromHoldingIfSufficient(userId, crypto.getDbId(), FixedPoint.toBigDecimal(quantity))) {
+            throw userRepository.findBalance(userId).isPresent()
+                    ? new IllegalStateException("Insufficient quantity to sell")
+                    : new IllegalArgumentException("User not found");
         }
         
-        // 4. Calculate total value and profit/loss
-        BigDecimal totalValue = crypto.getCurrentPrice().multiply(request.getQuantity())
-                .setScale(8, RoundingMode.HALF_UP);
+        // 3. Calculate total value (P&L would need the purchase price of the lots sold, so it is not recorded)
+        long totalValue = FixedPoint.multiply(price, quantity);
         
-        // 5. Update user balance (add the sale value)
-        BigDecimal newBalance = user.getBalance().add(totalValue);
-        userRepository.updateBalance(user.getId(), newBalance);
-        
-        // 6. Update user holdings (subtract the sold quantity)
-        BigDecimal newHolding = currentHolding.subtract(request.getQuantity());
-        cryptoRepository.updateUserHolding(user.getId(), crypto.getId(), newHolding.negate());
-        
-        // 7. Calculate profit/loss (simplified - would need to track purchase price for accurate P&L)
-        // For demo, we'll skip detailed P&L calculation
+        // 4. Credit the sale value
+        if (!userRepository.credit(userId, FixedPoint.toBigDecimal(totalValue))) {
+            throw new IllegalArgumentException("User not found");
+        }
         
-        // 8. Record transaction
+        // 5. Record transaction
         Long transactionId = transactionRepository.recordTransaction(
-                user.getId(),
-                crypto.getId(),
+                userId,
+                crypto.getDbId(),
                 TransactionType.SELL,
-                request.getQuantity(),
-                crypto.getCurrentPrice(),
-                totalValue,
+                FixedPoint.toBigDecimal(quantity),
+                FixedPoint.toBigDecimal(price),
+                FixedPoint.toBigDecimal(totalValue),
                 null // For simplicity, not calculating P&L here
         );
         
-        // 9. Prepare and return response
+        // 6. Prepare and return response
         return createTradeResponse(
                 transactionId,
                 crypto,
                 TransactionType.SELL,
-                request.getQuantity(),
-                crypto.getCurrentPrice(),
+                quantity,
+                price,
                 totalValue,
-                newBalance,
+                resultingBalance(userId),
                 "Sell order executed successfully"
         );
     }
     
+    /**
+     * Balance after the order, read back in the order's transaction for the response
+     */
+    private long resultingBalance(Long userId) {
+        return FixedPoint.of(userRepository.findBalance(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found")));
+    }
+    
+    /**
+     * Average fill price against the level-2 book (asks for buys, bids for sells), falling back to
+     * the latest price when there is no in-sync book or it is too shallow for the quantity
+     */
+    private long executionPrice(SymbolRegistry.Instrument crypto, boolean buy, long quantity) {
+        OptionalLong fillPrice = orderBookService.getById(crypto.getId())
+                .map(book -> book.fillPrice(buy, quantity))
+                .orElse(OptionalLong.empty());
+        return fillPrice.isPresent() ? fillPrice.getAsLong() : currentPrice(crypto);
+    }
+    
+    /**
+     * Latest composite price across venues, falling back to the price book, which is seeded with
+     * the persisted prices, before any venue has quoted. A composite older than
+     * {@code venues.stale-after-ms} is refused rather than traded at, since every venue of the
+     * instrument has stopped quoting.
+     */
+    private long currentPrice(SymbolRegistry.Instrument crypto) {
+        CompositePrice composite = compositePrices.get(crypto.getId());
+        if (composite != null) {
+            if (compositePrices.isStale(composite.getTimestamp(), System.currentTimeMillis())) {
+                throw new StalePriceException("Price for " + crypto.getSymbol() + " is stale, please retry");
+            }
+            latencyMonitor.recordSinceMillis(FeedLatencyMonitor.Stage.TRADE, composite.getTimestamp());
+            return composite.getPrice();
+        }
+        PriceBook.Entry entry = priceBook.getById(crypto.getId());
+        if (entry == null) {
+            throw new IllegalStateException("No price available for " + crypto.getSymbol());
+        }
+        latencyMonitor.recordSinceMillis(FeedLatencyMonitor.Stage.TRADE, entry.getTimestamp());
+        return entry.getFixedPrice();
+    }
+    
     private TradeResponse createTradeResponse(Long transactionId,
-                                           CryptoCurrencyEntity crypto,
+                                           SymbolRegistry.Instrument crypto,
                                            TransactionType type,
-                                           BigDecimal quantity,
-                                           BigDecimal price,
-                                           BigDecimal totalAmount,
-                                           BigDecimal newBalance,
+                                           long quantity,
+                                           long price,
+                                           long totalAmount,
+                                           long newBalance,
                                            String message) {
         TradeResponse response = new TradeResponse();
         response.setTransactionId(transactionId);
         response.setSymbol(crypto.getSymbol());
         response.setType(type.name());
-        response.setQuantity(quantity);
-        response.setPrice(price);
-        response.setTotalAmount(totalAmount);
-        response.setNewBalance(newBalance);
+        response.setQuantity(FixedPoint.toBigDecimal(quantity));
+        response.setPrice(FixedPoint.toBigDecimal(price));
+        response.setTotalAmount(FixedPoint.toBigDecimal(totalAmount));
+        response.setNewBalance(FixedPoint.toBigDecimal(newBalance));
         response.setTimestamp(LocalDateTime.now());
         response.setStatus("COMPLETED");
         response.setMessage(message);
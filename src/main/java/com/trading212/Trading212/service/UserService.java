@@ -5,13 +5,18 @@ import com.trading212.Trading212.exception.UserAlreadyExistsException;
 import com.trading212.Trading212.exception.UserNotFoundException;
 import com.trading212.Trading212.model.UserEntity;
 import com.trading212.Trading212.repository.UserRepo;
+import com.trading212.Trading212.service.execution.AccountLanes;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -22,12 +27,19 @@ import java.util.Optional;
 public class UserService {
     
     @Autowired
-    public UserService(UserRepo userRepo) {
+    public UserService(UserRepo userRepo, AccountLanes accountLanes, PlatformTransactionManager transactionManager) {
         this.userRepo = userRepo;
+        this.accountLanes = accountLanes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A savepoint when the lane runs a group commit, so a rejection rolls back only its own changes
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
     }
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepo userRepo;
+    // Balance changes run on the account's lane, like trades, in a transaction of their own
+    private final AccountLanes accountLanes;
+    private final TransactionTemplate transactionTemplate;
 
     @PostConstruct
     public void initializeDefaultUser() {
@@ -73,11 +85,15 @@ public class UserService {
             .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserEntity depositFunds(Long userId, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Deposit amount must be positive");
         }
-        
+        return accountLanes.execute(userId, () -> transactionTemplate.execute(status -> deposit(userId, amount)));
+    }
+
+    private UserEntity deposit(Long userId, BigDecimal amount) {
         UserEntity user = userRepo.findById(userId)
             .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
             
@@ -87,11 +103,15 @@ public class UserService {
         return user;
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserEntity withdrawFunds(Long userId, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
-        
+        return accountLanes.execute(userId, () -> transactionTemplate.execute(status -> withdraw(userId, amount)));
+    }
+
+    private UserEntity withdraw(Long userId, BigDecimal amount) {
         UserEntity user = userRepo.findById(userId)
             .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
             
@@ -110,13 +130,21 @@ public class UserService {
         return userRepo.findAll();
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateUserBalance(Long userId, BigDecimal newBalance) {
-        userRepo.updateBalance(userId, newBalance);
+        accountLanes.execute(userId, () -> transactionTemplate.execute(status -> {
+            userRepo.updateBalance(userId, newBalance);
+            return null;
+        }));
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void resetUserAccount(Long userId) {
         // Reset balance to initial value
-        userRepo.resetBalance(userId);
+        accountLanes.execute(userId, () -> transactionTemplate.execute(status -> {
+            userRepo.resetBalance(userId);
+            return null;
+        }));
         logger.info("Reset account for user ID: {}", userId);
     }
 
@@ -0,0 +1,73 @@
+package com.trading212.Trading212.service.WebSocket;
+
+/**
+ * Reassembles text messages that the JDK {@code WebSocket} delivers in several fragments.
+ * <p>
+ * Unfragmented messages, the common case, are passed through without copying. Fragments are
+ * accumulated in a buffer that is reused across messages, so the returned sequence is only valid
+ * until the next call to {@link #append}.
+ * <p>
+ * Not thread-safe: use one instance per listener.
+ */
+public class FrameAssembler {
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+
+    private final StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+    private final int maxMessageLength;
+    private boolean fragmented;
+    private boolean discarding;
+
+    /**
+     * @param maxMessageLength longest message to assemble; longer messages are dropped
+     */
+    public FrameAssembler(int maxMessageLength) {
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * Adds one fragment.
+     *
+     * @return the complete message if {@code last} is set, otherwise {@code null}. Also
+     * {@code null} for the last fragment of a message that exceeded the maximum length.
+     */
+    public CharSequence append(CharSequence data, boolean last) {
+        if (!fragmented && last) {
+            discarding = false;
+            return data;
+        }
+        if (!fragmented) {
+            buffer.setLength(0);
+            fragmented = true;
+            discarding = false;
+        }
+        if (!discarding) {
+            if (buffer.length() + data.length() > maxMessageLength) {
+                discarding = true;
+                buffer.setLength(0);
+            } else {
+                buffer.append(data);
+            }
+        }
+        if (!last) {
+            return null;
+        }
+        fragmented = false;
+        return discarding ? null : buffer;
+    }
+
+    /**
+     * Whether the last message handed to {@link #append} was dropped for being too long.
+     */
+    public boolean isDiscarding() {
+        return discarding;
+    }
+
+    /**
+     * Drops any partially assembled message, e.g. after the connection was replaced.
+     */
+    public void reset() {
+        buffer.setLength(0);
+        fragmented = false;
+        discarding = false;
+    }
+}
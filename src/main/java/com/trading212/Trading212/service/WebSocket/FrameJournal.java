@@ -0,0 +1,190 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.util.FixedPoint;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only journal of the raw Kraken feed, written to memory-mapped segment files.
+ * <p>
+ * Every complete frame is recorded with its receive time, followed by the tick decoded from it.
+ * Appends are plain memory writes into the mapping; the operating system writes the pages back,
+ * and a segment is only forced to disk when it is rotated or the journal is closed. Segments are
+ * rotated when full or after {@code journal.rotate-interval-minutes}.
+ * <p>
+ * Segment layout: a 4 byte {@link #MAGIC} header, then records of
+ * {@code [int payloadLength][long timestamp][byte type][payload]}. Segments are zero-filled, so a
+ * payload length of zero marks the end of the data. Decimals in tick payloads are written as
+ * {@code [byte scale][long unscaled]}, with {@link #NULL_SCALE} for a missing value. See
+ * {@link FrameJournalReader}.
+ */
+@Service
+public class FrameJournal {
+    private static final Logger logger = LoggerFactory.getLogger(FrameJournal.class);
+
+    static final int MAGIC = 0x4B4A3031;
+    static final int RECORD_HEADER_SIZE = Integer.BYTES + Long.BYTES + 1;
+    static final byte TYPE_FRAME = 1;
+    static final byte TYPE_TICK = 2;
+    static final String SEGMENT_PREFIX = "kraken-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    // Scale written for a missing decimal
+    static final byte NULL_SCALE = Byte.MIN_VALUE;
+
+    @Value("${journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${journal.directory:journal}")
+    private String directory;
+
+    @Value("${journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${journal.rotate-interval-minutes:60}")
+    private long rotateIntervalMinutes;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStartedAt;
+    private int segmentSequence;
+    // Set after an I/O failure so a broken disk does not stall the feed with retries
+    private boolean failed;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getDirectory() {
+        return Paths.get(directory);
+    }
+
+    /**
+     * Records a complete frame as received from the socket.
+     */
+    public synchronized void appendFrame(CharSequence frame, long receivedAt) {
+        int length = frame.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = frame.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            if (reserve(TYPE_FRAME, length, receivedAt)) {
+                for (int i = 0; i < length; i++) {
+                    segment.put((byte) frame.charAt(i));
+                }
+            }
+            return;
+        }
+        byte[] bytes = frame.toString().getBytes(StandardCharsets.UTF_8);
+        if (reserve(TYPE_FRAME, bytes.length, receivedAt)) {
+            segment.put(bytes);
+        }
+    }
+
+    /**
+     * Records the tick decoded from the preceding frame.
+     */
+    public synchronized void appendTick(KrakenTick tick, long receivedAt) {
+        String pair = tick.getPair();
+        int length = 1 + pair.length() + 5 * (1 + Long.BYTES);
+        if (!reserve(TYPE_TICK, length, receivedAt)) {
+            return;
+        }
+        segment.put((byte) pair.length());
+        for (int i = 0; i < pair.length(); i++) {
+            segment.put((byte) pair.charAt(i));
+        }
+        putDecimal(tick.getLastPrice());
+        putDecimal(tick.getBidPrice());
+        putDecimal(tick.getAskPrice());
+        putDecimal(tick.getVolume());
+        putDecimal(tick.getTodayVolume());
+    }
+
+    private void putDecimal(long value) {
+        if (value == FixedPoint.NULL) {
+            segment.put(NULL_SCALE);
+            segment.putLong(0);
+            return;
+        }
+        segment.put((byte) FixedPoint.SCALE);
+        segment.putLong(value);
+    }
+
+    /**
+     * Makes room for a record and writes its header, rotating the segment when needed.
+     *
+     * @return {@code false} if the record cannot be written
+     */
+    private boolean reserve(byte type, int payloadLength, long timestamp) {
+        if (!enabled || failed) {
+            return false;
+        }
+        int recordSize = RECORD_HEADER_SIZE + payloadLength;
+        long segmentSize = segmentSizeMb * 1024L * 1024L;
+        if (Integer.BYTES + recordSize > segmentSize) {
+            logger.warn("Journal record of {} bytes does not fit a segment, skipping it", recordSize);
+            return false;
+        }
+        try {
+            if (segment == null
+                    || segment.remaining() < recordSize
+                    || timestamp - segmentStartedAt >= rotateIntervalMinutes * 60_000L) {
+                rotate(timestamp, segmentSize);
+            }
+        } catch (IOException e) {
+            logger.error("Journal disabled after failing to open a segment: {}", e.getMessage(), e);
+            failed = true;
+            closeSegment();
+            return false;
+        }
+        segment.putInt(payloadLength);
+        segment.putLong(timestamp);
+        segment.put(type);
+        return true;
+    }
+
+    private void rotate(long timestamp, long segmentSize) throws IOException {
+        closeSegment();
+        Path dir = getDirectory();
+        Files.createDirectories(dir);
+        Path file = dir.resolve(String.format("%s%013d-%04d%s", SEGMENT_PREFIX, timestamp, segmentSequence++, SEGMENT_SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(MAGIC);
+        segmentStartedAt = timestamp;
+        logger.info("Journaling Kraken feed to {}", file);
+    }
+
+    private void closeSegment() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close journal segment: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeSegment();
+    }
+}
@@ -0,0 +1,127 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.util.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segments written by {@link FrameJournal} back in the order they were recorded.
+ */
+public final class FrameJournalReader {
+    private static final Logger logger = LoggerFactory.getLogger(FrameJournalReader.class);
+
+    /**
+     * Receives the records of a journal.
+     */
+    public interface Visitor {
+        /**
+         * @return {@code false} to stop reading
+         */
+        boolean onFrame(long receivedAt, String frame);
+
+        /**
+         * Called with the tick decoded from the preceding frame. The tick is reused between calls.
+         */
+        default void onTick(long receivedAt, KrakenTick tick) {
+        }
+    }
+
+    private final Path directory;
+
+    public FrameJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Segment files of the journal, oldest first
+     */
+    public List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(FrameJournal.SEGMENT_PREFIX) && name.endsWith(FrameJournal.SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Visits every record of every segment.
+     *
+     * @return number of frames visited
+     */
+    public long read(Visitor visitor) throws IOException {
+        KrakenTick tick = new KrakenTick();
+        long frames = 0;
+        for (Path file : segments()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.remaining() < Integer.BYTES || buffer.getInt() != FrameJournal.MAGIC) {
+                    logger.warn("Skipping {}: not a journal segment", file);
+                    continue;
+                }
+                while (buffer.remaining() >= FrameJournal.RECORD_HEADER_SIZE) {
+                    int length = buffer.getInt();
+                    if (length <= 0) {
+                        break;
+                    }
+                    long receivedAt = buffer.getLong();
+                    byte type = buffer.get();
+                    if (length > buffer.remaining()) {
+                        logger.warn("Truncated record at the end of {}", file);
+                        break;
+                    }
+                    if (type == FrameJournal.TYPE_FRAME) {
+                        byte[] bytes = new byte[length];
+                        buffer.get(bytes);
+                        frames++;
+                        if (!visitor.onFrame(receivedAt, new String(bytes, StandardCharsets.UTF_8))) {
+                            return frames;
+                        }
+                    } else if (type == FrameJournal.TYPE_TICK) {
+                        readTick(buffer, tick);
+                        visitor.onTick(receivedAt, tick);
+                    } else {
+                        buffer.position(buffer.position() + length);
+                    }
+                }
+            }
+        }
+        return frames;
+    }
+
+    private static void readTick(MappedByteBuffer buffer, KrakenTick tick) {
+        byte[] pair = new byte[buffer.get()];
+        buffer.get(pair);
+        tick.clear();
+        tick.setPair(new String(pair, StandardCharsets.US_ASCII));
+        tick.setLastPrice(readDecimal(buffer));
+        tick.setBidPrice(readDecimal(buffer));
+        tick.setAskPrice(readDecimal(buffer));
+        tick.setVolume(readDecimal(buffer));
+        tick.setTodayVolume(readDecimal(buffer));
+    }
+
+    private static long readDecimal(MappedByteBuffer buffer) {
+        byte scale = buffer.get();
+        long unscaled = buffer.getLong();
+        // Values carry their own scale; NULL_SCALE marks a missing value
+        return scale == FrameJournal.NULL_SCALE ? FixedPoint.NULL : FixedPoint.fromUnscaled(unscaled, scale);
+    }
+}
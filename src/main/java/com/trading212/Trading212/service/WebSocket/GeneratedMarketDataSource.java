@@ -0,0 +1,121 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.service.PriceBook;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates Kraken ticker frames in-process and feeds them straight into the message handler,
+ * skipping the socket entirely. Useful for measuring decode-to-broadcast throughput on its own.
+ * <p>
+ * Follows {@link KrakenWebSocketClient#updatePairs}: when the wanted pairs change, the feed and
+ * handler are rebuilt for the new set, and new pairs start from the price book. With no pairs
+ * enabled the generator idles.
+ */
+@Service
+// Started once the subscribed pairs have been loaded from the cryptocurrencies table
+@DependsOn("cryptoService")
+@ConditionalOnProperty(name = "market-data.source", havingValue = "generator")
+public class GeneratedMarketDataSource implements MarketDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(GeneratedMarketDataSource.class);
+
+    private final KrakenWebSocketClient client;
+    private final PriceBook priceBook;
+    private final AtomicLong framesGenerated = new AtomicLong();
+    private volatile long startedAt;
+    private Thread generator;
+
+    @Value("${market-data.synthetic.ticks-per-second:100}")
+    private int ticksPerSecond;
+
+    @Autowired
+    public GeneratedMarketDataSource(KrakenWebSocketClient client, PriceBook priceBook) {
+        this.client = client;
+        this.priceBook = priceBook;
+    }
+
+    @Override
+    public String getName() {
+        return "generator";
+    }
+
+    @Override
+    @PostConstruct
+    public synchronized void start() {
+        startedAt = System.currentTimeMillis();
+        generator = new Thread(this::generate, "Market-Data-Generator");
+        generator.setDaemon(true);
+        generator.start();
+        logger.info("Generating {} ticker frames per second in-process", ticksPerSecond);
+    }
+
+    private void generate() {
+        List<String> pairs = null;
+        KrakenMessageHandler handler = null;
+        SyntheticTickerFeed feed = null;
+        StringBuilder frame = new StringBuilder(256);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, ticksPerSecond);
+        long dueAt = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // The client replaces its list as a whole when the pairs change
+                List<String> current = client.getPairs();
+                if (current != pairs) {
+                    pairs = current;
+                    handler = client.createInProcessHandler();
+                    feed = new SyntheticTickerFeed(pairs,
+                            pair -> priceBook.getByPair(pair).map(PriceBook.Entry::getPrice).orElse(null),
+                            System.nanoTime());
+                    logger.info("Generating ticker frames for {} pairs", pairs.size());
+                }
+                frame.setLength(0);
+                if (feed.next(frame) != null) {
+                    handler.handle(frame, System.currentTimeMillis());
+                    framesGenerated.incrementAndGet();
+                }
+            } catch (Exception e) {
+                logger.error("Error processing generated frame: {}", e.getMessage(), e);
+            }
+            dueAt += intervalNanos;
+            long wait = dueAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void stop() {
+        if (generator != null) {
+            generator.interrupt();
+            generator = null;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        long frames = framesGenerated.get();
+        long elapsedMs = Math.max(1, System.currentTimeMillis() - startedAt);
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("source", getName());
+        status.put("targetTicksPerSecond", ticksPerSecond);
+        status.put("framesGenerated", frames);
+        status.put("averageTicksPerSecond", frames * 1000 / elapsedMs);
+        return status;
+    }
+}
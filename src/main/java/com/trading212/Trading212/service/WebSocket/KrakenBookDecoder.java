@@ -0,0 +1,193 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.trading212.Trading212.service.L2BookDelta;
+
+import java.io.IOException;
+
+/**
+ * Streaming decoder for Kraken {@code book-*} channel messages.
+ * <p>
+ * Snapshots look like {@code [id, {"as":[[price, volume, ts], ...], "bs":[...]}, "book-10", "XBT/USD"]}
+ * and updates like {@code [id, {"a":[...]}, {"b":[...], "c":"checksum"}, "book-10", "XBT/USD"]},
+ * with one or two objects. Levels are read token by token with Jackson's {@link JsonParser} and
+ * parsed straight from the parser's character buffer into unscaled {@code long} values, so no
+ * tree, strings or {@code BigDecimal}s are created per level.
+ * <p>
+ * Not thread-safe: use one instance per connection.
+ */
+public class KrakenBookDecoder {
+    private static final String BOOK_CHANNEL_PREFIX = "book";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private char[] buffer = new char[4096];
+
+    // Result of the last parseDecimal call
+    private long parsedValue;
+    private int parsedScale;
+
+    /**
+     * Decodes a book message into {@code delta}.
+     *
+     * @return {@code true} if the frame was a book snapshot or update
+     */
+    public boolean decode(CharSequence frame, L2BookDelta delta) {
+        delta.clear();
+        int length = frame.length();
+        if (length == 0 || frame.charAt(0) != '[') {
+            return false;
+        }
+        if (length > buffer.length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            buffer[i] = frame.charAt(i);
+        }
+
+        try (JsonParser parser = jsonFactory.createParser(buffer, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY || parser.nextToken() != JsonToken.VALUE_NUMBER_INT) {
+                return false;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                if (!readBookObject(parser, delta)) {
+                    return false;
+                }
+            }
+            if (token != JsonToken.VALUE_STRING || !textStartsWith(parser, BOOK_CHANNEL_PREFIX)) {
+                return false;
+            }
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                return false;
+            }
+            delta.setPair(parser.getText());
+            return parser.nextToken() == JsonToken.END_ARRAY;
+        } catch (IOException | NumberFormatException | ArithmeticException e) {
+            return false;
+        }
+    }
+
+    private boolean readBookObject(JsonParser parser, L2BookDelta delta) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            // Field names are canonicalized by Jackson, so this does not allocate
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "as", "bs" -> {
+                    delta.setSnapshot(true);
+                    if (!readLevels(parser, delta, name.equals("as"))) {
+                        return false;
+                    }
+                }
+                case "a", "b" -> {
+                    if (!readLevels(parser, delta, name.equals("a"))) {
+                        return false;
+                    }
+                }
+                case "c" -> {
+                    if (value != JsonToken.VALUE_STRING) {
+                        return false;
+                    }
+                    parseDecimal(parser);
+                    delta.setChecksum(parsedValue);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return parser.currentToken() == JsonToken.END_OBJECT;
+    }
+
+    /**
+     * Reads {@code [[price, volume, timestamp(, "r")], ...]}; the parser is on the outer START_ARRAY.
+     */
+    private boolean readLevels(JsonParser parser, L2BookDelta delta, boolean ask) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                return false;
+            }
+            parseDecimal(parser);
+            long price = parsedValue;
+            int priceScale = parsedScale;
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                return false;
+            }
+            parseDecimal(parser);
+            delta.add(ask, price, priceScale, parsedValue, parsedScale);
+            // Exchange timestamp in seconds with microsecond decimals
+            if (parser.nextToken() == JsonToken.VALUE_STRING) {
+                parseDecimal(parser);
+                delta.noteTimestampMicros(toMicros(parsedValue, parsedScale));
+            }
+            // Optional republish flag
+            while (parser.currentToken() != JsonToken.END_ARRAY) {
+                parser.nextToken();
+                if (parser.currentToken() == null) {
+                    return false;
+                }
+            }
+        }
+        return parser.currentToken() == JsonToken.END_ARRAY;
+    }
+
+    /**
+     * Parses the current non-negative decimal string into parsedValue/parsedScale.
+     */
+    private void parseDecimal(JsonParser parser) throws IOException {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int end = offset + parser.getTextLength();
+        long value = 0;
+        int scale = 0;
+        boolean fraction = false;
+        boolean digits = false;
+        for (int i = offset; i < end; i++) {
+            char c = text[i];
+            if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c >= '0' && c <= '9') {
+                value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+                digits = true;
+                if (fraction) {
+                    scale++;
+                }
+            } else {
+                throw new NumberFormatException("Invalid decimal in book message");
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Empty decimal in book message");
+        }
+        parsedValue = value;
+        parsedScale = scale;
+    }
+
+    private static long toMicros(long seconds, int scale) {
+        long micros = seconds;
+        for (int i = scale; i < 6; i++) {
+            micros *= 10;
+        }
+        for (int i = scale; i > 6; i--) {
+            micros /= 10;
+        }
+        return micros;
+    }
+
+    private static boolean textStartsWith(JsonParser parser, String prefix) throws IOException {
+        if (parser.getTextLength() < prefix.length()) {
+            return false;
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
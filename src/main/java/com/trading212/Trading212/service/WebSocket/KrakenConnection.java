@@ -0,0 +1,413 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One Kraken WebSocket connection carrying a shard of the subscribed pairs.
+ * <p>
+ * Each connection has its own listener, frame assembler and message handler, and with flow control
+ * its own bounded queue and consumer thread, so shards process ticks independently of each other.
+ * Decoded prices are handed back to the owning {@link KrakenWebSocketClient}. When a
+ * {@link FrameJournal} is given, every complete frame is recorded with its receive time.
+ * <p>
+ * Pairs can be added and removed while connected; the change is sent on the live socket, and a
+ * reconnect subscribes whatever the shard carries by then.
+ */
+class KrakenConnection implements WebSocket.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(KrakenConnection.class);
+
+    // Upper bound for a message reassembled from fragments
+    private static final int MAX_MESSAGE_LENGTH = 1024 * 1024;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final int shard;
+    // Replaced as a whole, under the lock, when pairs are added or removed
+    private volatile List<String> pairs;
+    private final String url;
+    private final HttpClient httpClient;
+    private final KrakenWebSocketClient owner;
+
+    private volatile WebSocket webSocket;
+    private CompletableFuture<WebSocket> webSocketFuture;
+    private volatile boolean stopped;
+    private final FrameAssembler frameAssembler = new FrameAssembler(MAX_MESSAGE_LENGTH);
+    // Only touched from the thread that handles messages
+    private final KrakenMessageHandler messageHandler;
+    private final FrameJournal journal;
+    private final ReconnectSupervisor.Reconnector reconnector;
+    private final OutageTracker outageTracker;
+    private CompletableFuture<?> pendingSend = CompletableFuture.completedFuture(null);
+    // Socket the pairs have been subscribed on, which pair changes are sent to; guarded by this
+    private WebSocket subscribedSocket;
+
+    // With flow control, the listener only queues complete messages and a separate thread
+    // processes them, requesting more from the socket as the queue drains
+    private final boolean flowControlEnabled;
+    private final BlockingQueue<QueuedFrame> frameQueue;
+    private Thread frameConsumer;
+
+    // Health
+    private volatile boolean connected;
+    private volatile long connectedSince;
+    private volatile long lastMessageAt;
+    private final AtomicLong messageCount = new AtomicLong();
+    private final AtomicLong reconnectCount = new AtomicLong();
+
+    KrakenConnection(int shard, List<String> pairs, String url, HttpClient httpClient,
+                     KrakenWebSocketClient owner, boolean flowControlEnabled, int queueCapacity,
+                     FrameJournal journal, ReconnectSupervisor reconnectSupervisor) {
+        this.shard = shard;
+        this.pairs = List.copyOf(pairs);
+        this.url = url;
+        this.httpClient = httpClient;
+        this.owner = owner;
+        this.journal = journal;
+        this.reconnector = reconnectSupervisor.register(this::connect);
+        this.outageTracker = new OutageTracker(shard);
+        this.messageHandler = new KrakenMessageHandler(owner, pairs, this::resubscribeBook, journal, outageTracker);
+        this.flowControlEnabled = flowControlEnabled;
+        this.frameQueue = flowControlEnabled ? new ArrayBlockingQueue<>(queueCapacity) : null;
+    }
+
+    void start() {
+        if (flowControlEnabled) {
+            frameConsumer = new Thread(this::drainFrameQueue, "Kraken-Frame-Consumer-" + shard);
+            frameConsumer.setDaemon(true);
+            frameConsumer.start();
+        }
+        connect();
+    }
+
+    /**
+     * Opens a new connection without blocking; a failure hands over to the reconnect supervisor.
+     * Any previous socket is aborted first so a shard never has two live connections.
+     */
+    private void connect() {
+        if (stopped) {
+            return;
+        }
+        WebSocket previous = webSocket;
+        // Cleared first, so callbacks from the aborted socket are recognised as stale
+        webSocket = null;
+        synchronized (this) {
+            subscribedSocket = null;
+        }
+        if (previous != null && !previous.isInputClosed()) {
+            previous.abort();
+        }
+        logger.info("[shard {}] Creating new WebSocket connection to: {}", shard, url);
+        webSocketFuture = httpClient.newWebSocketBuilder()
+                .connectTimeout(CONNECT_TIMEOUT)
+                .buildAsync(URI.create(url), this)
+                .whenComplete((ws, error) -> {
+                    if (error != null) {
+                        logger.error("[shard {}] Failed to establish WebSocket connection: {}", shard,
+                                error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+                        connectionLost();
+                    } else {
+                        logger.info("[shard {}] WebSocket connection established for {} pairs", shard, pairs.size());
+                    }
+                });
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        logger.info("[shard {}] WebSocket connection opened successfully to Kraken API", shard);
+        this.webSocket = webSocket;
+        connected = true;
+        connectedSince = System.currentTimeMillis();
+        reconnector.connected();
+        outageTracker.reconnected(connectedSince);
+        frameAssembler.reset();
+        synchronized (this) {
+            pendingSend = CompletableFuture.completedFuture(null);
+            // Under the lock, so pairs added concurrently are subscribed exactly once
+            subscribedSocket = webSocket;
+            subscribe(webSocket, pairs);
+        }
+
+        // Nothing is delivered until we signal demand. With flow control, outstanding demand plus
+        // queued frames never exceeds the queue capacity.
+        webSocket.request(flowControlEnabled ? Math.max(1, frameQueue.remainingCapacity()) : 1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        long receivedNanos = System.nanoTime();
+        CharSequence message = frameAssembler.append(data, last);
+        if (message == null) {
+            if (last && frameAssembler.isDiscarding()) {
+                logger.warn("[shard {}] Dropped WebSocket message longer than {} characters", shard, MAX_MESSAGE_LENGTH);
+            }
+            // Fragments never take a queue slot, so they are replaced right away
+            webSocket.request(1);
+            return CompletableFuture.completedFuture(null);
+        }
+        long receivedAt = System.currentTimeMillis();
+        lastMessageAt = receivedAt;
+        messageCount.incrementAndGet();
+        if (journal != null) {
+            journal.appendFrame(message, receivedAt);
+        }
+
+        if (flowControlEnabled) {
+            // The message may live in a reused buffer, so the queue gets its own copy
+            if (!frameQueue.offer(new QueuedFrame(message.toString(), receivedAt, receivedNanos))) {
+                logger.warn("[shard {}] WebSocket frame queue full, dropping message", shard);
+                webSocket.request(1);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        handleMessage(message, receivedAt, receivedNanos);
+        webSocket.request(1);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void handleMessage(CharSequence message, long receivedAt, long receivedNanos) {
+        try {
+            logger.trace("[shard {}] Received WebSocket message: {}", shard, message);
+            if (messageHandler.handle(message, receivedAt, receivedNanos)) {
+                reconnector.dataReceived();
+            }
+        } catch (Exception e) {
+            logger.error("[shard {}] Error processing WebSocket message: {}", shard, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends one ticker, and if enabled one book, subscribe request for the pairs.
+     */
+    private synchronized void subscribe(WebSocket target, List<String> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        owner.subscriptionsPending(shard, added);
+        Optional<String> subscribeMessage = owner.createTickerMessage("subscribe", added);
+        if (subscribeMessage.isEmpty()) {
+            logger.error("[shard {}] Failed to create subscription message", shard);
+            return;
+        }
+        logger.debug("[shard {}] Sending subscribe message: {}", shard, subscribeMessage.get());
+        send(target, subscribeMessage.get());
+        if (owner.isBookEnabled()) {
+            owner.createBookMessage("subscribe", added).ifPresent(message -> send(target, message));
+        }
+        logger.info("[shard {}] Subscription message sent for {} pairs", shard, added.size());
+    }
+
+    /**
+     * Adds pairs to this shard, subscribing them right away if the connection is up.
+     */
+    synchronized void addPairs(List<String> added) {
+        List<String> updated = new ArrayList<>(pairs);
+        updated.addAll(added);
+        pairs = List.copyOf(updated);
+        if (subscribedSocket != null) {
+            subscribe(subscribedSocket, added);
+        }
+    }
+
+    /**
+     * Removes pairs from this shard, unsubscribing them if the connection is up.
+     *
+     * @return {@code true} if an unsubscribe request was sent
+     */
+    synchronized boolean removePairs(List<String> removed) {
+        List<String> updated = new ArrayList<>(pairs);
+        updated.removeAll(removed);
+        pairs = List.copyOf(updated);
+        WebSocket target = subscribedSocket;
+        if (target == null) {
+            return false;
+        }
+        Optional<String> unsubscribeMessage = owner.createTickerMessage("unsubscribe", removed);
+        unsubscribeMessage.ifPresent(message -> send(target, message));
+        if (owner.isBookEnabled()) {
+            owner.createBookMessage("unsubscribe", removed).ifPresent(message -> send(target, message));
+        }
+        logger.info("[shard {}] Unsubscribe message sent for {} pairs", shard, removed.size());
+        return unsubscribeMessage.isPresent();
+    }
+
+    int getShard() {
+        return shard;
+    }
+
+    List<String> getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Asks Kraken for a fresh snapshot of a book that failed validation.
+     */
+    private void resubscribeBook(String pair) {
+        WebSocket current = webSocket;
+        if (current == null) {
+            return;
+        }
+        logger.warn("[shard {}] Resubscribing to order book for {}", shard, pair);
+        List<String> single = List.of(pair);
+        owner.createBookMessage("unsubscribe", single).ifPresent(message -> send(current, message));
+        owner.createBookMessage("subscribe", single).ifPresent(message -> send(current, message));
+    }
+
+    /**
+     * Queues a text message behind any send still in progress; the JDK WebSocket allows only one
+     * outstanding send at a time.
+     */
+    private synchronized void send(WebSocket target, String message) {
+        pendingSend = pendingSend
+                .handle((result, error) -> null)
+                .thenCompose(ignored -> target.sendText(message, true));
+    }
+
+    /**
+     * Flow-control consumer: processes queued frames and requests one more frame from the
+     * current connection for each one drained.
+     */
+    private void drainFrameQueue() {
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedFrame frame;
+            try {
+                frame = frameQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            handleMessage(frame.text, frame.receivedAt, frame.receivedNanos);
+            WebSocket current = webSocket;
+            if (current != null) {
+                current.request(1);
+            }
+        }
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        // Callbacks of a socket already replaced are stale
+        if (webSocket != this.webSocket) {
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.warn("[shard {}] WebSocket connection closed: {} - {}", shard, statusCode, reason);
+        connectionLost();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        if (webSocket != this.webSocket) {
+            return;
+        }
+        logger.error("[shard {}] WebSocket error: {}", shard, error.getMessage(), error);
+        connectionLost();
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        // Handle binary messages if needed
+        webSocket.request(1);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletionStage<?> onPing(WebSocket webSocket, ByteBuffer message) {
+        webSocket.sendPong(message);
+        webSocket.request(1);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
+        // Handle pong message
+        webSocket.request(1);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Starts or continues an outage and asks the supervisor for a reconnect. Both onClose and
+     * onError may report the same failure; the supervisor keeps a single attempt pending.
+     */
+    private void connectionLost() {
+        connected = false;
+        if (stopped) {
+            return;
+        }
+        List<String> lost;
+        synchronized (this) {
+            subscribedSocket = null;
+            lost = pairs;
+        }
+        owner.subscriptionsPending(shard, lost);
+        outageTracker.disconnected(System.currentTimeMillis(), owner.lastPrices(lost));
+        long delay = reconnector.schedule();
+        if (delay >= 0) {
+            reconnectCount.incrementAndGet();
+            logger.warn("[shard {}] Scheduling WebSocket reconnection in {} ms (attempt {})...", shard, delay,
+                    reconnector.getAttempts());
+        }
+    }
+
+    void stop() {
+        stopped = true;
+        if (frameConsumer != null) {
+            frameConsumer.interrupt();
+        }
+        if (webSocket != null) {
+            logger.info("[shard {}] Closing WebSocket connection...", shard);
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "Application shutting down");
+        }
+        if (webSocketFuture != null) {
+            webSocketFuture.cancel(true);
+        }
+    }
+
+    /**
+     * Health snapshot of this connection
+     */
+    Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("shard", shard);
+        status.put("connected", connected);
+        status.put("connectedSince", connectedSince);
+        status.put("lastMessageAt", lastMessageAt);
+        status.put("messages", messageCount.get());
+        status.put("reconnects", reconnectCount.get());
+        outageTracker.addTo(status);
+        status.put("queued", frameQueue != null ? frameQueue.size() : 0);
+        status.put("pairs", pairs);
+        return status;
+    }
+
+    /**
+     * Complete frame waiting for the flow-control consumer, with its receive times
+     */
+    private static final class QueuedFrame {
+        private final String text;
+        private final long receivedAt;
+        private final long receivedNanos;
+
+        private QueuedFrame(String text, long receivedAt, long receivedNanos) {
+            this.text = text;
+            this.receivedAt = receivedAt;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds a recorded {@link FrameJournal} back through the same processing path as live frames,
+ * so price updates, candles and books are rebuilt exactly as they were.
+ * <p>
+ * A speed of {@code 1} replays at the original pace, {@code N} at N times the original pace, and
+ * zero or less as fast as possible. Only one replay runs at a time, on its own thread.
+ * <p>
+ * Replayed prices reach everything live prices do, including stored prices, limit orders and
+ * triggers, so background replays are off unless {@code journal.replay.enabled} is set, are
+ * refused while the live Kraken feed is the market data source, and only read journals inside
+ * {@code journal.directory}.
+ */
+@Service
+public class KrakenJournalReplayer {
+    private static final Logger logger = LoggerFactory.getLogger(KrakenJournalReplayer.class);
+
+    private static final String LIVE_SOURCE = "kraken";
+
+    private final KrakenWebSocketClient client;
+    private final MarketDataSource marketDataSource;
+    private final FrameJournal frameJournal;
+    private final boolean enabled;
+    private volatile Thread replayThread;
+    private volatile long framesReplayed;
+
+    @Autowired
+    public KrakenJournalReplayer(KrakenWebSocketClient client, MarketDataSource marketDataSource,
+                                 FrameJournal frameJournal,
+                                 @Value("${journal.replay.enabled:false}") boolean enabled) {
+        this.client = client;
+        this.marketDataSource = marketDataSource;
+        this.frameJournal = frameJournal;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Resolves a journal directory against {@code journal.directory}.
+     *
+     * @param directory subdirectory of the journal directory, or {@code null} for the journal directory
+     * @throws IllegalArgumentException if the directory is outside the journal directory
+     */
+    public Path resolve(String directory) {
+        Path base = frameJournal.getDirectory().toAbsolutePath().normalize();
+        if (directory == null || directory.isBlank()) {
+            return base;
+        }
+        Path path = base.resolve(directory).normalize();
+        if (!path.startsWith(base)) {
+            throw new IllegalArgumentException("Replay directory must be inside " + base);
+        }
+        return path;
+    }
+
+    /**
+     * Starts replaying the journal in {@code directory} in the background.
+     *
+     * @return {@code false} if a replay is already running
+     * @throws IllegalStateException if replays are disabled or the live feed is the market data source
+     */
+    public synchronized boolean start(Path directory, double speed) {
+        if (!enabled) {
+            throw new IllegalStateException("Journal replay is disabled");
+        }
+        if (LIVE_SOURCE.equals(marketDataSource.getName())) {
+            throw new IllegalStateException("Journal replay is not allowed while the live Kraken feed is attached");
+        }
+        if (isRunning()) {
+            return false;
+        }
+        framesReplayed = 0;
+        replayThread = new Thread(() -> replay(directory, speed), "Kraken-Journal-Replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+        return true;
+    }
+
+    /**
+     * Replays the journal in {@code directory} on the calling thread.
+     *
+     * @return number of frames replayed
+     */
+    public long replay(Path directory, double speed) {
+        KrakenMessageHandler handler = client.createInProcessHandler();
+        ReplayPacer pacer = new ReplayPacer(speed);
+        logger.info("Replaying Kraken journal from {} at speed {}", directory, speed <= 0 ? "max" : speed);
+        long started = System.nanoTime();
+        try {
+            long frames = new FrameJournalReader(directory).read((receivedAt, frame) -> {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                pacer.await(receivedAt);
+                try {
+                    handler.handle(frame, receivedAt);
+                } catch (Exception e) {
+                    logger.error("Error replaying frame: {}", e.getMessage(), e);
+                }
+                framesReplayed++;
+                return true;
+            });
+            logger.info("Replayed {} frames in {} ms", frames,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return frames;
+        } catch (Exception e) {
+            logger.error("Journal replay from {} failed: {}", directory, e.getMessage(), e);
+            return framesReplayed;
+        }
+    }
+
+    public boolean isRunning() {
+        Thread thread = replayThread;
+        return thread != null && thread.isAlive();
+    }
+
+    public void stop() {
+        Thread thread = replayThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("running", isRunning());
+        status.put("framesReplayed", framesReplayed);
+        return status;
+    }
+}
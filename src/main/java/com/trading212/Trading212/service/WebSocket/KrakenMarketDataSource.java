@@ -0,0 +1,57 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Live prices from the Kraken WebSocket API.
+ */
+@Service
+// Started once the subscribed pairs have been loaded from the cryptocurrencies table
+@DependsOn("cryptoService")
+@ConditionalOnProperty(name = "market-data.source", havingValue = "kraken", matchIfMissing = true)
+public class KrakenMarketDataSource implements MarketDataSource {
+    private final KrakenWebSocketClient client;
+
+    @Value("${kraken.url:wss://ws.kraken.com/}")
+    private String url;
+
+    @Autowired
+    public KrakenMarketDataSource(KrakenWebSocketClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public String getName() {
+        return "kraken";
+    }
+
+    @Override
+    @PostConstruct
+    public void start() {
+        client.startWebSocket(url);
+    }
+
+    @Override
+    @PreDestroy
+    public void stop() {
+        client.stopWebSocket();
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("source", getName());
+        status.put("url", url);
+        status.put("connections", client.getConnectionStatus());
+        return status;
+    }
+}
@@ -0,0 +1,88 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.service.FeedLatencyMonitor;
+import com.trading212.Trading212.service.L2BookDelta;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Decodes complete Kraken messages and dispatches them to the owning {@link KrakenWebSocketClient}:
+ * ticker and book frames through their allocation-light decoders, everything else through the
+ * tree parser.
+ * <p>
+ * Holds reusable decode state, so it is not thread-safe: each connection, and each journal replay,
+ * uses its own instance.
+ */
+class KrakenMessageHandler {
+    private final KrakenWebSocketClient owner;
+    private final KrakenTickerDecoder tickerDecoder;
+    private final KrakenTick tick = new KrakenTick();
+    private final KrakenBookDecoder bookDecoder = new KrakenBookDecoder();
+    private final L2BookDelta bookDelta = new L2BookDelta();
+    // Called with the pair of a book that failed validation
+    private final Consumer<String> bookOutOfSync;
+    private final FrameJournal journal;
+    private final OutageTracker outageTracker;
+
+    /**
+     * @param journal where decoded ticks are recorded, or {@code null} to not record them
+     * @param outageTracker tracker of the connection the messages arrive on, or {@code null}
+     */
+    KrakenMessageHandler(KrakenWebSocketClient owner, Collection<String> pairs,
+                         Consumer<String> bookOutOfSync, FrameJournal journal, OutageTracker outageTracker) {
+        this.owner = owner;
+        this.tickerDecoder = new KrakenTickerDecoder(pairs);
+        this.bookOutOfSync = bookOutOfSync;
+        this.journal = journal;
+        this.outageTracker = outageTracker;
+    }
+
+    /**
+     * Handles a message that did not come from a socket, treating it as received now for latency.
+     *
+     * @param receivedAt when the message was originally received, in epoch milliseconds
+     */
+    void handle(CharSequence message, long receivedAt) throws IOException {
+        handle(message, receivedAt, System.nanoTime());
+    }
+
+    /**
+     * @param receivedAt when the message was received, in epoch milliseconds
+     * @param receivedNanos {@link System#nanoTime()} when the message was received
+     * @return {@code true} if the message was a ticker or book update
+     */
+    boolean handle(CharSequence message, long receivedAt, long receivedNanos) throws IOException {
+        FeedLatencyMonitor latency = owner.getLatencyMonitor();
+        // Ticker updates are decoded in place without building a tree
+        if (tickerDecoder.decode(message, tick)) {
+            latency.recordSinceNanos(FeedLatencyMonitor.Stage.DECODED, receivedNanos);
+            if (journal != null) {
+                journal.appendTick(tick, receivedAt);
+            }
+            if (outageTracker != null) {
+                outageTracker.onPrice(tick.getPair(), tick.getLastPrice());
+            }
+            owner.publishPrice(tick.getPair(), tick.getBidPrice(), tick.getAskPrice(), tick.getLastPrice(),
+                    tick.getTodayVolume(), receivedAt, receivedNanos);
+            return true;
+        }
+
+        if (owner.isBookEnabled() && bookDecoder.decode(message, bookDelta)) {
+            latency.recordSinceNanos(FeedLatencyMonitor.Stage.DECODED, receivedNanos);
+            if (bookDelta.getLatestTimestampMicros() > 0) {
+                latency.record(FeedLatencyMonitor.Stage.EXCHANGE,
+                        receivedAt * 1000 - bookDelta.getLatestTimestampMicros());
+            }
+            if (!owner.applyBook(bookDelta)) {
+                bookOutOfSync.accept(bookDelta.getPair());
+            }
+            return true;
+        }
+
+        // Event messages and anything the fast paths do not understand
+        owner.handleTreeMessage(message, receivedAt, receivedNanos);
+        return false;
+    }
+}
@@ -0,0 +1,99 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.util.FixedPoint;
+
+/**
+ * Mutable holder for the fields decoded from one Kraken ticker frame.
+ * <p>
+ * A single instance is reused by the listener for every frame, so callers must copy out anything
+ * they want to keep before the next frame is decoded. Prices and volumes are {@link FixedPoint}
+ * values, {@link FixedPoint#NULL} when the frame did not carry them.
+ */
+public class KrakenTick {
+    private String pair;
+    private long lastPrice;
+    private long bidPrice;
+    private long askPrice;
+    private long volume;
+    private long todayVolume;
+
+    void clear() {
+        pair = null;
+        lastPrice = FixedPoint.NULL;
+        bidPrice = FixedPoint.NULL;
+        askPrice = FixedPoint.NULL;
+        volume = FixedPoint.NULL;
+        todayVolume = FixedPoint.NULL;
+    }
+
+    public String getPair() {
+        return pair;
+    }
+
+    void setPair(String pair) {
+        this.pair = pair;
+    }
+
+    /**
+     * Price of the last trade ({@code c[0]})
+     */
+    public long getLastPrice() {
+        return lastPrice;
+    }
+
+    void setLastPrice(long lastPrice) {
+        this.lastPrice = lastPrice;
+    }
+
+    /**
+     * Best bid price ({@code b[0]}), or {@link FixedPoint#NULL} if the frame did not carry one
+     */
+    public long getBidPrice() {
+        return bidPrice;
+    }
+
+    void setBidPrice(long bidPrice) {
+        this.bidPrice = bidPrice;
+    }
+
+    /**
+     * Best ask price ({@code a[0]}), or {@link FixedPoint#NULL} if the frame did not carry one
+     */
+    public long getAskPrice() {
+        return askPrice;
+    }
+
+    void setAskPrice(long askPrice) {
+        this.askPrice = askPrice;
+    }
+
+    /**
+     * Rolling 24 hour volume ({@code v[1]}), or {@link FixedPoint#NULL} if the frame did not carry one
+     */
+    public long getVolume() {
+        return volume;
+    }
+
+    void setVolume(long volume) {
+        this.volume = volume;
+    }
+
+    /**
+     * Volume since the start of the current UTC day ({@code v[0]}), or {@link FixedPoint#NULL} if
+     * the frame did not carry one
+     */
+    public long getTodayVolume() {
+        return todayVolume;
+    }
+
+    void setTodayVolume(long todayVolume) {
+        this.todayVolume = todayVolume;
+    }
+
+    @Override
+    public String toString() {
+        return "KrakenTick{pair=" + pair + ", last=" + FixedPoint.toString(lastPrice)
+                + ", bid=" + FixedPoint.toString(bidPrice) + ", ask=" + FixedPoint.toString(askPrice)
+                + ", volume=" + FixedPoint.toString(volume) + "}";
+    }
+}
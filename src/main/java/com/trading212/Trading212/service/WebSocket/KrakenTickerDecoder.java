@@ -0,0 +1,260 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.util.FixedPoint;
+
+import java.util.Collection;
+
+/**
+ * Allocation-light decoder for Kraken ticker frames.
+ * <p>
+ * Scans the frame text in place instead of building a {@code JsonNode} tree, and only extracts
+ * the fields we use: pair, last trade price, best bid/ask and volume. A ticker frame looks like
+ * <pre>
+ * [340, {"a":["50001.1",1,"1.0"],"b":["50000.9",2,"2.0"],"c":["50001.0","0.01"],"v":["120.5","980.2"],...}, "ticker", "XBT/USD"]
+ * </pre>
+ * Anything else (event objects, other channels, malformed input) is rejected so the caller can fall
+ * back to the generic tree parser. Pair names are resolved to cached {@code String} instances and
+ * numbers are parsed straight into {@link FixedPoint} values, so decoding a frame allocates nothing.
+ * <p>
+ * Not thread-safe: use one instance per listener.
+ */
+public class KrakenTickerDecoder {
+    private static final String TICKER_CHANNEL = "ticker";
+
+    // Open-addressed table of known pair names, keyed by String.hashCode()
+    private String[] pairs = new String[64];
+    private int pairCount;
+
+    private CharSequence in;
+    private int pos;
+    private int end;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean tokenQuoted;
+
+    public KrakenTickerDecoder() {
+    }
+
+    /**
+     * @param knownPairs pair names to pre-register, so that they never have to be allocated
+     */
+    public KrakenTickerDecoder(Collection<String> knownPairs) {
+        knownPairs.forEach(this::addPair);
+    }
+
+    /**
+     * Decodes a ticker frame into {@code tick}.
+     *
+     * @return {@code true} if the frame was a ticker update with a last trade price
+     */
+    public boolean decode(CharSequence frame, KrakenTick tick) {
+        tick.clear();
+        in = frame;
+        pos = 0;
+        end = frame.length();
+        try {
+            return decodeTicker(tick);
+        } catch (NumberFormatException e) {
+            return false;
+        } finally {
+            in = null;
+        }
+    }
+
+    private boolean decodeTicker(KrakenTick tick) {
+        // [channelID, {fields}, "ticker", "PAIR"]
+        if (!consume('[') || !readScalar() || tokenQuoted || !consume(',') || !consume('{')) {
+            return false;
+        }
+        if (!consume('}')) {
+            do {
+                if (!readField(tick)) {
+                    return false;
+                }
+            } while (consume(','));
+            if (!consume('}')) {
+                return false;
+            }
+        }
+        if (!consume(',') || !readScalar() || !tokenEquals(TICKER_CHANNEL) || !consume(',')) {
+            return false;
+        }
+        if (!readScalar() || !tokenQuoted) {
+            return false;
+        }
+        String pair = resolvePair();
+        if (!consume(']')) {
+            return false;
+        }
+        tick.setPair(pair);
+        return tick.getLastPrice() != FixedPoint.NULL;
+    }
+
+    /**
+     * Reads one {@code "key":[values...]} member, keeping the values we are interested in.
+     */
+    private boolean readField(KrakenTick tick) {
+        if (!readScalar() || !tokenQuoted) {
+            return false;
+        }
+        char key = tokenEnd - tokenStart == 1 ? in.charAt(tokenStart) : 0;
+        if (!consume(':') || !consume('[')) {
+            return false;
+        }
+        if (consume(']')) {
+            return true;
+        }
+        int index = 0;
+        do {
+            if (!readScalar()) {
+                return false;
+            }
+            if (index == 0) {
+                switch (key) {
+                    case 'c' -> tick.setLastPrice(tokenFixed());
+                    case 'b' -> tick.setBidPrice(tokenFixed());
+                    case 'a' -> tick.setAskPrice(tokenFixed());
+                    case 'v' -> tick.setTodayVolume(tokenVolume());
+                    default -> { }
+                }
+            } else if (index == 1 && key == 'v') {
+                tick.setVolume(tokenVolume());
+            }
+            index++;
+        } while (consume(','));
+        return consume(']');
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            char c = in.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private boolean consume(char expected) {
+        skipWhitespace();
+        if (pos < end && in.charAt(pos) == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a string or number and records its bounds (without quotes) in tokenStart/tokenEnd.
+     */
+    private boolean readScalar() {
+        skipWhitespace();
+        if (pos >= end) {
+            return false;
+        }
+        if (in.charAt(pos) == '"') {
+            int i = pos + 1;
+            while (i < end) {
+                char c = in.charAt(i);
+                if (c == '"') {
+                    tokenStart = pos + 1;
+                    tokenEnd = i;
+                    tokenQuoted = true;
+                    pos = i + 1;
+                    return true;
+                }
+                // Values we care about never contain escapes; skip the escaped char for anything else
+                i += c == '\\' ? 2 : 1;
+            }
+            return false;
+        }
+        int start = pos;
+        while (pos < end) {
+            char c = in.charAt(pos);
+            if ((c < '0' || c > '9') && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E') {
+                break;
+            }
+            pos++;
+        }
+        tokenStart = start;
+        tokenEnd = pos;
+        tokenQuoted = false;
+        return pos > start;
+    }
+
+    private boolean tokenEquals(String expected) {
+        int length = tokenEnd - tokenStart;
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (in.charAt(tokenStart + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long tokenFixed() {
+        return FixedPoint.parse(in, tokenStart, tokenEnd);
+    }
+
+    /**
+     * Volumes of very low-priced coins can exceed the {@link FixedPoint} range; they are reported
+     * as unknown rather than failing the whole frame.
+     */
+    private long tokenVolume() {
+        try {
+            return tokenFixed();
+        } catch (NumberFormatException e) {
+            return FixedPoint.NULL;
+        }
+    }
+
+    private String resolvePair() {
+        int hash = 0;
+        for (int i = tokenStart; i < tokenEnd; i++) {
+            hash = 31 * hash + in.charAt(i);
+        }
+        int mask = pairs.length - 1;
+        for (int slot = spread(hash) & mask; pairs[slot] != null; slot = (slot + 1) & mask) {
+            if (tokenEquals(pairs[slot])) {
+                return pairs[slot];
+            }
+        }
+        String pair = in.subSequence(tokenStart, tokenEnd).toString();
+        addPair(pair);
+        return pair;
+    }
+
+    private void addPair(String pair) {
+        if ((pairCount + 1) * 2 > pairs.length) {
+            String[] old = pairs;
+            pairs = new String[old.length * 2];
+            pairCount = 0;
+            for (String existing : old) {
+                if (existing != null) {
+                    insert(existing);
+                }
+            }
+        }
+        insert(pair);
+    }
+
+    private void insert(String pair) {
+        int mask = pairs.length - 1;
+        int slot = spread(pair.hashCode()) & mask;
+        while (pairs[slot] != null) {
+            if (pairs[slot].equals(pair)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        pairs[slot] = pair;
+        pairCount++;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -4,173 +4,343 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.trading212.Trading212.model.CryptoPriceUpdate;
-import com.trading212.Trading212.repository.CryptoRepository;
+import com.trading212.Trading212.service.FeedLatencyMonitor;
+import com.trading212.Trading212.service.L2BookDelta;
+import com.trading212.Trading212.service.L2OrderBookService;
+import com.trading212.Trading212.service.PriceBook;
+import com.trading212.Trading212.service.SymbolRegistry;
+import com.trading212.Trading212.service.venue.CompositePriceAggregator;
+import com.trading212.Trading212.service.venue.VenueFeed;
+import com.trading212.Trading212.util.FixedPoint;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.WebSocket;
-import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Kraken market data feed. The subscribed pairs are partitioned across
+ * {@code kraken.connections} WebSocket connections, each handled by its own {@link KrakenConnection}.
+ * <p>
+ * The pairs are the enabled rows of the {@code cryptocurrencies} table, handed over through
+ * {@link #updatePairs}. Changes are applied to the live connections with one subscribe and one
+ * unsubscribe request per connection, and Kraken's answer for every pair is tracked so that
+ * {@link #getSubscriptionStatus()} can report it.
+ * <p>
+ * This is the Kraken {@link VenueFeed}: every ticker is handed to the {@link CompositePriceAggregator}.
+ * <p>
+ * The client does not connect on its own; the active {@link MarketDataSource} decides whether it
+ * connects to Kraken, to a local stand-in, or is bypassed by an in-process generator.
+ */
 @Service
-public class KrakenWebSocketClient implements WebSocket.Listener {
-    private static final String KRAKEN_WEBSOCKET_URL = "wss://ws.kraken.com/";
-    private static final List<String> KRAKEN_PAIRS = Arrays.asList(
-            "XBT/USD", "ETH/USD", "ADA/USD", "XRP/USD", "LTC/USD",
-            "BCH/USD", "DOT/USD", "LINK/USD", "SOL/USD", "UNI/USD",
-            "DOGE/USD", "TRX/USD", "ETC/USD", "XLM/USD", "EOS/USD",
-            "XTZ/USD", "ATOM/USD", "FIL/USD"
-    );
-
+public class KrakenWebSocketClient implements VenueFeed {
     private static final Logger logger = LoggerFactory.getLogger(KrakenWebSocketClient.class);
     
-    private final CryptoRepository cryptoRepository;
+    private final PriceBook priceBook;
+    private final SymbolRegistry symbolRegistry;
+    private final L2OrderBookService orderBookService;
+    private final FrameJournal journal;
     private final ObjectMapper objectMapper;
-    private final SimpMessagingTemplate messagingTemplate;
-    private WebSocket webSocket;
+    private final CompositePriceAggregator priceAggregator;
+    // Slot of this venue in the aggregator
+    private final int venue;
+    private final FeedLatencyMonitor latencyMonitor;
     private final HttpClient httpClient;
-    private CompletableFuture<WebSocket> webSocketFuture;
+    private final List<KrakenConnection> connections = new ArrayList<>();
+    private ReconnectSupervisor reconnectSupervisor;
+    // Pairs to subscribe to, in subscription order; replaced as a whole by updatePairs
+    private volatile List<String> pairs = List.of();
+    // Kraken's ticker subscription state of every wanted pair, and of removed ones until confirmed
+    private final ConcurrentMap<String, PairSubscription> subscriptions = new ConcurrentHashMap<>();
+
+    // Number of WebSocket connections to spread the subscribed pairs over
+    @Value("${kraken.connections:1}")
+    private int connectionCount;
+
+    // With flow control, each connection only queues complete messages and a separate thread
+    // processes them, requesting more from the socket as the queue drains
+    @Value("${kraken.flow-control.enabled:false}")
+    private boolean flowControlEnabled;
+
+    @Value("${kraken.flow-control.queue-capacity:1024}")
+    private int queueCapacity;
+
+    // Also subscribe to the book channel and maintain level-2 books
+    @Value("${kraken.book.enabled:false}")
+    private boolean bookEnabled;
+
+    // Reconnect backoff: doubles from the initial delay up to the maximum, with jitter
+    @Value("${kraken.reconnect.initial-delay-ms:500}")
+    private long reconnectInitialDelayMs;
+
+    @Value("${kraken.reconnect.max-delay-ms:30000}")
+    private long reconnectMaxDelayMs;
+
+    // The backoff resets on a connection's first data frame, or once it has stayed up this long
+    @Value("${kraken.reconnect.stable-after-ms:10000}")
+    private long reconnectStableAfterMs;
 
     @Autowired
-    public KrakenWebSocketClient(CryptoRepository cryptoRepository, SimpMessagingTemplate messagingTemplate) {
-        this.cryptoRepository = cryptoRepository;
+    public KrakenWebSocketClient(PriceBook priceBook, SymbolRegistry symbolRegistry,
+                                 L2OrderBookService orderBookService, FrameJournal journal,
+                                 CompositePriceAggregator priceAggregator, FeedLatencyMonitor latencyMonitor) {
+        this.priceBook = priceBook;
+        this.symbolRegistry = symbolRegistry;
+        this.orderBookService = orderBookService;
+        this.journal = journal;
         this.objectMapper = new ObjectMapper();
-        this.messagingTemplate = messagingTemplate;
+        this.priceAggregator = priceAggregator;
+        this.latencyMonitor = latencyMonitor;
         this.httpClient = HttpClient.newHttpClient();
+        this.venue = priceAggregator.register(this);
     }
 
-    @PostConstruct
-    public void startWebSocket() {
-        logger.info("Initializing Kraken WebSocket client...");
-        logger.info("Attempting to connect to Kraken WebSocket API at: {}", KRAKEN_WEBSOCKET_URL);
-        logger.info("Subscribing to pairs: {}", KRAKEN_PAIRS);
-        connectWebSocket();
+    @Override
+    public String getVenue() {
+        return "kraken";
     }
 
-    private void connectWebSocket() {
-        try {
-            logger.info("Creating new WebSocket connection to: {}", KRAKEN_WEBSOCKET_URL);
-            webSocketFuture = httpClient.newWebSocketBuilder()
-                    .buildAsync(URI.create(KRAKEN_WEBSOCKET_URL), this)
-                    .thenApply(ws -> {
-                        this.webSocket = ws;
-                        logger.info("WebSocket connection future completed");
-                        return ws;
-                    });
-            
-            // Wait for connection to be established
-            logger.info("Waiting for WebSocket connection to be established...");
-            webSocketFuture.get(10, TimeUnit.SECONDS);
-            logger.info("WebSocket connection established and ready for use");
-        } catch (InterruptedException e) {
-            logger.error("WebSocket connection was interrupted: {}", e.getMessage());
-            Thread.currentThread().interrupt();
-            scheduleReconnect();
-        } catch (ExecutionException e) {
-            logger.error("Failed to establish WebSocket connection: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
-            scheduleReconnect();
-        } catch (TimeoutException e) {
-            logger.error("WebSocket connection timed out after 10 seconds");
-            scheduleReconnect();
-        } catch (Exception e) {
-            logger.error("Unexpected error during WebSocket connection: {}", e.getMessage(), e);
-            scheduleReconnect();
-        }
-    }
     @Override
-    public void onOpen(WebSocket webSocket) {
-        logger.info("WebSocket connection opened successfully to Kraken API");
-        String subscribeMessage = createSubscribeMessage(KRAKEN_PAIRS).orElse("");
-        if (!subscribeMessage.isEmpty()) {
-            logger.debug("Sending subscribe message: {}", subscribeMessage);
-            webSocket.sendText(subscribeMessage, true);
-            logger.info("Subscription message sent for {} pairs", KRAKEN_PAIRS.size());
-        } else {
-            logger.error("Failed to create subscription message");
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pairs", pairs.size());
+        status.put("subscribed", subscriptions.values().stream()
+                .filter(subscription -> subscription.state() == SubscriptionState.SUBSCRIBED).count());
+        status.put("connections", connections.size());
+        return status;
+    }
+
+    /**
+     * Connects to a server speaking Kraken's WebSocket protocol at {@code url}.
+     */
+    public synchronized void startWebSocket(String url) {
+        if (!connections.isEmpty()) {
+            logger.warn("Kraken WebSocket client already started");
+            return;
         }
+        logger.info("Initializing Kraken WebSocket client...");
+        logger.info("Attempting to connect to Kraken WebSocket API at: {}", url);
+        logger.info("Subscribing to pairs: {}", pairs);
+        if (flowControlEnabled) {
+            logger.info("Flow control enabled with a queue of {} frames per connection", queueCapacity);
+        }
+
+        reconnectSupervisor = new ReconnectSupervisor(reconnectInitialDelayMs, reconnectMaxDelayMs, reconnectStableAfterMs);
+        List<List<String>> shards = partition(pairs, connectionCount);
+        for (int i = 0; i < shards.size(); i++) {
+            connections.add(new KrakenConnection(i, shards.get(i), url, httpClient,
+                    this, flowControlEnabled, queueCapacity, journal.isEnabled() ? journal : null,
+                    reconnectSupervisor));
+            for (String pair : shards.get(i)) {
+                subscriptions.put(pair, PairSubscription.pending(i));
+            }
+        }
+        logger.info("Spreading {} pairs over {} connections", pairs.size(), connections.size());
+        connections.forEach(KrakenConnection::start);
     }
 
-    @Override
-    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
-        try {
-            logger.trace("Received WebSocket message: {}", data);
-            JsonNode rootNode = objectMapper.readTree(data.toString());
-            
-            // Log connection status messages
-            if (rootNode.has("event")) {
-                String eventType = rootNode.get("event").asText();
-                logger.info("WebSocket {}: {}", eventType, rootNode);
-                
-                if ("systemStatus".equals(eventType) || "subscriptionStatus".equals(eventType)) {
-                    String status = rootNode.path("status").asText("unknown");
-                    logger.info("WebSocket {} - Status: {}", eventType, status);
-                    
-                    if ("error".equals(status)) {
-                        logger.error("WebSocket error: {}", rootNode);
-                    }
+    /**
+     * Makes {@code wanted} the subscribed pairs. On a running feed, removed pairs are unsubscribed on
+     * their connection and added ones are subscribed on the connections carrying the fewest pairs,
+     * with a single request per connection and channel.
+     */
+    public synchronized void updatePairs(Collection<String> wanted) {
+        Set<String> wantedSet = new LinkedHashSet<>(wanted);
+        Set<String> current = new HashSet<>(pairs);
+        List<String> added = wantedSet.stream().filter(pair -> !current.contains(pair)).toList();
+        Set<String> removed = current.stream().filter(pair -> !wantedSet.contains(pair)).collect(Collectors.toSet());
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        pairs = List.copyOf(wantedSet);
+        logger.info("Kraken pairs changed: subscribing {}, unsubscribing {}", added, removed);
+        if (connections.isEmpty()) {
+            // Not started; startWebSocket subscribes whatever is wanted by then
+            removed.forEach(subscriptions::remove);
+            added.forEach(pair -> subscriptions.put(pair, PairSubscription.pending(-1)));
+            return;
+        }
+
+        for (KrakenConnection connection : connections) {
+            List<String> dropped = connection.getPairs().stream().filter(removed::contains).toList();
+            if (dropped.isEmpty()) {
+                continue;
+            }
+            dropped.forEach(pair -> subscriptions.computeIfPresent(pair,
+                    (key, subscription) -> subscription.with(SubscriptionState.UNSUBSCRIBING, null)));
+            if (!connection.removePairs(dropped)) {
+                // Not subscribed on a live socket, so there is no confirmation to wait for
+                dropped.forEach(subscriptions::remove);
+            }
+        }
+
+        Map<KrakenConnection, List<String>> assigned = new LinkedHashMap<>();
+        connections.forEach(connection -> assigned.put(connection, new ArrayList<>()));
+        for (String pair : added) {
+            KrakenConnection target = connections.get(0);
+            for (KrakenConnection connection : connections) {
+                if (load(connection, assigned) < load(target, assigned)) {
+                    target = connection;
                 }
-                return CompletableFuture.completedFuture(null);
             }
-            
-            // Process price update messages
-            processWebSocketMessage(rootNode);
-            
-        } catch (Exception e) {
-            logger.error("Error processing WebSocket message: {}", e.getMessage(), e);
+            assigned.get(target).add(pair);
+            subscriptions.put(pair, PairSubscription.pending(target.getShard()));
         }
-        return CompletableFuture.completedFuture(null);
+        assigned.forEach((connection, pairsToAdd) -> {
+            if (!pairsToAdd.isEmpty()) {
+                connection.addPairs(pairsToAdd);
+            }
+        });
     }
 
-    @Override
-    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
-        System.out.printf("WebSocket connection closed: %d - %s%n", statusCode, reason);
-        scheduleReconnect();
-        return CompletableFuture.completedFuture(null);
+    private static int load(KrakenConnection connection, Map<KrakenConnection, List<String>> assigned) {
+        return connection.getPairs().size() + assigned.get(connection).size();
     }
 
-    @Override
-    public void onError(WebSocket webSocket, Throwable error) {
-        logger.error("WebSocket error: {}", error.getMessage(), error);
-        scheduleReconnect();
+    /**
+     * Splits pairs round-robin into {@code count} shards, at least one; shards may be empty and
+     * receive pairs later.
+     */
+    static List<List<String>> partition(List<String> pairs, int count) {
+        int shardCount = Math.max(1, count);
+        List<List<String>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (int i = 0; i < pairs.size(); i++) {
+            shards.get(i % shardCount).add(pairs.get(i));
+        }
+        return shards;
     }
 
-    @Override
-    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
-        // Handle binary messages if needed
-        return CompletableFuture.completedFuture(null);
+    /**
+     * Health of every feed connection
+     */
+    public List<Map<String, Object>> getConnectionStatus() {
+        return connections.stream().map(KrakenConnection::getStatus).collect(Collectors.toList());
     }
 
-    @Override
-    public CompletionStage<?> onPing(WebSocket webSocket, ByteBuffer message) {
-        webSocket.sendPong(message);
-        return CompletableFuture.completedFuture(null);
+    /**
+     * Pairs currently wanted, whether or not Kraken has confirmed them yet
+     */
+    public List<String> getPairs() {
+        return pairs;
     }
 
-    @Override
-    public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
-        // Handle pong message
-        return CompletableFuture.completedFuture(null);
+    /**
+     * Ticker subscription state of every pair, by pair name
+     */
+    public List<Map<String, Object>> getSubscriptionStatus() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        new TreeMap<>(subscriptions).forEach((pair, subscription) -> {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("pair", pair);
+            status.put("symbol", symbolRegistry.getByPair(pair).map(SymbolRegistry.Instrument::getSymbol).orElse(null));
+            status.put("state", subscription.state());
+            status.put("shard", subscription.shard());
+            status.put("since", subscription.since());
+            if (subscription.error() != null) {
+                status.put("error", subscription.error());
+            }
+            status.put("lastPriceAt", priceBook.getByPair(pair).map(PriceBook.Entry::getTimestamp).orElse(null));
+            result.add(status);
+        });
+        return result;
     }
 
-    private void processWebSocketMessage(JsonNode message) {
+    /**
+     * Records that a subscribe request for the pairs was sent, or is waiting for a connection.
+     */
+    void subscriptionsPending(int shard, Collection<String> pendingPairs) {
+        for (String pair : pendingPairs) {
+            subscriptions.computeIfPresent(pair, (key, subscription) ->
+                    subscription.state() == SubscriptionState.UNSUBSCRIBING ? subscription : PairSubscription.pending(shard));
+        }
+    }
+
+    /**
+     * Applies Kraken's answer to a ticker subscribe or unsubscribe request for one pair.
+     */
+    private void onSubscriptionStatus(JsonNode event) {
+        String pair = event.path("pair").asText(null);
+        if (pair == null || !"ticker".equals(event.path("subscription").path("name").asText())) {
+            return;
+        }
+        switch (event.path("status").asText()) {
+            case "subscribed" -> subscriptions.computeIfPresent(pair,
+                    (key, subscription) -> subscription.with(SubscriptionState.SUBSCRIBED, null));
+            case "unsubscribed" -> subscriptions.computeIfPresent(pair,
+                    (key, subscription) -> subscription.state() == SubscriptionState.UNSUBSCRIBING ? null : subscription);
+            case "error" -> subscriptions.computeIfPresent(pair, (key, subscription) ->
+                    subscription.state() == SubscriptionState.UNSUBSCRIBING
+                            ? null
+                            : subscription.with(SubscriptionState.ERROR, event.path("errorMessage").asText("unknown error")));
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Handler for feeding frames that do not come from a socket, such as journal replays and
+     * generated feeds, through the normal processing path. Nothing it processes is journaled,
+     * and books that fail validation are only logged.
+     */
+    KrakenMessageHandler createInProcessHandler() {
+        return new KrakenMessageHandler(this, pairs,
+                pair -> logger.warn("In-process order book for {} failed validation", pair), null, null);
+    }
+
+    /**
+     * Handles messages the ticker fast path rejected: events, and tickers in unexpected shapes.
+     *
+     * @param receivedAt when the message was received, in epoch milliseconds
+     * @param receivedNanos {@link System#nanoTime()} when the message was received
+     */
+    void handleTreeMessage(CharSequence message, long receivedAt, long receivedNanos) throws IOException {
+        JsonNode rootNode = objectMapper.readTree(message.toString());
+        
+        // Log connection status messages
+        if (rootNode.has("event")) {
+            String eventType = rootNode.get("event").asText();
+            logger.info("WebSocket {}: {}", eventType, rootNode);
+            
+            if ("systemStatus".equals(eventType) || "subscriptionStatus".equals(eventType)) {
+                String status = rootNode.path("status").asText("unknown");
+                logger.info("WebSocket {} - Status: {}", eventType, status);
+                
+                if ("error".equals(status)) {
+                    logger.error("WebSocket error: {}", rootNode);
+                }
+                if ("subscriptionStatus".equals(eventType)) {
+                    onSubscriptionStatus(rootNode);
+                }
+            }
+            return;
+        }
+        
+        // Process price update messages
+        processWebSocketMessage(rootNode, receivedAt, receivedNanos);
+    }
+
+    private void processWebSocketMessage(JsonNode message, long receivedAt, long receivedNanos) {
         try {
             logger.trace("Processing WebSocket message: {}", message);
             
@@ -184,31 +354,9 @@ public class KrakenWebSocketClient implements WebSocket.Listener {
                     if (!cNode.isMissingNode() && cNode.isArray() && cNode.size() > 0) {
                         String lastTradePrice = cNode.get(0).asText();
                         try {
-                            BigDecimal newPrice = new BigDecimal(lastTradePrice);
-                            logger.debug("Updating price for {} to {}", pairName, newPrice);
-                            
-                            try {
-                                // Update the price in the database
-                                cryptoRepository.updatePrice(pairName, newPrice);
-                                logger.debug("Successfully updated price for {} in database", pairName);
-                                
-                                // Broadcast the price update to WebSocket subscribers
-                                CryptoPriceUpdate update = new CryptoPriceUpdate();
-                                update.setSymbol(pairName);
-                                update.setNewPrice(newPrice);
-                                update.setTimestamp(System.currentTimeMillis());
-                                
-                                try {
-                                    // Send the update to the WebSocket topic
-                                    messagingTemplate.convertAndSend("/topic/prices", update);
-                                    logger.trace("Sent price update to WebSocket topic: {}", update);
-                                } catch (Exception e) {
-                                    logger.error("Failed to send price update to WebSocket topic: {}", e.getMessage(), e);
-                                }
-                            } catch (Exception e) {
-                                logger.error("Failed to update price for {} in database: {}", pairName, e.getMessage(), e);
-                            }
-                            
+                            publishPrice(pairName, firstFixed(tickerData.path("b")), firstFixed(tickerData.path("a")),
+                                    FixedPoint.parse(lastTradePrice), firstFixed(tickerData.path("v")),
+                                    receivedAt, receivedNanos);
                         } catch (NumberFormatException e) {
                             logger.error("Invalid price format for {}: {}", pairName, lastTradePrice, e);
                         }
@@ -221,66 +369,139 @@ public class KrakenWebSocketClient implements WebSocket.Listener {
         }
     }
 
-    private void scheduleReconnect() {
-        int delaySeconds = 5;
-        logger.warn("Scheduling WebSocket reconnection in {} seconds...", delaySeconds);
-        new Thread(() -> {
-            try {
-                Thread.sleep(delaySeconds * 1000L);
-                logger.info("Attempting to reconnect to WebSocket...");
-                connectWebSocket();
-            } catch (InterruptedException e) {
-                logger.warn("WebSocket reconnection thread was interrupted");
-                Thread.currentThread().interrupt();
-            }
-        }, "WebSocket-Reconnect-Thread").start();
+    /**
+     * First element of a ticker array such as {@code "b":["50000.9",2,"2.0"]}, or
+     * {@link FixedPoint#NULL} if it is missing or out of range
+     */
+    private static long firstFixed(JsonNode array) {
+        if (!array.isArray() || array.size() == 0) {
+            return FixedPoint.NULL;
+        }
+        try {
+            return FixedPoint.parse(array.get(0).asText());
+        } catch (NumberFormatException e) {
+            return FixedPoint.NULL;
+        }
     }
 
-    @PreDestroy
-    public void stopWebSocket() {
-        if (webSocket != null) {
-            System.out.println("Closing WebSocket connection...");
-            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "Application shutting down");
+    /**
+     * @param bid {@link FixedPoint} best bid, or {@link FixedPoint#NULL} if unknown
+     * @param ask {@link FixedPoint} best ask, or {@link FixedPoint#NULL} if unknown
+     * @param newPrice {@link FixedPoint} last trade price
+     * @param dayVolume cumulative volume since the start of the day, or {@link FixedPoint#NULL} if unknown
+     * @param timestamp when the price was received, in epoch milliseconds
+     * @param receivedNanos {@link System#nanoTime()} when the price was received
+     */
+    void publishPrice(String pairName, long bid, long ask, long newPrice, long dayVolume, long timestamp,
+                      long receivedNanos) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Updating price for {} to {}", pairName, FixedPoint.toString(newPrice));
+        }
+        
+        int id = symbolRegistry.idOfPair(pairName);
+        if (id < 0) {
+            logger.debug("Ignoring price for unregistered pair {}", pairName);
+            return;
+        }
+        priceAggregator.onQuote(venue, id, bid, ask, newPrice, dayVolume, timestamp, receivedNanos);
+    }
+
+    /**
+     * Last known {@link FixedPoint} price of each of the given pairs that has one
+     */
+    Map<String, Long> lastPrices(List<String> pairs) {
+        Map<String, Long> prices = new HashMap<>();
+        for (String pair : pairs) {
+            priceBook.getByPair(pair).ifPresent(entry -> prices.put(pair, entry.getFixedPrice()));
         }
-        if (webSocketFuture != null) {
-            webSocketFuture.cancel(true);
+        return prices;
+    }
+
+    FeedLatencyMonitor getLatencyMonitor() {
+        return latencyMonitor;
+    }
+
+    boolean isBookEnabled() {
+        return bookEnabled;
+    }
+
+    /**
+     * @return {@code false} if the pair's book is out of sync and must be resubscribed
+     */
+    boolean applyBook(L2BookDelta delta) {
+        return orderBookService.apply(delta);
+    }
+
+    @PreDestroy
+    public synchronized void stopWebSocket() {
+        connections.forEach(KrakenConnection::stop);
+        connections.clear();
+        if (reconnectSupervisor != null) {
+            reconnectSupervisor.shutdown();
+            reconnectSupervisor = null;
         }
     }
 
-    private Optional<String> createSubscribeMessage(List<String> pairs) {
+    /**
+     * Builds a subscribe or unsubscribe request for the ticker channel.
+     */
+    Optional<String> createTickerMessage(String event, List<String> pairs) {
         try {
-            // Filter out unsupported pairs
-            List<String> supportedPairs = pairs.stream()
-                    .filter(pair -> !pair.equals("VET/USD") && !pair.equals("NEO/USD"))
-                    .collect(Collectors.toList());
-            
-            if (supportedPairs.isEmpty()) {
-                System.out.println("No supported pairs to subscribe to");
-                return Optional.empty();
-            }
-            
-            ObjectNode subscribeRequest = objectMapper.createObjectNode();
-            subscribeRequest.put("event", "subscribe");
-            
-            // Create subscription object
+            ObjectNode request = objectMapper.createObjectNode();
+            request.put("event", event);
             ObjectNode subscription = objectMapper.createObjectNode();
             subscription.put("name", "ticker");
-            
-            // Add subscription to request
-            subscribeRequest.set("subscription", subscription);
-            
-            // Add pairs to request
+            request.set("subscription", subscription);
             ArrayNode pairArray = objectMapper.createArrayNode();
-            supportedPairs.forEach(pairArray::add);
-            subscribeRequest.set("pair", pairArray);
-            
-            String message = objectMapper.writeValueAsString(subscribeRequest);
-            System.out.println("Sending subscribe message: " + message);
-            return Optional.of(message);
+            pairs.forEach(pairArray::add);
+            request.set("pair", pairArray);
+            return Optional.of(objectMapper.writeValueAsString(request));
         } catch (Exception e) {
-            System.err.println("Error creating subscribe message: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error creating ticker {} message: {}", event, e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Builds a subscribe or unsubscribe request for the book channel at the configured depth.
+     */
+    Optional<String> createBookMessage(String event, List<String> pairs) {
+        try {
+            ObjectNode request = objectMapper.createObjectNode();
+            request.put("event", event);
+            ObjectNode subscription = objectMapper.createObjectNode();
+            subscription.put("name", "book");
+            subscription.put("depth", orderBookService.getDepth());
+            request.set("subscription", subscription);
+            ArrayNode pairArray = objectMapper.createArrayNode();
+            pairs.forEach(pairArray::add);
+            request.set("pair", pairArray);
+            return Optional.of(objectMapper.writeValueAsString(request));
+        } catch (Exception e) {
+            logger.error("Error creating book {} message: {}", event, e.getMessage(), e);
             return Optional.empty();
         }
     }
+
+    public enum SubscriptionState {
+        // Requested, or waiting for a connection, and not confirmed yet
+        PENDING,
+        SUBSCRIBED,
+        UNSUBSCRIBING,
+        // Rejected by Kraken, typically for a pair it does not list
+        ERROR
+    }
+
+    /**
+     * Subscription state of one pair on the connection of the given shard, since the given time
+     */
+    private record PairSubscription(int shard, SubscriptionState state, long since, String error) {
+        static PairSubscription pending(int shard) {
+            return new PairSubscription(shard, SubscriptionState.PENDING, System.currentTimeMillis(), null);
+        }
+
+        PairSubscription with(SubscriptionState newState, String newError) {
+            return new PairSubscription(shard, newState, System.currentTimeMillis(), newError);
+        }
+    }
 }
@@ -0,0 +1,86 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.service.PriceBook;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs a {@link LocalKrakenServer} inside the application and points the
+ * {@link KrakenWebSocketClient} at it, so the whole socket path is exercised without any outside
+ * network.
+ */
+@Service
+// Started once the subscribed pairs have been loaded from the cryptocurrencies table
+@DependsOn("cryptoService")
+@ConditionalOnProperty(name = "market-data.source", havingValue = "local")
+public class LocalKrakenMarketDataSource implements MarketDataSource {
+    private final KrakenWebSocketClient client;
+    private final PriceBook priceBook;
+    private LocalKrakenServer server;
+
+    // Port of the stand-in; 0 picks a free one
+    @Value("${market-data.local.port:0}")
+    private int port;
+
+    // Journal to replay instead of generating ticks; empty to generate
+    @Value("${market-data.local.journal-directory:}")
+    private String journalDirectory;
+
+    @Value("${market-data.local.replay-speed:1}")
+    private double replaySpeed;
+
+    @Value("${market-data.synthetic.ticks-per-second:100}")
+    private int ticksPerSecond;
+
+    @Autowired
+    public LocalKrakenMarketDataSource(KrakenWebSocketClient client, PriceBook priceBook) {
+        this.client = client;
+        this.priceBook = priceBook;
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    @PostConstruct
+    public void start() {
+        server = new LocalKrakenServer(client.getPairs(),
+                pair -> priceBook.getByPair(pair).map(PriceBook.Entry::getPrice).orElse(null),
+                ticksPerSecond,
+                journalDirectory.isBlank() ? null : Paths.get(journalDirectory),
+                replaySpeed);
+        server.start(port);
+        client.startWebSocket(server.getUrl());
+    }
+
+    @Override
+    @PreDestroy
+    public void stop() {
+        client.stopWebSocket();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("source", getName());
+        status.put("sessions", server.getSessionCount());
+        status.put("framesSent", server.getFramesSent());
+        status.put("framesDropped", server.getFramesDropped());
+        status.put("connections", client.getConnectionStatus());
+        return status;
+    }
+}
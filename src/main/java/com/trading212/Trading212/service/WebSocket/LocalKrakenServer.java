@@ -0,0 +1,229 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+import reactor.util.concurrent.Queues;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Embedded WebSocket server that speaks enough of Kraken's public protocol for
+ * {@link KrakenWebSocketClient} to subscribe to tickers: it answers subscribe requests and then
+ * streams ticker frames for the subscribed pairs, either generated at a fixed rate or replayed
+ * from a {@link FrameJournal}.
+ * <p>
+ * Each session has a bounded outbound queue; frames a slow client cannot take are dropped and
+ * counted rather than buffered without limit.
+ */
+public class LocalKrakenServer {
+    private static final Logger logger = LoggerFactory.getLogger(LocalKrakenServer.class);
+
+    private static final int SESSION_QUEUE_CAPACITY = 8192;
+
+    private final List<String> pairs;
+    private final Function<String, BigDecimal> initialPrice;
+    private final int ticksPerSecond;
+    private final Path journalDirectory;
+    private final double replaySpeed;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+
+    private DisposableServer server;
+    private Thread producer;
+
+    /**
+     * @param ticksPerSecond total rate of generated ticker frames across all pairs
+     * @param journalDirectory journal to replay instead of generating frames, or {@code null}
+     * @param replaySpeed pace of the journal replay, see {@link KrakenJournalReplayer}
+     */
+    public LocalKrakenServer(List<String> pairs, Function<String, BigDecimal> initialPrice, int ticksPerSecond,
+                             Path journalDirectory, double replaySpeed) {
+        this.pairs = List.copyOf(pairs);
+        this.initialPrice = initialPrice;
+        this.ticksPerSecond = Math.max(1, ticksPerSecond);
+        this.journalDirectory = journalDirectory;
+        this.replaySpeed = replaySpeed;
+    }
+
+    /**
+     * Binds to {@code port} on the loopback interface; 0 picks a free port.
+     */
+    public synchronized void start(int port) {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(port)
+                .route(routes -> routes.ws("/", this::handleSession))
+                .bindNow();
+        producer = new Thread(journalDirectory != null ? this::replayJournal : this::generate, "Local-Kraken-Producer");
+        producer.setDaemon(true);
+        producer.start();
+        logger.info("Local Kraken stand-in listening on ws://127.0.0.1:{}/ ({})", server.port(),
+                journalDirectory != null ? "replaying " + journalDirectory : ticksPerSecond + " ticks/s");
+    }
+
+    public synchronized void stop() {
+        if (producer != null) {
+            producer.interrupt();
+            producer = null;
+        }
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    public String getUrl() {
+        return "ws://127.0.0.1:" + server.port() + "/";
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    private Mono<Void> handleSession(WebsocketInbound in, WebsocketOutbound out) {
+        Session session = new Session();
+        sessions.add(session);
+        session.offer("{\"connectionID\":1,\"event\":\"systemStatus\",\"status\":\"online\",\"version\":\"1.9.0\"}");
+        Mono<Void> inbound = in.receive().asString()
+                .doOnNext(message -> onClientMessage(session, message))
+                .doFinally(signal -> {
+                    sessions.remove(session);
+                    session.frames.tryEmitComplete();
+                })
+                .then();
+        return out.sendString(session.frames.asFlux()).then().and(inbound);
+    }
+
+    private void onClientMessage(Session session, String message) {
+        try {
+            JsonNode request = objectMapper.readTree(message);
+            String event = request.path("event").asText();
+            if ("ping".equals(event)) {
+                session.offer("{\"event\":\"pong\"}");
+                return;
+            }
+            if (!"subscribe".equals(event) && !"unsubscribe".equals(event)) {
+                return;
+            }
+            String channel = request.path("subscription").path("name").asText();
+            for (JsonNode pairNode : request.path("pair")) {
+                String pair = pairNode.asText();
+                ObjectNode status = objectMapper.createObjectNode();
+                status.put("event", "subscriptionStatus");
+                status.put("pair", pair);
+                status.set("subscription", request.path("subscription"));
+                if (!"ticker".equals(channel)) {
+                    status.put("status", "error");
+                    status.put("errorMessage", "Subscription name not supported by the local stand-in");
+                } else if ("subscribe".equals(event)) {
+                    session.subscribed.add(pair);
+                    status.put("channelName", "ticker");
+                    status.put("channelID", pairs.indexOf(pair) + 1);
+                    status.put("status", "subscribed");
+                } else {
+                    session.subscribed.remove(pair);
+                    status.put("channelName", "ticker");
+                    status.put("status", "unsubscribed");
+                }
+                session.offer(objectMapper.writeValueAsString(status));
+            }
+        } catch (Exception e) {
+            logger.warn("Ignoring malformed client message {}: {}", message, e.getMessage());
+        }
+    }
+
+    private void publish(String pair, String frame) {
+        for (Session session : sessions) {
+            if (session.subscribed.contains(pair)) {
+                session.offer(frame);
+            }
+        }
+    }
+
+    /**
+     * Sends generated frames at the configured rate, catching up without sleeping when behind.
+     */
+    private void generate() {
+        SyntheticTickerFeed feed = new SyntheticTickerFeed(pairs, initialPrice, System.nanoTime());
+        StringBuilder frame = new StringBuilder(256);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        long dueAt = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            frame.setLength(0);
+            String pair = feed.next(frame);
+            if (pair != null) {
+                publish(pair, frame.toString());
+            }
+            dueAt += intervalNanos;
+            long wait = dueAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    private void replayJournal() {
+        ReplayPacer pacer = new ReplayPacer(replaySpeed);
+        KrakenTickerDecoder decoder = new KrakenTickerDecoder(pairs);
+        KrakenTick tick = new KrakenTick();
+        try {
+            long frames = new FrameJournalReader(journalDirectory).read((receivedAt, frame) -> {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                // Only ticker frames are replayed; events are answered by the server itself
+                if (decoder.decode(frame, tick)) {
+                    pacer.await(receivedAt);
+                    publish(tick.getPair(), frame);
+                }
+                return true;
+            });
+            logger.info("Local Kraken stand-in finished replaying {} journaled frames", frames);
+        } catch (Exception e) {
+            logger.error("Local Kraken stand-in failed to replay {}: {}", journalDirectory, e.getMessage(), e);
+        }
+    }
+
+    private final class Session {
+        private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+        private final Sinks.Many<String> frames =
+                Sinks.many().unicast().onBackpressureBuffer(Queues.<String>get(SESSION_QUEUE_CAPACITY).get());
+
+        // Only the producer thread and the session's own event loop emit, so contention is brief
+        synchronized void offer(String frame) {
+            if (frames.tryEmitNext(frame).isSuccess()) {
+                framesSent.incrementAndGet();
+            } else {
+                framesDropped.incrementAndGet();
+            }
+        }
+    }
+}
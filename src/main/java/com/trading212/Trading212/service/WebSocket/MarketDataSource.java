@@ -0,0 +1,28 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import java.util.Map;
+
+/**
+ * Where market data comes from. Exactly one source is active, chosen with
+ * {@code market-data.source}:
+ * <ul>
+ *     <li>{@code kraken} - the live Kraken WebSocket API (default)</li>
+ *     <li>{@code local} - an embedded WebSocket server speaking Kraken's ticker protocol from
+ *     synthetic or journaled data, reached through the normal {@link KrakenWebSocketClient}</li>
+ *     <li>{@code generator} - synthetic ticker frames fed straight into the processing path,
+ *     without any socket</li>
+ * </ul>
+ */
+public interface MarketDataSource {
+
+    String getName();
+
+    void start();
+
+    void stop();
+
+    /**
+     * Health and throughput of the source
+     */
+    Map<String, Object> getStatus();
+}
@@ -0,0 +1,99 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.util.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures feed outages of one connection: how long each lasted, and how far prices moved
+ * between the last tick before the outage and the first tick after it.
+ */
+final class OutageTracker {
+    private static final Logger logger = LoggerFactory.getLogger(OutageTracker.class);
+
+    private final int shard;
+    // Start of the current outage, or -1 when connected
+    private long disconnectedAt = -1;
+    private final Map<String, Long> pricesBeforeOutage = new HashMap<>();
+    // Set between reconnect and the first tick of every pair, so ticks can skip the lock otherwise
+    private volatile boolean awaitingGaps;
+
+    private long incidents;
+    private long lastDowntimeMs;
+    private long maxDowntimeMs;
+    private long totalDowntimeMs;
+    private double lastGapBps;
+    private double maxGapBps;
+
+    OutageTracker(int shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * Starts an outage unless one is already in progress.
+     *
+     * @param lastPrices last known price of each pair of the connection
+     */
+    synchronized void disconnected(long now, Map<String, Long> lastPrices) {
+        if (disconnectedAt >= 0) {
+            return;
+        }
+        disconnectedAt = now;
+        awaitingGaps = false;
+        pricesBeforeOutage.clear();
+        pricesBeforeOutage.putAll(lastPrices);
+    }
+
+    synchronized void reconnected(long now) {
+        if (disconnectedAt < 0) {
+            return;
+        }
+        incidents++;
+        lastDowntimeMs = now - disconnectedAt;
+        maxDowntimeMs = Math.max(maxDowntimeMs, lastDowntimeMs);
+        totalDowntimeMs += lastDowntimeMs;
+        disconnectedAt = -1;
+        lastGapBps = 0;
+        awaitingGaps = !pricesBeforeOutage.isEmpty();
+        logger.info("[shard {}] Feed resumed after {} ms", shard, lastDowntimeMs);
+    }
+
+    /**
+     * Records the gap for the first price of a pair after an outage.
+     *
+     * @param price {@link FixedPoint} price
+     */
+    void onPrice(String pair, long price) {
+        if (!awaitingGaps) {
+            return;
+        }
+        synchronized (this) {
+            Long before = pricesBeforeOutage.remove(pair);
+            if (before != null && before > 0) {
+                double gapBps = Math.abs(FixedPoint.toDouble(price) - FixedPoint.toDouble(before))
+                        / FixedPoint.toDouble(before) * 10_000;
+                lastGapBps = Math.max(lastGapBps, gapBps);
+                maxGapBps = Math.max(maxGapBps, gapBps);
+            }
+            if (pricesBeforeOutage.isEmpty()) {
+                awaitingGaps = false;
+                logger.info("[shard {}] Largest price gap across the last outage: {} bps", shard,
+                        String.format("%.1f", lastGapBps));
+            }
+        }
+    }
+
+    synchronized void addTo(Map<String, Object> status) {
+        status.put("outages", incidents);
+        status.put("down", disconnectedAt >= 0);
+        status.put("currentDowntimeMs", disconnectedAt >= 0 ? System.currentTimeMillis() - disconnectedAt : 0);
+        status.put("lastDowntimeMs", lastDowntimeMs);
+        status.put("maxDowntimeMs", maxDowntimeMs);
+        status.put("totalDowntimeMs", totalDowntimeMs);
+        status.put("lastResumeGapBps", lastGapBps);
+        status.put("maxResumeGapBps", maxGapBps);
+    }
+}
@@ -0,0 +1,119 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules reconnect attempts for all feed connections on one shared thread.
+ * <p>
+ * Each connection registers a {@link Reconnector}. At most one attempt per connection is pending
+ * at a time, however many failure callbacks fire, and consecutive attempts back off exponentially
+ * from {@code initialDelayMs} up to {@code maxDelayMs}, with jitter so shards that failed together
+ * do not reconnect in lockstep. A successful handshake alone does not reset the backoff, since an
+ * exchange may accept a socket and close it right away; see {@link Reconnector#connected()}.
+ */
+final class ReconnectSupervisor {
+    private final ScheduledExecutorService scheduler;
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final long stableAfterMs;
+    private volatile boolean stopped;
+
+    /**
+     * @param stableAfterMs how long a connection has to stay up for the backoff to reset when it
+     *                      has not delivered any data
+     */
+    ReconnectSupervisor(long initialDelayMs, long maxDelayMs, long stableAfterMs) {
+        this.initialDelayMs = Math.max(1, initialDelayMs);
+        this.maxDelayMs = Math.max(this.initialDelayMs, maxDelayMs);
+        this.stableAfterMs = Math.max(0, stableAfterMs);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Kraken-Reconnect-Supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    Reconnector register(Runnable connect) {
+        return new Reconnector(connect);
+    }
+
+    void shutdown() {
+        stopped = true;
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Delay before the given attempt: the exponential backoff, of which the upper half is random.
+     */
+    long delayFor(int attempt) {
+        long backoff = initialDelayMs << Math.min(attempt, 20);
+        backoff = Math.min(backoff, maxDelayMs);
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    final class Reconnector {
+        private final Runnable connect;
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private final AtomicInteger attempts = new AtomicInteger();
+        // When the current connection opened, or -1 while there is none
+        private volatile long connectedAt = -1;
+        private volatile boolean dataReceived;
+
+        private Reconnector(Runnable connect) {
+            this.connect = connect;
+        }
+
+        /**
+         * Schedules the next attempt unless one is already pending.
+         *
+         * @return the delay in milliseconds, or -1 if no attempt was scheduled
+         */
+        long schedule() {
+            if (stopped || !pending.compareAndSet(false, true)) {
+                return -1;
+            }
+            long openedAt = connectedAt;
+            connectedAt = -1;
+            if (openedAt >= 0 && System.currentTimeMillis() - openedAt >= stableAfterMs) {
+                attempts.set(0);
+            }
+            long delay = delayFor(attempts.getAndIncrement());
+            scheduler.schedule(() -> {
+                pending.set(false);
+                connect.run();
+            }, delay, TimeUnit.MILLISECONDS);
+            return delay;
+        }
+
+        /**
+         * Records that a connection is open. The backoff is not reset yet: only once the connection
+         * delivers its first data frame ({@link #dataReceived()}), or has stayed up for
+         * {@code stableAfterMs} by the time it is lost. A socket that is accepted and then closed
+         * straight away keeps backing off.
+         */
+        void connected() {
+            dataReceived = false;
+            connectedAt = System.currentTimeMillis();
+        }
+
+        /**
+         * Resets the backoff on the first data frame of a connection; later calls only read a flag.
+         */
+        void dataReceived() {
+            if (!dataReceived) {
+                dataReceived = true;
+                attempts.set(0);
+            }
+        }
+
+        int getAttempts() {
+            return attempts.get();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spaces out recorded frames so they are replayed at a multiple of their original pace.
+ * A speed of zero or less never waits.
+ */
+final class ReplayPacer {
+    private final double speed;
+    private long firstRecordedAt = -1;
+    private long firstReplayedAt;
+
+    ReplayPacer(double speed) {
+        this.speed = speed;
+    }
+
+    /**
+     * Waits until a frame recorded at {@code recordedAt} is due relative to the first frame.
+     */
+    void await(long recordedAt) {
+        if (speed <= 0) {
+            return;
+        }
+        if (firstRecordedAt < 0) {
+            firstRecordedAt = recordedAt;
+            firstReplayedAt = System.nanoTime();
+            return;
+        }
+        long dueAt = firstReplayedAt
+                + (long) (TimeUnit.MILLISECONDS.toNanos(recordedAt - firstRecordedAt) / speed);
+        long wait;
+        while ((wait = dueAt - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Generates Kraken ticker frames for a fixed set of pairs, cycling through them with a random walk
+ * on each pair's price. Frames carry the same fields the live feed does for the decoders
+ * ({@code a}, {@code b}, {@code c}, {@code v}). Not thread-safe.
+ */
+final class SyntheticTickerFeed {
+    private static final int PRICE_SCALE = 5;
+    private static final int VOLUME_SCALE = 8;
+    private static final long DEFAULT_PRICE = 100 * 100_000L;
+
+    private final String[] pairs;
+    // Unscaled at PRICE_SCALE; zero until the pair's first frame
+    private final long[] prices;
+    // Unscaled at VOLUME_SCALE
+    private final long[] dayVolumes;
+    private final Function<String, BigDecimal> initialPrice;
+    private final SplittableRandom random;
+    private int next;
+
+    /**
+     * @param initialPrice starting price of a pair, or {@code null} to start at 100
+     */
+    SyntheticTickerFeed(List<String> pairs, Function<String, BigDecimal> initialPrice, long seed) {
+        this.pairs = pairs.toArray(new String[0]);
+        this.prices = new long[this.pairs.length];
+        this.dayVolumes = new long[this.pairs.length];
+        this.initialPrice = initialPrice;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Channel id the frames of a pair are sent with, as Kraken assigns on subscribe
+     */
+    int channelId(String pair) {
+        for (int i = 0; i < pairs.length; i++) {
+            if (pairs[i].equals(pair)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the ticker frame of the next pair to {@code out}.
+     *
+     * @return the pair of the frame, or {@code null} if the feed has no pairs and nothing was appended
+     */
+    String next(StringBuilder out) {
+        if (pairs.length == 0) {
+            return null;
+        }
+        int index = next;
+        next = (next + 1) % pairs.length;
+
+        long price = prices[index];
+        if (price == 0) {
+            price = seed(pairs[index]);
+        } else {
+            // Moves of up to 0.1%
+            price = Math.max(1, price + price * random.nextInt(-10, 11) / 10_000);
+        }
+        prices[index] = price;
+        long halfSpread = Math.max(1, price / 20_000);
+        dayVolumes[index] += random.nextLong(1, 100_000_000L);
+
+        out.append('[').append(index + 1).append(",{\"a\":[\"");
+        appendFixed(out, price + halfSpread, PRICE_SCALE);
+        out.append("\",1,\"1.000\"],\"b\":[\"");
+        appendFixed(out, price - halfSpread, PRICE_SCALE);
+        out.append("\",1,\"1.000\"],\"c\":[\"");
+        appendFixed(out, price, PRICE_SCALE);
+        out.append("\",\"0.01000000\"],\"v\":[\"");
+        appendFixed(out, dayVolumes[index], VOLUME_SCALE);
+        out.append("\",\"");
+        appendFixed(out, dayVolumes[index], VOLUME_SCALE);
+        out.append("\"]},\"ticker\",\"").append(pairs[index]).append("\"]");
+        return pairs[index];
+    }
+
+    private long seed(String pair) {
+        BigDecimal start = initialPrice != null ? initialPrice.apply(pair) : null;
+        if (start == null || start.signum() <= 0) {
+            return DEFAULT_PRICE;
+        }
+        return Math.max(1, start.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue());
+    }
+
+    private static void appendFixed(StringBuilder out, long unscaled, int scale) {
+        long unit = 1;
+        for (int i = 0; i < scale; i++) {
+            unit *= 10;
+        }
+        out.append(unscaled / unit).append('.');
+        String fraction = Long.toString(unscaled % unit);
+        for (int i = fraction.length(); i < scale; i++) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+}
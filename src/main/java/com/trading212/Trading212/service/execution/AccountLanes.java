@@ -0,0 +1,299 @@
+package com.trading212.Trading212.service.execution;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer execution lanes for account state. Every account is mapped to one of
+ * {@code trading.lanes.count} lanes by its id, and each lane runs its work one item at a time on its
+ * own thread, in the order submitted. Changes to one account's balance and holdings are therefore
+ * never concurrent and need no row locks to avoid lost updates, while accounts on different lanes
+ * execute in parallel.
+ * <p>
+ * Callers block until their work has run. A lane holds at most {@code trading.lanes.queue-capacity}
+ * items; beyond that, and for work still queued after {@code trading.lanes.timeout-ms}, submission
+ * fails with a {@link LaneRejectedException} and the work is not run. Work that has started is
+ * always waited for, so a caller never sees a failure for work that went on to complete.
+ * <p>
+ * With {@code trading.group-commit.enabled} a lane takes up to {@code trading.group-commit.max-orders}
+ * items at a time, waiting at most {@code trading.group-commit.window-ms} for more to arrive, and
+ * runs them in one transaction with a single commit. Work has to open its own transaction with
+ * {@link TransactionDefinition#PROPAGATION_NESTED}, which becomes a savepoint inside the group, so a
+ * rejected item rolls back only its own changes. Callers are answered after the commit; if it
+ * fails, every item of the group that had succeeded fails with it.
+ * <p>
+ * Lanes use platform threads: work blocks on JDBC, and a virtual thread would pin its carrier
+ * in the driver's synchronized sections.
+ */
+@Service
+public class AccountLanes {
+    private static final Logger logger = LoggerFactory.getLogger(AccountLanes.class);
+
+    private final Lane[] lanes;
+    private final long timeoutMs;
+    private final boolean groupCommit;
+    private final int maxGroupSize;
+    private final long windowNanos;
+    // Opens the transaction a group runs in; null without group commit
+    private final TransactionTemplate groupTransaction;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder groupsCommitted = new LongAdder();
+    private final LongAdder groupsFailed = new LongAdder();
+
+    @Autowired
+    public AccountLanes(PlatformTransactionManager transactionManager,
+                        @Value("${trading.lanes.count:8}") int laneCount,
+                        @Value("${trading.lanes.queue-capacity:1024}") int queueCapacity,
+                        @Value("${trading.lanes.timeout-ms:10000}") long timeoutMs,
+                        @Value("${trading.group-commit.enabled:false}") boolean groupCommit,
+                        @Value("${trading.group-commit.max-orders:32}") int maxGroupSize,
+                        @Value("${trading.group-commit.window-ms:1}") long windowMs) {
+        this.lanes = new Lane[Math.max(1, laneCount)];
+        this.timeoutMs = timeoutMs;
+        this.groupCommit = groupCommit;
+        this.maxGroupSize = groupCommit ? Math.max(1, maxGroupSize) : 1;
+        this.windowNanos = groupCommit ? TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMs)) : 0;
+        this.groupTransaction = groupCommit ? new TransactionTemplate(transactionManager) : null;
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i, Math.max(1, queueCapacity));
+        }
+        if (groupCommit) {
+            logger.info("Started {} account lanes with {} queued items each, group commit of up to {} items within {} ms",
+                    lanes.length, queueCapacity, this.maxGroupSize, windowMs);
+        } else {
+            logger.info("Started {} account lanes with {} queued items each", lanes.length, queueCapacity);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+    }
+
+    /**
+     * Runs work on the account's lane and waits for it. Exceptions thrown by the work are rethrown
+     * as they are. Called from the account's own lane, the work runs inline.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(long accountId, Supplier<T> work) {
+        Lane lane = laneOf(accountId);
+        if (Thread.currentThread() == lane.thread) {
+            return work.get();
+        }
+        Task task = new Task(work);
+        if (!lane.mailbox.offer(task)) {
+            rejected.increment();
+            throw new LaneRejectedException("Too many orders pending, please retry");
+        }
+        try {
+            return (T) await(task);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private Object await(Task task) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (true) {
+                try {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining > 0) {
+                        return task.future.get(remaining, TimeUnit.NANOSECONDS);
+                    }
+                    // Only work that has not started can be withdrawn; started work is waited for
+                    if (task.state.compareAndSet(Task.QUEUED, Task.CANCELLED)) {
+                        timedOut.increment();
+                        throw new LaneRejectedException("Order timed out waiting for execution, please retry");
+                    }
+                    deadline = Long.MAX_VALUE;
+                } catch (TimeoutException e) {
+                    // Checked again at the top of the loop
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Lane laneOf(long accountId) {
+        return lanes[Math.floorMod(accountId, lanes.length)];
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("lanes", lanes.length);
+        status.put("timeoutMs", timeoutMs);
+        status.put("groupCommit", groupCommit);
+        List<Map<String, Object>> perLane = new ArrayList<>(lanes.length);
+        long executed = 0;
+        for (Lane lane : lanes) {
+            Map<String, Object> laneStatus = new LinkedHashMap<>();
+            laneStatus.put("queued", lane.mailbox.size());
+            laneStatus.put("executed", lane.executed.sum());
+            executed += lane.executed.sum();
+            perLane.add(laneStatus);
+        }
+        status.put("perLane", perLane);
+        status.put("rejected", rejected.sum());
+        status.put("timedOut", timedOut.sum());
+        if (groupCommit) {
+            long groups = groupsCommitted.sum() + groupsFailed.sum();
+            status.put("maxGroupSize", maxGroupSize);
+            status.put("windowMs", TimeUnit.NANOSECONDS.toMillis(windowNanos));
+            status.put("groupsCommitted", groupsCommitted.sum());
+            status.put("groupsFailed", groupsFailed.sum());
+            status.put("averageGroupSize", groups > 0 ? (double) executed / groups : 0.0);
+        }
+        return status;
+    }
+
+    /**
+     * One caller's work. The lane claims it before running it and the caller cancels it only while
+     * it is still queued, so exactly one of the two happens.
+     */
+    private static final class Task {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final Supplier<?> work;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        // Written and read by the lane only, before the future completes
+        private Object result;
+        private Throwable failure;
+
+        private Task(Supplier<?> work) {
+            this.work = work;
+        }
+
+        private void run() {
+            try {
+                result = work.get();
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        private void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    private final class Lane {
+        private final BlockingQueue<Task> mailbox;
+        private final Thread thread;
+        private final LongAdder executed = new LongAdder();
+
+        private Lane(int index, int queueCapacity) {
+            this.mailbox = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this::run, "account-lane-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void run() {
+            List<Task> group = new ArrayList<>(maxGroupSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    collect(group);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (groupCommit) {
+                    runGroup(group);
+                } else {
+                    group.forEach(Task::run);
+                    group.forEach(Task::complete);
+                }
+                executed.add(group.size());
+                group.clear();
+            }
+        }
+
+        /**
+         * Takes the next items, skipping those cancelled while queued: one without group commit,
+         * else whatever is queued up to the group size, waiting up to the window for more.
+         */
+        private void collect(List<Task> group) throws InterruptedException {
+            while (group.isEmpty()) {
+                claim(mailbox.take(), group);
+            }
+            long deadline = System.nanoTime() + windowNanos;
+            while (group.size() < maxGroupSize) {
+                Task next = mailbox.poll();
+                if (next == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || (next = mailbox.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                        return;
+                    }
+                }
+                claim(next, group);
+            }
+        }
+
+        private void claim(Task task, List<Task> group) {
+            if (task.state.compareAndSet(Task.QUEUED, Task.RUNNING)) {
+                group.add(task);
+            }
+        }
+
+        private void runGroup(List<Task> group) {
+            try {
+                groupTransaction.executeWithoutResult(status -> group.forEach(Task::run));
+                groupsCommitted.increment();
+            } catch (RuntimeException | Error e) {
+                groupsFailed.increment();
+                logger.error("Group of {} items on {} failed to commit: {}", group.size(), thread.getName(), e.getMessage(), e);
+                for (Task task : group) {
+                    if (task.failure == null) {
+                        task.failure = e;
+                    }
+                }
+            }
+            group.forEach(Task::complete);
+        }
+    }
+}
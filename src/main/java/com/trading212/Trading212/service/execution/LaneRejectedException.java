@@ -0,0 +1,11 @@
+package com.trading212.Trading212.service.execution;
+
+/**
+ * Work refused by {@link AccountLanes} without having run, because its lane was full or it waited
+ * too long. Retrying later can succeed.
+ */
+public class LaneRejectedException extends IllegalStateException {
+    public LaneRejectedException(String message) {
+        super(message);
+    }
+}
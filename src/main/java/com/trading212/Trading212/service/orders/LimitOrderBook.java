@@ -0,0 +1,129 @@
+package com.trading212.Trading212.service.orders;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open limit orders of one instrument, grouped into price levels.
+ * <p>
+ * Each side keeps a {@code long} array of limit prices sorted worst first (bids ascending, asks
+ * descending) and a parallel array of FIFO queues, one per level. The levels a tick crosses are
+ * therefore always at the end of the arrays: finding them is a comparison with the last level and
+ * taking them shifts nothing, so a tick costs O(1) plus the k orders it fills, however many orders
+ * rest further away. Adding or cancelling an order is a binary search plus an array shift.
+ */
+public class LimitOrderBook {
+    private final Side bids = new Side(true);
+    private final Side asks = new Side(false);
+
+    public synchronized void add(RestingOrder order) {
+        (order.isBuy() ? bids : asks).add(order);
+    }
+
+    /**
+     * @return {@code false} if the order is not in the book, e.g. because a tick already took it
+     */
+    public synchronized boolean remove(RestingOrder order) {
+        return (order.isBuy() ? bids : asks).remove(order);
+    }
+
+    /**
+     * Takes every order the price crosses out of the book: bids limited at or above it and asks
+     * limited at or below it, best limit first and in arrival order within a level.
+     *
+     * @param price {@link com.trading212.Trading212.util.FixedPoint} price
+     * @return {@code true} if any order was added to {@code crossed}
+     */
+    public synchronized boolean takeCrossed(long price, List<RestingOrder> crossed) {
+        int before = crossed.size();
+        bids.takeCrossed(price, crossed);
+        asks.takeCrossed(price, crossed);
+        return crossed.size() > before;
+    }
+
+    public synchronized int getBidCount() {
+        return bids.orders;
+    }
+
+    public synchronized int getAskCount() {
+        return asks.orders;
+    }
+
+    /**
+     * One side of the book: limit prices sorted worst first, with the orders of each level.
+     */
+    private static final class Side {
+        private final boolean buy;
+        private long[] prices = new long[16];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private ArrayDeque<RestingOrder>[] levels = new ArrayDeque[16];
+        private int size;
+        private int orders;
+
+        Side(boolean buy) {
+            this.buy = buy;
+        }
+
+        /**
+         * Binary search in array order; same contract as {@link Arrays#binarySearch(long[], long)}.
+         */
+        private int indexOf(long price) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = buy ? Long.compare(prices[mid], price) : Long.compare(price, prices[mid]);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void add(RestingOrder order) {
+            int index = indexOf(order.limitPrice());
+            if (index < 0) {
+                index = -index - 1;
+                if (size == prices.length) {
+                    prices = Arrays.copyOf(prices, size * 2);
+                    levels = Arrays.copyOf(levels, size * 2);
+                }
+                System.arraycopy(prices, index, prices, index + 1, size - index);
+                System.arraycopy(levels, index, levels, index + 1, size - index);
+                prices[index] = order.limitPrice();
+                levels[index] = new ArrayDeque<>(4);
+                size++;
+            }
+            levels[index].addLast(order);
+            orders++;
+        }
+
+        boolean remove(RestingOrder order) {
+            int index = indexOf(order.limitPrice());
+            if (index < 0 || !levels[index].remove(order)) {
+                return false;
+            }
+            orders--;
+            if (levels[index].isEmpty()) {
+                System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+                System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+                levels[--size] = null;
+            }
+            return true;
+        }
+
+        void takeCrossed(long price, List<RestingOrder> crossed) {
+            while (size > 0 && (buy ? prices[size - 1] >= price : prices[size - 1] <= price)) {
+                ArrayDeque<RestingOrder> level = levels[--size];
+                levels[size] = null;
+                orders -= level.size();
+                crossed.addAll(level);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.trading212.Trading212.service.orders;
+
+import com.trading212.Trading212.dto.LimitOrderRequest;
+import com.trading212.Trading212.dto.TradeRequest;
+import com.trading212.Trading212.dto.TradeResponse;
+import com.trading212.Trading212.model.LimitOrderEntity;
+import com.trading212.Trading212.repository.LimitOrderRepository;
+import com.trading212.Trading212.repository.UserRepository;
+import com.trading212.Trading212.service.SymbolRegistry;
+import com.trading212.Trading212.service.TradingService;
+import com.trading212.Trading212.service.execution.LaneRejectedException;
+import com.trading212.Trading212.util.FixedPoint;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resting limit orders. Orders are persisted in {@code limit_orders} and the open ones are held in
+ * a {@link LimitOrderBook} per instrument, indexed by {@link SymbolRegistry} id, so a tick only
+ * touches the orders it crosses instead of scanning every open order.
+ * <p>
+ * Crossed orders are not executed on the tick's thread but queued to
+ * {@code trading.limit-orders.executor-threads} executor threads, which execute them through
+ * {@link TradingService} at the price that crossed them, at or better than their limit, and mark
+ * them filled in the same transaction. The tick handler is a consumer of the tick ring, which
+ * holds back every producer while any consumer is a ring behind, so it never waits for the
+ * database: when the queue of {@code trading.limit-orders.queue-capacity} orders is full, crossed
+ * orders go back into their book and are taken again by the next tick that crosses them.
+ * <p>
+ * Nothing is reserved when an order is placed: an order whose balance or holding does not cover
+ * it when it is executed is rejected. Orders a lane could not take are put back and retried on
+ * the next crossing tick.
+ */
+@Service
+// The symbol registry has to be loaded before the open orders can be placed in their books
+@DependsOn("cryptoService")
+public class LimitOrderService {
+    private static final Logger logger = LoggerFactory.getLogger(LimitOrderService.class);
+
+    private final LimitOrderRepository limitOrderRepository;
+    private final UserRepository userRepository;
+    private final TradingService tradingService;
+    private final SymbolRegistry symbolRegistry;
+    private final OrderExecutor<CrossedOrder> executor;
+    private final AtomicReferenceArray<LimitOrderBook> books;
+    // Open orders by id, for cancelling and to keep an order out of its book twice
+    private final Map<Long, RestingOrder> openOrders = new ConcurrentHashMap<>();
+    // Only used by the tick handler's thread
+    private final List<RestingOrder> crossed = new ArrayList<>();
+    private final LongAdder filled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+
+    @Autowired
+    public LimitOrderService(LimitOrderRepository limitOrderRepository,
+                             UserRepository userRepository,
+                             TradingService tradingService,
+                             SymbolRegistry symbolRegistry,
+                             @Value("${trading.limit-orders.executor-threads:4}") int executorThreads,
+                             @Value("${trading.limit-orders.queue-capacity:4096}") int queueCapacity) {
+        this.limitOrderRepository = limitOrderRepository;
+        this.userRepository = userRepository;
+        this.tradingService = tradingService;
+        this.symbolRegistry = symbolRegistry;
+        this.executor = new OrderExecutor<>("limit-order-executor", executorThreads, queueCapacity,
+                crossed -> fill(crossed.order(), crossed.price()));
+        this.books = new AtomicReferenceArray<>(symbolRegistry.getCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        int loaded = 0;
+        for (LimitOrderEntity order : limitOrderRepository.findOpen()) {
+            Optional<SymbolRegistry.Instrument> instrument = symbolRegistry.getByDbId(order.getCryptoId());
+            if (instrument.isEmpty()) {
+                logger.warn("Limit order {} is for unknown cryptocurrency {}, leaving it out", order.getId(), order.getCryptoId());
+                continue;
+            }
+            rest(toRestingOrder(order, instrument.get()));
+            loaded++;
+        }
+        executor.start();
+        logger.info("Loaded {} open limit orders, executing crossed orders on {} threads", loaded,
+                executor.getThreadCount());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.stop();
+    }
+
+    /**
+     * Persists a new open order and places it in its book. It fills on the first tick that
+     * crosses its limit, which may be the next one.
+     */
+    public LimitOrderEntity place(LimitOrderRequest request) {
+        SymbolRegistry.Instrument instrument = symbolRegistry.getBySymbol(request.getSymbol())
+                .orElseThrow(() -> new IllegalArgumentException("Cryptocurrency not found"));
+        if (userRepository.findBalance(request.getUserId()).isEmpty()) {
+            throw new IllegalArgumentException("User not found");
+        }
+        long quantity = FixedPoint.of(request.getQuantity());
+        long limitPrice = FixedPoint.of(request.getLimitPrice());
+        Long id = limitOrderRepository.insert(request.getUserId(), instrument.getDbId(), request.getSide(),
+                FixedPoint.toBigDecimal(quantity), FixedPoint.toBigDecimal(limitPrice));
+        rest(new RestingOrder(id, request.getUserId(), instrument.getId(), request.getSide(), quantity, limitPrice));
+        logger.info("Placed limit order {}: {} {} {} at {}", id, request.getSide(), FixedPoint.toString(quantity),
+                instrument.getSymbol(), FixedPoint.toString(limitPrice));
+        return limitOrderRepository.findById(id)
+                .orElseThrow(() -> new IllegalStateException("Limit order " + id + " was not stored"));
+    }
+
+    /**
+     * @return {@code false} if the user has no such open order
+     */
+    public boolean cancel(Long userId, Long orderId) {
+        if (!limitOrderRepository.cancel(orderId, userId)) {
+            return false;
+        }
+        RestingOrder order = openOrders.remove(orderId);
+        if (order != null) {
+            bookOf(order.instrumentId()).remove(order);
+        }
+        return true;
+    }
+
+    public List<LimitOrderEntity> getOrders(Long userId, int page, int size) {
+        return limitOrderRepository.findByUserId(userId, size, (page - 1) * size);
+    }
+
+    /**
+     * Queues every open order of the instrument that the price crosses for execution at that
+     * price, putting back the ones that do not fit. Never waits. Called for each tick from a single
+     * thread.
+     *
+     * @param id {@link SymbolRegistry} id
+     * @param price {@link FixedPoint} price
+     */
+    public void onTick(int id, long price) {
+        LimitOrderBook book = books.get(id);
+        if (book == null || !book.takeCrossed(price, crossed)) {
+            return;
+        }
+        try {
+            for (RestingOrder order : crossed) {
+                if (openOrders.containsKey(order.id()) && !executor.submit(new CrossedOrder(order, price))) {
+                    queueFull.increment();
+                    book.add(order);
+                }
+            }
+        } finally {
+            crossed.clear();
+        }
+    }
+
+    private void fill(RestingOrder order, long price) {
+        if (!openOrders.containsKey(order.id())) {
+            // Cancelled since the tick took it
+            return;
+        }
+        SymbolRegistry.Instrument instrument = symbolRegistry.get(order.instrumentId());
+        TradeRequest request = new TradeRequest();
+        request.setUserId(order.userId());
+        request.setSymbol(instrument.getSymbol());
+        request.setQuantity(FixedPoint.toBigDecimal(order.quantity()));
+        try {
+            TradeResponse response = tradingService.executeAtPrice(request, order.side(), price, trade -> {
+                if (!limitOrderRepository.markFilled(order.id(), trade.getTransactionId())) {
+                    throw new IllegalStateException("Limit order is no longer open");
+                }
+            });
+            openOrders.remove(order.id());
+            filled.increment();
+            logger.info("Filled limit order {} at {} as transaction {}", order.id(), FixedPoint.toString(price),
+                    response.getTransactionId());
+        } catch (LaneRejectedException e) {
+            retried.increment();
+            logger.warn("Limit order {} could not be executed now, retrying on the next cross: {}", order.id(), e.getMessage());
+            bookOf(order.instrumentId()).add(order);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Not covered by the balance or holding, or cancelled while executing
+            if (limitOrderRepository.markRejected(order.id(), e.getMessage())) {
+                rejected.increment();
+                logger.info("Rejected limit order {}: {}", order.id(), e.getMessage());
+            }
+            openOrders.remove(order.id());
+        } catch (RuntimeException e) {
+            retried.increment();
+            logger.error("Failed to execute limit order {}, retrying on the next cross: {}", order.id(), e.getMessage(), e);
+            bookOf(order.instrumentId()).add(order);
+        }
+    }
+
+    private void rest(RestingOrder order) {
+        if (openOrders.putIfAbsent(order.id(), order) == null) {
+            bookOf(order.instrumentId()).add(order);
+        }
+    }
+
+    private LimitOrderBook bookOf(int id) {
+        LimitOrderBook book = books.get(id);
+        if (book == null) {
+            books.compareAndSet(id, null, new LimitOrderBook());
+            book = books.get(id);
+        }
+        return book;
+    }
+
+    private static RestingOrder toRestingOrder(LimitOrderEntity order, SymbolRegistry.Instrument instrument) {
+        return new RestingOrder(order.getId(), order.getUserId(), instrument.getId(), order.getSide(),
+                FixedPoint.of(order.getQuantity()), FixedPoint.of(order.getLimitPrice()));
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("open", openOrders.size());
+        Map<String, Object> perSymbol = new LinkedHashMap<>();
+        for (SymbolRegistry.Instrument instrument : symbolRegistry.getAll()) {
+            LimitOrderBook book = books.get(instrument.getId());
+            if (book != null) {
+                Map<String, Object> bookStatus = new LinkedHashMap<>();
+                bookStatus.put("bids", book.getBidCount());
+                bookStatus.put("asks", book.getAskCount());
+                perSymbol.put(instrument.getSymbol(), bookStatus);
+            }
+        }
+        status.put("books", perSymbol);
+        status.put("executorThreads", executor.getThreadCount());
+        status.put("queued", executor.getQueued());
+        status.put("queueCapacity", executor.getCapacity());
+        status.put("queueFull", queueFull.sum());
+        status.put("filled", filled.sum());
+        status.put("rejected", rejected.sum());
+        status.put("retried", retried.sum());
+        return status;
+    }
+
+    /**
+     * An order taken from its book and the price that crossed it
+     */
+    private record CrossedOrder(RestingOrder order, long price) {
+    }
+}
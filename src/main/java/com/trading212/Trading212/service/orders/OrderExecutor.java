@@ -0,0 +1,88 @@
+package com.trading212.Trading212.service.orders;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue of orders to execute, drained by a fixed pool of daemon threads, so a burst of
+ * orders opens at most as many trade transactions as there are threads.
+ * <p>
+ * {@link #submit} never waits: it is called from tick pipeline consumers, and a consumer that
+ * falls behind holds back every producer of the ring. A caller whose order does not fit keeps it
+ * and tries again on a later tick.
+ */
+class OrderExecutor<T> {
+    private static final Logger logger = LoggerFactory.getLogger(OrderExecutor.class);
+
+    private final String name;
+    private final int threadCount;
+    private final BlockingQueue<T> queue;
+    private final Consumer<T> action;
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * @param action executes one order; exceptions are logged and do not stop the thread
+     */
+    OrderExecutor(String name, int threads, int capacity, Consumer<T> action) {
+        this.name = name;
+        this.threadCount = Math.max(1, threads);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.action = action;
+    }
+
+    synchronized void start() {
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(this::run, name + "-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+        threads.forEach(Thread::start);
+    }
+
+    synchronized void stop() {
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    /**
+     * @return {@code false} if the queue is full
+     */
+    boolean submit(T order) {
+        return queue.offer(order);
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            T order;
+            try {
+                order = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                action.accept(order);
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error executing {}: {}", order, e.getMessage(), e);
+            }
+        }
+    }
+
+    int getThreadCount() {
+        return threadCount;
+    }
+
+    int getQueued() {
+        return queue.size();
+    }
+
+    int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+}
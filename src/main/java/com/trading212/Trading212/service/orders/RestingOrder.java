@@ -0,0 +1,19 @@
+package com.trading212.Trading212.service.orders;
+
+import com.trading212.Trading212.model.TransactionType;
+import com.trading212.Trading212.util.FixedPoint;
+
+/**
+ * An open limit order as held in a {@link LimitOrderBook}.
+ *
+ * @param instrumentId {@link com.trading212.Trading212.service.SymbolRegistry} id
+ * @param quantity {@link FixedPoint} quantity
+ * @param limitPrice {@link FixedPoint} limit price
+ */
+public record RestingOrder(long id, long userId, int instrumentId, TransactionType side, long quantity,
+                           long limitPrice) {
+
+    public boolean isBuy() {
+        return side == TransactionType.BUY;
+    }
+}
@@ -0,0 +1,217 @@
+package com.trading212.Trading212.service.orders;
+
+import com.trading212.Trading212.util.FixedPoint;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Active trigger orders of one instrument, indexed so that a tick only touches the orders it fires.
+ * <p>
+ * Stop-losses sit in a heap with the highest trigger on top and take-profits in one with the
+ * lowest on top, so a tick compares against the two tops and pops what it reaches.
+ * <p>
+ * A trailing stop fires once the price falls its distance below the highest price since it was
+ * placed, so its stop moves with every new high. Rather than moving each order's stop, trailing
+ * stops are grouped by the peak they trail, each group a heap with the shortest distance on top.
+ * A tick at a price above some peaks merges those groups into one at the new price, so raising
+ * the peak of any number of orders costs one merge, and the smaller heap is merged into the larger
+ * so an order moves only O(log n) times. Groups are ordered by their highest stop (peak less the
+ * shortest distance) to find the ones a falling price reaches.
+ */
+public class TriggerIndex {
+    private static final Comparator<TriggerOrder> HIGHEST_TRIGGER_FIRST = (a, b) -> a.triggerPrice() != b.triggerPrice()
+            ? Long.compare(b.triggerPrice(), a.triggerPrice())
+            : Long.compare(a.id(), b.id());
+    private static final Comparator<TriggerOrder> LOWEST_TRIGGER_FIRST = (a, b) -> a.triggerPrice() != b.triggerPrice()
+            ? Long.compare(a.triggerPrice(), b.triggerPrice())
+            : Long.compare(a.id(), b.id());
+    private static final Comparator<TriggerOrder> SHORTEST_TRAIL_FIRST = (a, b) -> a.trailDistance() != b.trailDistance()
+            ? Long.compare(a.trailDistance(), b.trailDistance())
+            : Long.compare(a.id(), b.id());
+
+    private final PriorityQueue<TriggerOrder> stopLosses = new PriorityQueue<>(HIGHEST_TRIGGER_FIRST);
+    private final PriorityQueue<TriggerOrder> takeProfits = new PriorityQueue<>(LOWEST_TRIGGER_FIRST);
+    private final TreeMap<Long, TrailingGroup> groupsByPeak = new TreeMap<>();
+    private final TreeSet<TrailingGroup> groupsByStop = new TreeSet<>(TrailingGroup.BY_STOP);
+    private final Map<Long, TrailingGroup> groupOf = new HashMap<>();
+    private long lastPrice = FixedPoint.NULL;
+    private long nextGroupSeq;
+
+    /**
+     * Indexes an order. A trailing stop trails from its peak, or from the last price seen by
+     * {@link #takeTriggered} if that is higher.
+     */
+    public synchronized void add(TriggerOrder order) {
+        switch (order.type()) {
+            case STOP_LOSS -> stopLosses.add(order);
+            case TAKE_PROFIT -> takeProfits.add(order);
+            case TRAILING_STOP -> {
+                long peak = lastPrice == FixedPoint.NULL ? order.peak() : Math.max(order.peak(), lastPrice);
+                TrailingGroup group = groupsByPeak.get(peak);
+                if (group == null) {
+                    group = new TrailingGroup(peak, nextGroupSeq++);
+                    groupsByPeak.put(peak, group);
+                } else {
+                    groupsByStop.remove(group);
+                }
+                group.orders.add(order);
+                group.raised |= peak != order.peak();
+                groupOf.put(order.id(), group);
+                groupsByStop.add(group);
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the order is not in the index, e.g. because a tick already fired it
+     */
+    public synchronized boolean remove(TriggerOrder order) {
+        return switch (order.type()) {
+            case STOP_LOSS -> stopLosses.removeIf(o -> o.id() == order.id());
+            case TAKE_PROFIT -> takeProfits.removeIf(o -> o.id() == order.id());
+            case TRAILING_STOP -> {
+                TrailingGroup group = groupOf.remove(order.id());
+                if (group == null) {
+                    yield false;
+                }
+                groupsByStop.remove(group);
+                group.orders.removeIf(o -> o.id() == order.id());
+                if (group.orders.isEmpty()) {
+                    groupsByPeak.remove(group.peak);
+                } else {
+                    groupsByStop.add(group);
+                }
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Takes every order the price fires out of the index: stop-losses triggered at or above it,
+     * take-profits at or below it, and trailing stops whose stop it has fallen to. Trailing stops
+     * are copied with the peak they fired from.
+     *
+     * @param price {@link FixedPoint} price
+     * @return {@code true} if any order was added to {@code fired}
+     */
+    public synchronized boolean takeTriggered(long price, List<TriggerOrder> fired) {
+        int before = fired.size();
+        lastPrice = price;
+        while (!stopLosses.isEmpty() && stopLosses.peek().triggerPrice() >= price) {
+            fired.add(stopLosses.poll());
+        }
+        while (!takeProfits.isEmpty() && takeProfits.peek().triggerPrice() <= price) {
+            fired.add(takeProfits.poll());
+        }
+        raisePeaks(price);
+        while (!groupsByStop.isEmpty() && groupsByStop.last().stop() >= price) {
+            TrailingGroup group = groupsByStop.pollLast();
+            while (!group.orders.isEmpty() && group.peak - group.orders.peek().trailDistance() >= price) {
+                TriggerOrder order = group.orders.poll();
+                groupOf.remove(order.id());
+                fired.add(order.withPeak(group.peak));
+            }
+            if (group.orders.isEmpty()) {
+                groupsByPeak.remove(group.peak);
+            } else {
+                groupsByStop.add(group);
+            }
+        }
+        return fired.size() > before;
+    }
+
+    /**
+     * Merges the groups of trailing stops whose peak the price has reached into one group at the
+     * price.
+     */
+    private void raisePeaks(long price) {
+        NavigableMap<Long, TrailingGroup> reached = groupsByPeak.headMap(price, true);
+        if (reached.isEmpty() || (reached.size() == 1 && reached.firstKey() == price)) {
+            return;
+        }
+        TrailingGroup target = null;
+        for (TrailingGroup group : reached.values()) {
+            groupsByStop.remove(group);
+            if (target == null || group.orders.size() > target.orders.size()) {
+                target = group;
+            }
+        }
+        for (TrailingGroup group : reached.values()) {
+            if (group != target) {
+                for (TriggerOrder order : group.orders) {
+                    groupOf.put(order.id(), target);
+                }
+                target.orders.addAll(group.orders);
+            }
+        }
+        reached.clear();
+        target.peak = price;
+        target.raised = true;
+        groupsByPeak.put(price, target);
+        groupsByStop.add(target);
+    }
+
+    /**
+     * Adds the current peak of every trailing stop whose peak rose since the last call, by order id.
+     */
+    public synchronized void drainRaisedPeaks(Map<Long, Long> peaks) {
+        for (TrailingGroup group : groupsByPeak.values()) {
+            if (group.raised) {
+                for (TriggerOrder order : group.orders) {
+                    peaks.put(order.id(), group.peak);
+                }
+                group.raised = false;
+            }
+        }
+    }
+
+    public synchronized int getStopLossCount() {
+        return stopLosses.size();
+    }
+
+    public synchronized int getTakeProfitCount() {
+        return takeProfits.size();
+    }
+
+    public synchronized int getTrailingStopCount() {
+        return groupOf.size();
+    }
+
+    /**
+     * Number of distinct peaks the trailing stops trail
+     */
+    public synchronized int getTrailingGroupCount() {
+        return groupsByPeak.size();
+    }
+
+    /**
+     * Trailing stops that trail the same peak.
+     */
+    private static final class TrailingGroup {
+        private static final Comparator<TrailingGroup> BY_STOP = (a, b) -> a.stop() != b.stop()
+                ? Long.compare(a.stop(), b.stop())
+                : Long.compare(a.seq, b.seq);
+
+        private final PriorityQueue<TriggerOrder> orders = new PriorityQueue<>(SHORTEST_TRAIL_FIRST);
+        private final long seq;
+        private long peak;
+        // Peak changed since it was last persisted
+        private boolean raised;
+
+        private TrailingGroup(long peak, long seq) {
+            this.peak = peak;
+            this.seq = seq;
+        }
+
+        private long stop() {
+            return peak - orders.peek().trailDistance();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.trading212.Trading212.service.orders;
+
+import com.trading212.Trading212.model.TriggerType;
+import com.trading212.Trading212.util.FixedPoint;
+
+/**
+ * An active stop-loss, take-profit or trailing-stop sell as held in a {@link TriggerIndex}.
+ *
+ * @param instrumentId {@link com.trading212.Trading212.service.SymbolRegistry} id
+ * @param quantity {@link FixedPoint} quantity to sell
+ * @param triggerPrice {@link FixedPoint} trigger of stop-loss and take-profit orders, else
+ *                     {@link FixedPoint#NULL}
+ * @param trailDistance {@link FixedPoint} distance a trailing stop keeps below the peak, else
+ *                      {@link FixedPoint#NULL}
+ * @param peak {@link FixedPoint} highest price a trailing stop has seen, as of when this copy was
+ *             made, else {@link FixedPoint#NULL}
+ */
+public record TriggerOrder(long id, long userId, int instrumentId, TriggerType type, long quantity,
+                           long triggerPrice, long trailDistance, long peak) {
+
+    /**
+     * Price at or beyond which the order fires: its trigger, or for a trailing stop the peak less
+     * the distance
+     */
+    public long stopPrice() {
+        return type == TriggerType.TRAILING_STOP ? peak - trailDistance : triggerPrice;
+    }
+
+    TriggerOrder withPeak(long peak) {
+        return peak == this.peak
+                ? this
+                : new TriggerOrder(id, userId, instrumentId, type, quantity, triggerPrice, trailDistance, peak);
+    }
+}
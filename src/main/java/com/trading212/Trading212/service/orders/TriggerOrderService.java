@@ -0,0 +1,323 @@
+package com.trading212.Trading212.service.orders;
+
+import com.trading212.Trading212.dto.TradeRequest;
+import com.trading212.Trading212.dto.TradeResponse;
+import com.trading212.Trading212.dto.TriggerOrderRequest;
+import com.trading212.Trading212.model.TransactionType;
+import com.trading212.Trading212.model.TriggerOrderEntity;
+import com.trading212.Trading212.model.TriggerType;
+import com.trading212.Trading212.repository.CryptoRepository;
+import com.trading212.Trading212.repository.TriggerOrderRepository;
+import com.trading212.Trading212.service.PriceBook;
+import com.trading212.Trading212.service.SymbolRegistry;
+import com.trading212.Trading212.service.TradingService;
+import com.trading212.Trading212.service.execution.LaneRejectedException;
+import com.trading212.Trading212.service.venue.StalePriceException;
+import com.trading212.Trading212.util.FixedPoint;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stop-loss, take-profit and trailing-stop sells attached to a holding. Orders are persisted in
+ * {@code trigger_orders} and the active ones are held in a {@link TriggerIndex} per instrument,
+ * indexed by {@link SymbolRegistry} id, so a tick only touches the orders it fires.
+ * <p>
+ * Fired orders are not executed on the tick's thread but queued to {@code trading.triggers.executor-threads}
+ * executor threads, which sell at the market price through {@link TradingService} and mark the order
+ * filled in the same transaction, so the database never sees more concurrent sells than there are
+ * executor threads. The tick handler is a consumer of the tick ring, which holds back every
+ * producer while any consumer is a ring behind, so it never waits for room: when a crash in price
+ * fires more than the {@code trading.triggers.queue-capacity} orders the queue holds, the rest go
+ * back into the index and fire again on the next tick past their trigger.
+ * <p>
+ * An order the holding no longer covers when it fires is rejected. Orders a lane could not take,
+ * or that fired as the price went stale, are put back into the index and fire again on the next tick past their trigger. The peaks of
+ * trailing stops are written back every {@code trading.triggers.peak-flush-interval-ms}.
+ */
+@Service
+// The symbol registry has to be loaded before the active orders can be indexed
+@DependsOn("cryptoService")
+public class TriggerOrderService {
+    private static final Logger logger = LoggerFactory.getLogger(TriggerOrderService.class);
+
+    private final TriggerOrderRepository triggerOrderRepository;
+    private final CryptoRepository cryptoRepository;
+    private final TradingService tradingService;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceBook priceBook;
+    private final OrderExecutor<TriggerOrder> executor;
+    private final AtomicReferenceArray<TriggerIndex> indexes;
+    // Active orders by id, for cancelling and to skip orders cancelled after they fired
+    private final Map<Long, TriggerOrder> activeOrders = new ConcurrentHashMap<>();
+    // Only used by the tick handler's thread
+    private final List<TriggerOrder> firedByTick = new ArrayList<>();
+    private final LongAdder filled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+
+    @Autowired
+    public TriggerOrderService(TriggerOrderRepository triggerOrderRepository,
+                               CryptoRepository cryptoRepository,
+                               TradingService tradingService,
+                               SymbolRegistry symbolRegistry,
+                               PriceBook priceBook,
+                               @Value("${trading.triggers.executor-threads:4}") int executorThreads,
+                               @Value("${trading.triggers.queue-capacity:4096}") int queueCapacity) {
+        this.triggerOrderRepository = triggerOrderRepository;
+        this.cryptoRepository = cryptoRepository;
+        this.tradingService = tradingService;
+        this.symbolRegistry = symbolRegistry;
+        this.priceBook = priceBook;
+        this.executor = new OrderExecutor<>("trigger-executor", executorThreads, queueCapacity, this::sell);
+        this.indexes = new AtomicReferenceArray<>(symbolRegistry.getCapacity());
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        int loaded = 0;
+        for (TriggerOrderEntity order : triggerOrderRepository.findActive()) {
+            Optional<SymbolRegistry.Instrument> instrument = symbolRegistry.getByDbId(order.getCryptoId());
+            if (instrument.isEmpty()) {
+                logger.warn("Trigger order {} is for unknown cryptocurrency {}, leaving it out", order.getId(), order.getCryptoId());
+                continue;
+            }
+            index(toTriggerOrder(order, instrument.get()));
+            loaded++;
+        }
+        executor.start();
+        logger.info("Loaded {} active trigger orders, executing fired orders on {} threads", loaded,
+                executor.getThreadCount());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        executor.stop();
+        flushPeaks();
+    }
+
+    /**
+     * Persists a new active order and indexes it. A trailing stop starts trailing from the
+     * current price.
+     */
+    public TriggerOrderEntity place(TriggerOrderRequest request) {
+        SymbolRegistry.Instrument instrument = symbolRegistry.getBySymbol(request.getSymbol())
+                .orElseThrow(() -> new IllegalArgumentException("Cryptocurrency not found"));
+        TriggerType type = request.getType();
+        long quantity = FixedPoint.of(request.getQuantity());
+        long triggerPrice = FixedPoint.NULL;
+        long trailDistance = FixedPoint.NULL;
+        long peak = FixedPoint.NULL;
+        if (type == TriggerType.TRAILING_STOP) {
+            if (request.getTrailDistance() == null) {
+                throw new IllegalArgumentException("Trail distance is required for a trailing stop");
+            }
+            trailDistance = FixedPoint.of(request.getTrailDistance());
+            peak = currentPrice(instrument);
+        } else {
+            if (request.getTriggerPrice() == null) {
+                throw new IllegalArgumentException("Trigger price is required for " + type);
+            }
+            triggerPrice = FixedPoint.of(request.getTriggerPrice());
+        }
+        if (FixedPoint.of(cryptoRepository.getUserHolding(request.getUserId(), instrument.getDbId())) < quantity) {
+            throw new IllegalStateException("Insufficient quantity to sell");
+        }
+        Long id = triggerOrderRepository.insert(request.getUserId(), instrument.getDbId(), type,
+                FixedPoint.toBigDecimal(quantity), FixedPoint.toBigDecimal(triggerPrice),
+                FixedPoint.toBigDecimal(trailDistance), FixedPoint.toBigDecimal(peak));
+        index(new TriggerOrder(id, request.getUserId(), instrument.getId(), type, quantity, triggerPrice, trailDistance, peak));
+        logger.info("Placed {} order {}: sell {} {} at {}", type, id, FixedPoint.toString(quantity), instrument.getSymbol(),
+                type == TriggerType.TRAILING_STOP
+                        ? FixedPoint.toString(trailDistance) + " below the peak"
+                        : FixedPoint.toString(triggerPrice));
+        return triggerOrderRepository.findById(id)
+                .orElseThrow(() -> new IllegalStateException("Trigger order " + id + " was not stored"));
+    }
+
+    /**
+     * @return {@code false} if the user has no such active order
+     */
+    public boolean cancel(Long userId, Long orderId) {
+        if (!triggerOrderRepository.cancel(orderId, userId)) {
+            return false;
+        }
+        TriggerOrder order = activeOrders.remove(orderId);
+        if (order != null) {
+            indexOf(order.instrumentId()).remove(order);
+        }
+        return true;
+    }
+
+    public List<TriggerOrderEntity> getOrders(Long userId, int page, int size) {
+        return triggerOrderRepository.findByUserId(userId, size, (page - 1) * size);
+    }
+
+    /**
+     * Queues every active order of the instrument that the price fires, putting back the ones that
+     * do not fit. Never waits. Called for each tick from a single thread.
+     *
+     * @param id {@link SymbolRegistry} id
+     * @param price {@link FixedPoint} price
+     */
+    public void onTick(int id, long price) {
+        TriggerIndex index = indexes.get(id);
+        if (index == null || !index.takeTriggered(price, firedByTick)) {
+            return;
+        }
+        try {
+            for (TriggerOrder order : firedByTick) {
+                if (!activeOrders.containsKey(order.id())) {
+                    continue;
+                }
+                if (executor.submit(order)) {
+                    logger.info("{} order {} fired at {}", order.type(), order.id(), FixedPoint.toString(price));
+                } else {
+                    queueFull.increment();
+                    index.add(order);
+                }
+            }
+        } finally {
+            firedByTick.clear();
+        }
+    }
+
+    private void sell(TriggerOrder order) {
+        if (!activeOrders.containsKey(order.id())) {
+            // Cancelled since the tick took it
+            return;
+        }
+        SymbolRegistry.Instrument instrument = symbolRegistry.get(order.instrumentId());
+        TradeRequest request = new TradeRequest();
+        request.setUserId(order.userId());
+        request.setSymbol(instrument.getSymbol());
+        request.setQuantity(FixedPoint.toBigDecimal(order.quantity()));
+        try {
+            TradeResponse response = tradingService.executeAtPrice(request, TransactionType.SELL, FixedPoint.NULL, trade -> {
+                if (!triggerOrderRepository.markFilled(order.id(), trade.getTransactionId())) {
+                    throw new IllegalStateException("Trigger order is no longer active");
+                }
+            });
+            activeOrders.remove(order.id());
+            filled.increment();
+            logger.info("Filled {} order {} at {} as transaction {}", order.type(), order.id(), response.getPrice(),
+                    response.getTransactionId());
+        } catch (LaneRejectedException | StalePriceException e) {
+            retried.increment();
+            logger.warn("{} order {} could not be executed now, firing again on the next tick: {}", order.type(), order.id(),
+                    e.getMessage());
+            indexOf(order.instrumentId()).add(order);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Holding sold in the meantime, or cancelled while executing
+            if (triggerOrderRepository.markRejected(order.id(), e.getMessage())) {
+                rejected.increment();
+                logger.info("Rejected {} order {}: {}", order.type(), order.id(), e.getMessage());
+            }
+            activeOrders.remove(order.id());
+        } catch (RuntimeException e) {
+            retried.increment();
+            logger.error("Failed to execute {} order {}, firing again on the next tick: {}", order.type(), order.id(),
+                    e.getMessage(), e);
+            indexOf(order.instrumentId()).add(order);
+        }
+    }
+
+    /**
+     * Writes back the peaks of trailing stops that rose since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${trading.triggers.peak-flush-interval-ms:5000}")
+    public void flushPeaks() {
+        Map<Long, Long> peaks = new HashMap<>();
+        for (SymbolRegistry.Instrument instrument : symbolRegistry.getAll()) {
+            TriggerIndex index = indexes.get(instrument.getId());
+            if (index != null) {
+                index.drainRaisedPeaks(peaks);
+            }
+        }
+        if (peaks.isEmpty()) {
+            return;
+        }
+        Map<Long, BigDecimal> peaksById = new HashMap<>(peaks.size());
+        peaks.forEach((id, peak) -> peaksById.put(id, FixedPoint.toBigDecimal(peak)));
+        try {
+            triggerOrderRepository.updatePeaks(peaksById);
+            logger.debug("Flushed the peaks of {} trailing stops", peaksById.size());
+        } catch (Exception e) {
+            // Written with the next rise of the same peaks
+            logger.error("Failed to flush the peaks of {} trailing stops: {}", peaksById.size(), e.getMessage());
+        }
+    }
+
+    private long currentPrice(SymbolRegistry.Instrument instrument) {
+        PriceBook.Entry entry = priceBook.getById(instrument.getId());
+        if (entry == null) {
+            throw new IllegalStateException("No price available for " + instrument.getSymbol());
+        }
+        return entry.getFixedPrice();
+    }
+
+    private void index(TriggerOrder order) {
+        if (activeOrders.putIfAbsent(order.id(), order) == null) {
+            indexOf(order.instrumentId()).add(order);
+        }
+    }
+
+    private TriggerIndex indexOf(int id) {
+        TriggerIndex index = indexes.get(id);
+        if (index == null) {
+            indexes.compareAndSet(id, null, new TriggerIndex());
+            index = indexes.get(id);
+        }
+        return index;
+    }
+
+    private static TriggerOrder toTriggerOrder(TriggerOrderEntity order, SymbolRegistry.Instrument instrument) {
+        return new TriggerOrder(order.getId(), order.getUserId(), instrument.getId(), order.getType(),
+                FixedPoint.of(order.getQuantity()), FixedPoint.of(order.getTriggerPrice()),
+                FixedPoint.of(order.getTrailDistance()), FixedPoint.of(order.getPeakPrice()));
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("active", activeOrders.size());
+        Map<String, Object> perSymbol = new LinkedHashMap<>();
+        for (SymbolRegistry.Instrument instrument : symbolRegistry.getAll()) {
+            TriggerIndex index = indexes.get(instrument.getId());
+            if (index != null) {
+                Map<String, Object> indexStatus = new LinkedHashMap<>();
+                indexStatus.put("stopLosses", index.getStopLossCount());
+                indexStatus.put("takeProfits", index.getTakeProfitCount());
+                indexStatus.put("trailingStops", index.getTrailingStopCount());
+                indexStatus.put("trailingPeaks", index.getTrailingGroupCount());
+                perSymbol.put(instrument.getSymbol(), indexStatus);
+            }
+        }
+        status.put("indexes", perSymbol);
+        status.put("executorThreads", executor.getThreadCount());
+        status.put("queued", executor.getQueued());
+        status.put("queueCapacity", executor.getCapacity());
+        status.put("queueFull", queueFull.sum());
+        status.put("filled", filled.sum());
+        status.put("rejected", rejected.sum());
+        status.put("retried", retried.sum());
+        return status;
+    }
+}
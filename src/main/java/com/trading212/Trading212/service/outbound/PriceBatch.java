@@ -0,0 +1,56 @@
+package com.trading212.Trading212.service.outbound;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading212.Trading212.model.CryptoPriceUpdate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+/**
+ * Price updates sent as one frame body to any number of sessions. The body is serialized to JSON
+ * the first time it is needed and the bytes are shared by every session's frame, so a broadcast
+ * costs one serialization however many sessions receive it; only the STOMP headers, which differ
+ * per session and subscription, are encoded for each frame.
+ */
+public final class PriceBatch {
+    private final List<CryptoPriceUpdate> updates;
+    // Racing first callers may each serialize; they produce the same bytes
+    private volatile byte[] json;
+
+    public PriceBatch(List<CryptoPriceUpdate> updates) {
+        this.updates = updates;
+    }
+
+    public List<CryptoPriceUpdate> getUpdates() {
+        return updates;
+    }
+
+    /**
+     * @return the serialized updates; the array is shared and must not be modified
+     */
+    public byte[] getJson(ObjectMapper objectMapper) throws JsonProcessingException {
+        byte[] encoded = json;
+        if (encoded == null) {
+            encoded = objectMapper.writeValueAsBytes(updates);
+            json = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Builds the message for one subscription of one session around an already serialized body.
+     */
+    public static Message<byte[]> toMessage(String sessionId, String subscriptionId, String destination, byte[] json) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json, headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,460 @@
+package com.trading212.Trading212.service.outbound;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading212.Trading212.model.CryptoPriceUpdate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound side of the queued broker mode, {@code websocket.broker.mode=queued}.
+ * <p>
+ * Every session gets a queue of at most {@code websocket.broker.max-queued-frames} frames, and a
+ * fixed pool of {@code websocket.broker.writer-threads} writers takes turns on the sessions that
+ * have frames waiting, writing a few frames of one session before moving on to the next. A session
+ * costs its queue and nothing more, and a slow browser delays its own frames instead of holding
+ * one of the outbound executor's threads.
+ * <p>
+ * A price batch for a subscription whose previous batch is still waiting is merged into it,
+ * keeping the latest update per symbol, so a slow session gets fewer and fresher frames rather
+ * than a backlog. A batch sent unmerged to many sessions is serialized once, see {@link PriceBatch}.
+ * Other messages, taken from the client outbound channel, queue as they are. A full
+ * queue is handled by the {@link SlowConsumerPolicy}, and a session whose write takes longer than
+ * {@code websocket.broker.max-send-ms} is disconnected, which fails the write and frees the writer.
+ * <p>
+ * In {@code simple} mode nothing is queued and messages go through the outbound executor.
+ */
+@Service
+public class SessionOutboundBroker {
+    private static final Logger logger = LoggerFactory.getLogger(SessionOutboundBroker.class);
+
+    // Frames written for one session before the writer moves on to the next
+    private static final int FRAMES_PER_TURN = 16;
+    private static final long WATCHDOG_INTERVAL_MS = 250;
+
+    private final ObjectMapper objectMapper;
+    private final boolean queued;
+    private final int writerThreads;
+    private final int maxQueuedFrames;
+    private final SlowConsumerPolicy policy;
+    private final long maxSendMs;
+    private final ConcurrentMap<String, SessionQueue> sessions = new ConcurrentHashMap<>();
+    // Sessions with frames waiting, each at most once
+    private final BlockingQueue<SessionQueue> ready = new LinkedBlockingQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+    // The STOMP sub-protocol handler, which encodes frames and writes them to the session
+    private volatile MessageHandler stompHandler;
+    private final LongAdder framesQueued = new LongAdder();
+    private final LongAdder framesMerged = new LongAdder();
+    private final LongAdder framesWritten = new LongAdder();
+    // Price frames written with a body serialized for another session, or for this one alone
+    private final LongAdder sharedBodies = new LongAdder();
+    private final LongAdder mergedBodies = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+    private final LongAdder sessionsDisconnected = new LongAdder();
+
+    @Autowired
+    public SessionOutboundBroker(ObjectMapper objectMapper,
+                                 @Value("${websocket.broker.mode:simple}") String mode,
+                                 @Value("${websocket.broker.writer-threads:4}") int writerThreads,
+                                 @Value("${websocket.broker.max-queued-frames:256}") int maxQueuedFrames,
+                                 @Value("${websocket.broker.slow-consumer-policy:disconnect}") String policy,
+                                 @Value("${websocket.broker.max-send-ms:5000}") long maxSendMs) {
+        if (!"simple".equalsIgnoreCase(mode) && !"queued".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("Unknown websocket.broker.mode '" + mode
+                    + "', expected simple or queued");
+        }
+        this.objectMapper = objectMapper;
+        this.queued = "queued".equalsIgnoreCase(mode);
+        this.writerThreads = Math.max(1, writerThreads);
+        this.maxQueuedFrames = Math.max(1, maxQueuedFrames);
+        this.policy = SlowConsumerPolicy.fromCode(policy)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown websocket.broker.slow-consumer-policy '"
+                        + policy + "', expected drop-oldest or disconnect"));
+        this.maxSendMs = maxSendMs;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!queued) {
+            return;
+        }
+        for (int i = 0; i < writerThreads; i++) {
+            Thread writer = new Thread(this::write, "ws-writer-" + i);
+            writer.setDaemon(true);
+            threads.add(writer);
+        }
+        Thread watchdog = new Thread(this::watch, "ws-outbound-watchdog");
+        watchdog.setDaemon(true);
+        threads.add(watchdog);
+        threads.forEach(Thread::start);
+        logger.info("Queued broker mode with {} writer threads, {} frames per session, slow consumer policy {}",
+                writerThreads, maxQueuedFrames, policy.getCode());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    public boolean isQueued() {
+        return queued;
+    }
+
+    /**
+     * Wraps the STOMP handler so the broker learns of sessions opening and closing, and keeps the
+     * handler to write frames through. Registered as a decorator factory by {@code WebSocketConfig}.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        if (!queued) {
+            return handler;
+        }
+        if (!(handler instanceof MessageHandler messageHandler)) {
+            throw new IllegalStateException("Expected the STOMP sub-protocol handler, got " + handler.getClass().getName());
+        }
+        this.stompHandler = messageHandler;
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), new SessionQueue(session));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                SessionQueue queue = sessions.remove(session.getId());
+                if (queue != null) {
+                    synchronized (queue) {
+                        queue.close();
+                    }
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Queues a message from the client outbound channel for its session.
+     *
+     * @return whether the message was taken; if not, it goes through the outbound executor as usual
+     */
+    public boolean offer(Message<?> message) {
+        if (!queued || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return false;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionQueue queue = sessionId != null ? sessions.get(sessionId) : null;
+        if (queue == null) {
+            return false;
+        }
+        boolean schedule;
+        synchronized (queue) {
+            schedule = queue.add(message);
+        }
+        if (schedule) {
+            ready.offer(queue);
+        }
+        return true;
+    }
+
+    /**
+     * Queues a batch of price updates for one subscription of a session.
+     *
+     * @param mergeable whether later batches may be merged into this one while it waits; false for
+     *                  snapshots, which must reach the client whole
+     * @return whether the session is known to the broker
+     */
+    public boolean offerPrices(String sessionId, String subscriptionId, String destination,
+                               PriceBatch batch, boolean mergeable) {
+        SessionQueue queue = sessions.get(sessionId);
+        if (queue == null) {
+            return false;
+        }
+        boolean schedule;
+        synchronized (queue) {
+            PriceFrame waiting = mergeable ? queue.waitingPrices.get(subscriptionId) : null;
+            if (waiting != null) {
+                waiting.batches.add(batch);
+                framesMerged.increment();
+                return true;
+            }
+            PriceFrame frame = new PriceFrame(subscriptionId, destination, batch);
+            schedule = queue.add(frame);
+            if (mergeable && !queue.closed) {
+                queue.waitingPrices.put(subscriptionId, frame);
+            }
+        }
+        if (schedule) {
+            ready.offer(queue);
+        }
+        return true;
+    }
+
+    private void write() {
+        while (!Thread.currentThread().isInterrupted()) {
+            SessionQueue queue;
+            try {
+                queue = ready.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            List<Object> frames;
+            synchronized (queue) {
+                frames = queue.take();
+            }
+            for (Object frame : frames) {
+                if (queue.closed) {
+                    break;
+                }
+                write(queue, frame);
+            }
+            boolean more;
+            synchronized (queue) {
+                more = queue.finishTurn();
+            }
+            if (more) {
+                ready.offer(queue);
+            }
+        }
+    }
+
+    private void write(SessionQueue queue, Object frame) {
+        queue.writeStartedAt = System.nanoTime();
+        queue.writing = true;
+        try {
+            Message<?> message = frame instanceof PriceFrame prices
+                    ? toMessage(queue.session.getId(), prices)
+                    : (Message<?>) frame;
+            stompHandler.handleMessage(message);
+            framesWritten.increment();
+        } catch (Exception e) {
+            logger.debug("Failed to write to session {}: {}", queue.session.getId(), e.getMessage());
+        } finally {
+            queue.writing = false;
+        }
+    }
+
+    private Message<byte[]> toMessage(String sessionId, PriceFrame frame) throws JsonProcessingException {
+        byte[] json;
+        if (frame.batches.size() == 1) {
+            json = frame.batches.get(0).getJson(objectMapper);
+            sharedBodies.increment();
+        } else {
+            json = objectMapper.writeValueAsBytes(frame.merged());
+            mergedBodies.increment();
+        }
+        return PriceBatch.toMessage(sessionId, frame.subscriptionId, frame.destination, json);
+    }
+
+    /**
+     * Closes sessions that overflowed under {@link SlowConsumerPolicy#DISCONNECT} and sessions stuck
+     * in a write. Closing may block until the container gives up on the pending write, so it is done
+     * here rather than on a writer or on the thread offering frames.
+     */
+    private void watch() {
+        long maxSendNanos = TimeUnit.MILLISECONDS.toNanos(maxSendMs);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(WATCHDOG_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long now = System.nanoTime();
+            for (SessionQueue queue : sessions.values()) {
+                if (queue.closeReason == null && queue.writing && now - queue.writeStartedAt > maxSendNanos) {
+                    queue.closeReason = "a write took longer than " + maxSendMs + " ms";
+                }
+                if (queue.closeReason != null && !queue.closed) {
+                    disconnect(queue);
+                }
+            }
+        }
+    }
+
+    private void disconnect(SessionQueue queue) {
+        synchronized (queue) {
+            queue.close();
+        }
+        sessionsDisconnected.increment();
+        logger.warn("Disconnecting slow WebSocket session {}: {}", queue.session.getId(), queue.closeReason);
+        try {
+            queue.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            logger.debug("Error closing session {}: {}", queue.session.getId(), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("mode", queued ? "queued" : "simple");
+        if (!queued) {
+            return status;
+        }
+        int queuedFrames = 0;
+        int deepest = 0;
+        for (SessionQueue queue : sessions.values()) {
+            int depth;
+            synchronized (queue) {
+                depth = queue.frames.size();
+            }
+            queuedFrames += depth;
+            deepest = Math.max(deepest, depth);
+        }
+        status.put("writerThreads", writerThreads);
+        status.put("maxQueuedFrames", maxQueuedFrames);
+        status.put("slowConsumerPolicy", policy.getCode());
+        status.put("maxSendMs", maxSendMs);
+        status.put("sessions", sessions.size());
+        status.put("readySessions", ready.size());
+        status.put("queuedFrames", queuedFrames);
+        status.put("deepestQueue", deepest);
+        status.put("framesQueued", framesQueued.sum());
+        status.put("framesMerged", framesMerged.sum());
+        status.put("framesWritten", framesWritten.sum());
+        status.put("sharedBodies", sharedBodies.sum());
+        status.put("mergedBodies", mergedBodies.sum());
+        status.put("framesDropped", framesDropped.sum());
+        status.put("sessionsDisconnected", sessionsDisconnected.sum());
+        return status;
+    }
+
+    /**
+     * Frames waiting for one session. Fields without a comment are guarded by the queue's monitor.
+     */
+    private final class SessionQueue {
+        private final WebSocketSession session;
+        // Messages from the outbound channel and price frames, in the order they are to be written
+        private final ArrayDeque<Object> frames = new ArrayDeque<>();
+        // Price frames still waiting, by subscription id, for later batches to merge into
+        private final Map<String, PriceFrame> waitingPrices = new HashMap<>();
+        // Whether the session is in the ready queue or held by a writer
+        private boolean scheduled;
+        // Read without the monitor by writers and the watchdog
+        private volatile boolean closed;
+        private volatile String closeReason;
+        private volatile boolean writing;
+        private volatile long writeStartedAt;
+
+        private SessionQueue(WebSocketSession session) {
+            this.session = session;
+        }
+
+        /**
+         * @return whether the session has to be put in the ready queue
+         */
+        private boolean add(Object frame) {
+            if (closed || closeReason != null) {
+                return false;
+            }
+            if (frames.size() >= maxQueuedFrames) {
+                if (policy == SlowConsumerPolicy.DISCONNECT) {
+                    closeReason = "more than " + maxQueuedFrames + " frames queued";
+                    return false;
+                }
+                Object dropped = frames.pollFirst();
+                if (dropped instanceof PriceFrame prices) {
+                    waitingPrices.remove(prices.subscriptionId, prices);
+                }
+                framesDropped.increment();
+            }
+            frames.addLast(frame);
+            framesQueued.increment();
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        /**
+         * Removes the frames for one turn of a writer. Price frames taken no longer accept merges.
+         */
+        private List<Object> take() {
+            List<Object> taken = new ArrayList<>(Math.min(frames.size(), FRAMES_PER_TURN));
+            while (taken.size() < FRAMES_PER_TURN && !frames.isEmpty()) {
+                Object frame = frames.pollFirst();
+                if (frame instanceof PriceFrame prices) {
+                    waitingPrices.remove(prices.subscriptionId, prices);
+                }
+                taken.add(frame);
+            }
+            return taken;
+        }
+
+        /**
+         * @return whether the session has frames left and goes back in the ready queue
+         */
+        private boolean finishTurn() {
+            if (closed || frames.isEmpty()) {
+                scheduled = false;
+                return false;
+            }
+            return true;
+        }
+
+        private void close() {
+            closed = true;
+            frames.clear();
+            waitingPrices.clear();
+        }
+    }
+
+    /**
+     * Price batches for one subscription, written as one frame. Guarded by the session queue's monitor
+     * until a writer takes it.
+     */
+    private static final class PriceFrame {
+        private final String subscriptionId;
+        private final String destination;
+        private final List<PriceBatch> batches = new ArrayList<>(1);
+
+        private PriceFrame(String subscriptionId, String destination, PriceBatch batch) {
+            this.subscriptionId = subscriptionId;
+            this.destination = destination;
+            this.batches.add(batch);
+        }
+
+        /**
+         * The latest update per symbol over all merged batches
+         */
+        private List<CryptoPriceUpdate> merged() {
+            Map<String, CryptoPriceUpdate> latest = new LinkedHashMap<>();
+            for (PriceBatch batch : batches) {
+                for (CryptoPriceUpdate update : batch.getUpdates()) {
+                    latest.merge(update.getSymbol(), update,
+                            (held, candidate) -> candidate.getSequence() > held.getSequence() ? candidate : held);
+                }
+            }
+            return new ArrayList<>(latest.values());
+        }
+    }
+}
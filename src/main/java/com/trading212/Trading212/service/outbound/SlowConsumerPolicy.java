@@ -0,0 +1,32 @@
+package com.trading212.Trading212.service.outbound;
+
+import java.util.Optional;
+
+/**
+ * What {@link SessionOutboundBroker} does when a session's queue is full.
+ */
+public enum SlowConsumerPolicy {
+    // Drop the oldest queued frame to make room; the session stays connected
+    DROP_OLDEST("drop-oldest"),
+    // Close the session, which the client sees as a disconnect and may reconnect from
+    DISCONNECT("disconnect");
+
+    private final String code;
+
+    SlowConsumerPolicy(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public static Optional<SlowConsumerPolicy> fromCode(String code) {
+        for (SlowConsumerPolicy policy : values()) {
+            if (policy.code.equalsIgnoreCase(code)) {
+                return Optional.of(policy);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,31 @@
+package com.trading212.Trading212.service.pipeline;
+
+import com.trading212.Trading212.model.CryptoPriceUpdate;
+import com.trading212.Trading212.service.PriceBroadcaster;
+import com.trading212.Trading212.util.FixedPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queues ticks for the conflated STOMP price broadcast.
+ */
+@Component
+public class BroadcastTickHandler implements TickHandler {
+    private final PriceBroadcaster priceBroadcaster;
+
+    @Autowired
+    public BroadcastTickHandler(PriceBroadcaster priceBroadcaster) {
+        this.priceBroadcaster = priceBroadcaster;
+    }
+
+    @Override
+    public String getName() {
+        return "broadcast";
+    }
+
+    @Override
+    public void onEvent(TickEvent event, long sequence, boolean endOfBatch) {
+        priceBroadcaster.publish(new CryptoPriceUpdate(
+                event.getSymbol(), FixedPoint.toBigDecimal(event.getPrice()), event.getReceivedAt()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.trading212.Trading212.service.pipeline;
+
+import com.trading212.Trading212.service.CandleAggregator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Folds ticks into OHLCV candles.
+ */
+@Component
+public class CandleTickHandler implements TickHandler {
+    private final CandleAggregator candleAggregator;
+
+    @Autowired
+    public CandleTickHandler(CandleAggregator candleAggregator) {
+        this.candleAggregator = candleAggregator;
+    }
+
+    @Override
+    public String getName() {
+        return "candles";
+    }
+
+    @Override
+    public void onEvent(TickEvent event, long sequence, boolean endOfBatch) {
+        candleAggregator.onTick(event.getInstrumentId(), event.getPrice(), event.getDayVolume(), event.getReceivedAt());
+    }
+}
@@ -0,0 +1,30 @@
+package com.trading212.Trading212.service.pipeline;
+
+import com.trading212.Trading212.service.orders.LimitOrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands the resting limit orders each tick crosses to {@link LimitOrderService}'s executor threads.
+ * Handing off never waits for the database, since a handler that falls a ring behind stalls every
+ * producer of the pipeline.
+ */
+@Component
+public class LimitOrderTickHandler implements TickHandler {
+    private final LimitOrderService limitOrderService;
+
+    @Autowired
+    public LimitOrderTickHandler(LimitOrderService limitOrderService) {
+        this.limitOrderService = limitOrderService;
+    }
+
+    @Override
+    public String getName() {
+        return "limitOrders";
+    }
+
+    @Override
+    public void onEvent(TickEvent event, long sequence, boolean endOfBatch) {
+        limitOrderService.onTick(event.getInstrumentId(), event.getPrice());
+    }
+}
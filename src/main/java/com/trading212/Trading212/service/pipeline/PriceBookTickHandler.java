@@ -0,0 +1,32 @@
+package com.trading212.Trading212.service.pipeline;
+
+import com.trading212.Trading212.service.FeedLatencyMonitor;
+import com.trading212.Trading212.service.PriceBook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link PriceBook} current; the book's write-behind flusher persists from there.
+ */
+@Component
+public class PriceBookTickHandler implements TickHandler {
+    private final PriceBook priceBook;
+    private final FeedLatencyMonitor latencyMonitor;
+
+    @Autowired
+    public PriceBookTickHandler(PriceBook priceBook, FeedLatencyMonitor latencyMonitor) {
+        this.priceBook = priceBook;
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    @Override
+    public String getName() {
+        return "priceBook";
+    }
+
+    @Override
+    public void onEvent(TickEvent event, long sequence, boolean endOfBatch) {
+        priceBook.update(event.getInstrumentId(), event.getPrice(), event.getReceivedAt());
+        latencyMonitor.recordSinceNanos(FeedLatencyMonitor.Stage.PRICE_BOOK, event.getReceivedNanos());
+    }
+}
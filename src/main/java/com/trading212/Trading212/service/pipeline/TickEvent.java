@@ -0,0 +1,78 @@
+package com.trading212.Trading212.service.pipeline;
+
+import com.trading212.Trading212.util.FixedPoint;
+
+/**
+ * Preallocated slot of the {@link TickRingBuffer}. The producer overwrites the fields of a slot
+ * for every tick, so handlers must copy out anything they keep beyond {@link TickHandler#onEvent}.
+ */
+public final class TickEvent {
+    private int instrumentId;
+    private String pair;
+    private String symbol;
+    private long price;
+    private long dayVolume;
+    private long receivedAt;
+    private long receivedNanos;
+
+    void set(int instrumentId, String pair, String symbol, long price, long dayVolume,
+             long receivedAt, long receivedNanos) {
+        this.instrumentId = instrumentId;
+        this.pair = pair;
+        this.symbol = symbol;
+        this.price = price;
+        this.dayVolume = dayVolume;
+        this.receivedAt = receivedAt;
+        this.receivedNanos = receivedNanos;
+    }
+
+    /**
+     * {@link com.trading212.Trading212.service.SymbolRegistry} id of the pair
+     */
+    public int getInstrumentId() {
+        return instrumentId;
+    }
+
+    /**
+     * Kraken pair name, e.g. {@code XBT/USD}
+     */
+    public String getPair() {
+        return pair;
+    }
+
+    /**
+     * Trading symbol of the pair
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * {@link FixedPoint} price
+     */
+    public long getPrice() {
+        return price;
+    }
+
+    /**
+     * {@link FixedPoint} cumulative volume since the start of the day, or {@link FixedPoint#NULL}
+     * if unknown
+     */
+    public long getDayVolume() {
+        return dayVolume;
+    }
+
+    /**
+     * Receive time in epoch milliseconds
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    /**
+     * {@link System#nanoTime()} at receipt, for latency measurement
+     */
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+}
@@ -0,0 +1,20 @@
+package com.trading212.Trading212.service.pipeline;
+
+/**
+ * Consumer of the tick pipeline. Every Spring bean implementing this interface gets its own
+ * thread and its own position in the {@link TickRingBuffer}, so a slow handler only falls behind
+ * itself and never blocks the others or the feed until the ring is full.
+ */
+public interface TickHandler {
+
+    /**
+     * Name used for the consumer thread and in the pipeline status
+     */
+    String getName();
+
+    /**
+     * @param endOfBatch {@code true} for the last event currently available, so handlers can
+     *                   batch work such as I/O until then
+     */
+    void onEvent(TickEvent event, long sequence, boolean endOfBatch) throws Exception;
+}
@@ -0,0 +1,181 @@
+package com.trading212.Trading212.service.pipeline;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands decoded ticks from the feed to every {@link TickHandler} through a {@link TickRingBuffer}.
+ * <p>
+ * The feed thread only copies a tick into a preallocated slot; each handler runs on its own
+ * thread, processes whatever has been published since its last run as one batch, and never waits
+ * for the other handlers. New consumers are added by declaring another {@code TickHandler} bean.
+ */
+@Service
+public class TickPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(TickPipeline.class);
+
+    // Idle consumers spin briefly, then yield, then park
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 100_000;
+
+    private final TickRingBuffer ringBuffer;
+    private final List<Consumer> consumers = new ArrayList<>();
+
+    @Autowired
+    public TickPipeline(@Value("${pipeline.ring-size:65536}") int ringSize, List<TickHandler> handlers) {
+        this.ringBuffer = new TickRingBuffer(ringSize);
+        for (TickHandler handler : handlers) {
+            consumers.add(new Consumer(handler));
+        }
+        ringBuffer.setGatingSequences(consumers.stream().map(consumer -> consumer.sequence).toArray(AtomicLong[]::new));
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Consumer consumer : consumers) {
+            consumer.thread.start();
+        }
+        logger.info("Tick pipeline started with a ring of {} slots and consumers {}", ringBuffer.getSize(),
+                consumers.stream().map(consumer -> consumer.handler.getName()).toList());
+    }
+
+    /**
+     * Publishes one tick to all handlers. Only waits if the slowest handler is a full ring behind.
+     *
+     * @param instrumentId {@link com.trading212.Trading212.service.SymbolRegistry} id of the pair
+     * @param price {@link com.trading212.Trading212.util.FixedPoint} price
+     * @param dayVolume {@code FixedPoint} day volume, or {@code FixedPoint.NULL} if unknown
+     */
+    public void publish(int instrumentId, String pair, String symbol, long price, long dayVolume,
+                        long receivedAt, long receivedNanos) {
+        publish(ringBuffer.claim(), instrumentId, pair, symbol, price, dayVolume, receivedAt, receivedNanos);
+    }
+
+    /**
+     * Claims a position in the ring without waiting. Ticks reach the handlers in the order their
+     * positions were claimed, so a producer can claim under its own lock to order its ticks, and
+     * publish once the lock is released. Every claimed position must be published.
+     */
+    public long claim() {
+        return ringBuffer.claim();
+    }
+
+    /**
+     * Publishes one tick at a position from {@link #claim}, waiting while the slowest handler is a
+     * full ring behind.
+     */
+    public void publish(long sequence, int instrumentId, String pair, String symbol, long price, long dayVolume,
+                        long receivedAt, long receivedNanos) {
+        ringBuffer.awaitSlot(sequence);
+        try {
+            ringBuffer.get(sequence).set(instrumentId, pair, symbol, price, dayVolume, receivedAt, receivedNanos);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    /**
+     * Position of the producers and of every handler
+     */
+    public Map<String, Object> getStatus() {
+        long cursor = ringBuffer.getCursor();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ringSize", ringBuffer.getSize());
+        status.put("published", cursor + 1);
+        Map<String, Object> handlers = new LinkedHashMap<>();
+        for (Consumer consumer : consumers) {
+            Map<String, Object> handlerStatus = new LinkedHashMap<>();
+            long sequence = consumer.sequence.get();
+            handlerStatus.put("processed", sequence + 1);
+            handlerStatus.put("lag", cursor - sequence);
+            handlerStatus.put("errors", consumer.errors.get());
+            handlers.put(consumer.handler.getName(), handlerStatus);
+        }
+        status.put("handlers", handlers);
+        return status;
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Consumer consumer : consumers) {
+            consumer.running = false;
+            consumer.thread.interrupt();
+        }
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private final class Consumer implements Runnable {
+        private final TickHandler handler;
+        // Last sequence this handler has finished with
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final AtomicLong errors = new AtomicLong();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Consumer(TickHandler handler) {
+            this.handler = handler;
+            this.thread = new Thread(this, "Tick-Handler-" + handler.getName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (running) {
+                if (!ringBuffer.isPublished(next)) {
+                    idle = idle(idle);
+                    continue;
+                }
+                idle = 0;
+                long available = next;
+                while (ringBuffer.isPublished(available + 1) && available + 1 - next < ringBuffer.getSize()) {
+                    available++;
+                }
+                for (long current = next; current <= available; current++) {
+                    try {
+                        handler.onEvent(ringBuffer.get(current), current, current == available);
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        logger.error("Tick handler {} failed on sequence {}: {}", handler.getName(), current,
+                                e.getMessage(), e);
+                    }
+                }
+                sequence.set(available);
+                next = available + 1;
+            }
+        }
+
+        private int idle(int tries) {
+            if (tries < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+                return tries;
+            }
+            return tries + 1;
+        }
+    }
+}
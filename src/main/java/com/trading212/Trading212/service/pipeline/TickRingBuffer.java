@@ -0,0 +1,115 @@
+package com.trading212.Trading212.service.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-size ring of preallocated {@link TickEvent} slots in the style of the LMAX Disruptor.
+ * <p>
+ * Producers claim a sequence, fill the slot in place and publish it; each feed connection is a
+ * producer, so claiming is a single atomic increment and every slot records the sequence last
+ * published into it. Consumers track their own sequence and read published slots in order. A
+ * producer only waits when it would overwrite a slot the slowest consumer has not read yet.
+ */
+public final class TickRingBuffer {
+    private final TickEvent[] slots;
+    private final int mask;
+    // Sequence last published into each slot
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile AtomicLong[] gatingSequences = new AtomicLong[0];
+    // Lowest consumer sequence seen by the last wrap check; a stale value only causes a recheck
+    private volatile long cachedGatingSequence = -1;
+
+    /**
+     * @param size number of slots, a power of two
+     */
+    public TickRingBuffer(int size) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring buffer size must be a power of two: " + size);
+        }
+        slots = new TickEvent[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new TickEvent();
+        }
+        mask = size - 1;
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Sequences of the consumers producers must not overtake
+     */
+    void setGatingSequences(AtomicLong... sequences) {
+        gatingSequences = sequences.clone();
+    }
+
+    /**
+     * Claims the next slot, waiting while the ring is full.
+     */
+    public long next() {
+        long sequence = claim();
+        awaitSlot(sequence);
+        return sequence;
+    }
+
+    /**
+     * Claims the next sequence without waiting. The slot may not be free yet: call
+     * {@link #awaitSlot} before filling it, and publish it in any case, since consumers read
+     * sequences in order.
+     */
+    public long claim() {
+        return claimed.incrementAndGet();
+    }
+
+    /**
+     * Waits until the slot of a claimed sequence has been read by every consumer.
+     */
+    public void awaitSlot(long sequence) {
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long gating;
+            while (wrapPoint > (gating = minimumGatingSequence(sequence))) {
+                LockSupport.parkNanos(1_000);
+            }
+            cachedGatingSequence = gating;
+        }
+    }
+
+    public TickEvent get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Makes a filled slot visible to consumers.
+     */
+    public void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+    }
+
+    boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == sequence;
+    }
+
+    /**
+     * Highest sequence claimed so far
+     */
+    public long getCursor() {
+        return claimed.get();
+    }
+
+    public int getSize() {
+        return slots.length;
+    }
+
+    private long minimumGatingSequence(long defaultValue) {
+        long minimum = defaultValue;
+        for (AtomicLong sequence : gatingSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+}
@@ -0,0 +1,30 @@
+package com.trading212.Trading212.service.pipeline;
+
+import com.trading212.Trading212.service.orders.TriggerOrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands the stop-loss, take-profit and trailing-stop orders each tick reaches to
+ * {@link TriggerOrderService}'s executor threads. Handing off never waits, since a handler that
+ * falls a ring behind stalls every producer of the pipeline.
+ */
+@Component
+public class TriggerTickHandler implements TickHandler {
+    private final TriggerOrderService triggerOrderService;
+
+    @Autowired
+    public TriggerTickHandler(TriggerOrderService triggerOrderService) {
+        this.triggerOrderService = triggerOrderService;
+    }
+
+    @Override
+    public String getName() {
+        return "triggers";
+    }
+
+    @Override
+    public void onEvent(TickEvent event, long sequence, boolean endOfBatch) {
+        triggerOrderService.onTick(event.getInstrumentId(), event.getPrice());
+    }
+}
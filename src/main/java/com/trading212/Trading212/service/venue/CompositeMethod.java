@@ -0,0 +1,35 @@
+package com.trading212.Trading212.service.venue;
+
+import java.util.Optional;
+
+/**
+ * How {@link CompositePriceAggregator} combines the fresh quotes of several venues into one price.
+ */
+public enum CompositeMethod {
+    // Midpoint of the highest bid and the lowest ask over all venues, or the median while no venue
+    // quotes both sides
+    BEST_BID_ASK("best"),
+    // Median of the venues' last trade prices
+    MEDIAN("median"),
+    // Last trade prices weighted by each venue's day volume
+    VOLUME_WEIGHTED("vwap");
+
+    private final String code;
+
+    CompositeMethod(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public static Optional<CompositeMethod> fromCode(String code) {
+        for (CompositeMethod method : values()) {
+            if (method.code.equalsIgnoreCase(code)) {
+                return Optional.of(method);
+            }
+        }
+        return Optional.empty();
+    }
+}
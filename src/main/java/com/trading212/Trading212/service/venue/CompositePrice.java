@@ -0,0 +1,73 @@
+package com.trading212.Trading212.service.venue;
+
+import com.trading212.Trading212.util.FixedPoint;
+
+/**
+ * Immutable composite price of one instrument across the venues that were fresh when it was
+ * computed. All prices and the volume are {@link FixedPoint} values.
+ */
+public final class CompositePrice {
+    private final int instrumentId;
+    private final long price;
+    private final long bid;
+    private final long ask;
+    private final long dayVolume;
+    private final int venueCount;
+    private final long timestamp;
+
+    CompositePrice(int instrumentId, long price, long bid, long ask, long dayVolume, int venueCount, long timestamp) {
+        this.instrumentId = instrumentId;
+        this.price = price;
+        this.bid = bid;
+        this.ask = ask;
+        this.dayVolume = dayVolume;
+        this.venueCount = venueCount;
+        this.timestamp = timestamp;
+    }
+
+    public int getInstrumentId() {
+        return instrumentId;
+    }
+
+    /**
+     * Price under the configured {@link CompositeMethod}
+     */
+    public long getPrice() {
+        return price;
+    }
+
+    /**
+     * Highest bid over the fresh venues, or {@link FixedPoint#NULL} if none reports one
+     */
+    public long getBid() {
+        return bid;
+    }
+
+    /**
+     * Lowest ask over the fresh venues, or {@link FixedPoint#NULL} if none reports one
+     */
+    public long getAsk() {
+        return ask;
+    }
+
+    /**
+     * Volume traded on all venues since the start of the UTC day
+     */
+    public long getDayVolume() {
+        return dayVolume;
+    }
+
+    /**
+     * Number of venues the price was computed from
+     */
+    public int getVenueCount() {
+        return venueCount;
+    }
+
+    /**
+     * When the quote that produced this price was received, in epoch milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
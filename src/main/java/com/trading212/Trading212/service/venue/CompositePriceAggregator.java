@@ -0,0 +1,324 @@
+package com.trading212.Trading212.service.venue;
+
+import com.trading212.Trading212.service.SymbolRegistry;
+import com.trading212.Trading212.service.pipeline.TickPipeline;
+import com.trading212.Trading212.util.FixedPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Combines the quotes of every {@link VenueFeed} into one composite price per instrument and
+ * publishes it to the {@link TickPipeline}, which feeds the price book, candles and broadcasts.
+ * <p>
+ * The latest quote of each venue and the latest composite are held in arrays indexed by
+ * {@link SymbolRegistry} id, so readers such as trade execution get a consistent
+ * {@link CompositePrice} with a single volatile read and never block. Writers of the same
+ * instrument, which only occur when several venues quote it at once, are serialised by a striped
+ * lock, under which they also claim their position in the pipeline, so that composites reach it
+ * in the order they were computed. The lock is released before publishing, which waits while a
+ * pipeline handler is a full ring behind, so a slow handler never holds up the other instruments
+ * of a stripe.
+ * <p>
+ * Quotes older than {@code venues.stale-after-ms} are left out, so a venue whose stream stalls
+ * stops influencing the price as soon as another venue quotes the instrument.
+ */
+@Service
+public class CompositePriceAggregator {
+    private static final Logger logger = LoggerFactory.getLogger(CompositePriceAggregator.class);
+
+    public static final int MAX_VENUES = 8;
+    private static final int LOCK_STRIPES = 64;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final SymbolRegistry symbolRegistry;
+    private final TickPipeline tickPipeline;
+    private final CompositeMethod method;
+    private final long staleAfterMs;
+    // Latest quote per instrument and venue, at id * MAX_VENUES + venue
+    private final AtomicReferenceArray<VenueQuote> quotes;
+    private final AtomicReferenceArray<CompositePrice> composites;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    // Last prices of the fresh venues while computing, one array per stripe, guarded by its lock
+    private final long[][] scratch = new long[LOCK_STRIPES][MAX_VENUES];
+    // Indexed by venue slot
+    private final List<VenueFeed> venues = new CopyOnWriteArrayList<>();
+    private final LongAdder[] quoteCounts = new LongAdder[MAX_VENUES];
+    private final LongAdder[] staleExclusions = new LongAdder[MAX_VENUES];
+
+    @Autowired
+    public CompositePriceAggregator(SymbolRegistry symbolRegistry, TickPipeline tickPipeline,
+                                    @Value("${venues.composite-method:median}") String method,
+                                    @Value("${venues.stale-after-ms:5000}") long staleAfterMs) {
+        this.symbolRegistry = symbolRegistry;
+        this.tickPipeline = tickPipeline;
+        this.method = CompositeMethod.fromCode(method)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown venues.composite-method '" + method
+                        + "', expected one of best, median, vwap"));
+        this.staleAfterMs = staleAfterMs;
+        this.quotes = new AtomicReferenceArray<>(symbolRegistry.getCapacity() * MAX_VENUES);
+        this.composites = new AtomicReferenceArray<>(symbolRegistry.getCapacity());
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        for (int i = 0; i < MAX_VENUES; i++) {
+            quoteCounts[i] = new LongAdder();
+            staleExclusions[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds a venue to the aggregation.
+     *
+     * @return the venue's slot, to pass to {@link #onQuote}
+     * @throws IllegalStateException if {@value #MAX_VENUES} venues are registered already
+     */
+    public synchronized int register(VenueFeed venue) {
+        if (venues.size() == MAX_VENUES) {
+            throw new IllegalStateException("At most " + MAX_VENUES + " venues are supported");
+        }
+        venues.add(venue);
+        logger.info("Registered venue {} in slot {}, composite method {}", venue.getVenue(), venues.size() - 1,
+                method.getCode());
+        return venues.size() - 1;
+    }
+
+    /**
+     * @return the slot of the named venue, or -1 if it is not registered
+     */
+    public int slotOf(String venue) {
+        for (int i = 0; i < venues.size(); i++) {
+            if (venues.get(i).getVenue().equals(venue)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records a venue's quote, recomputes the instrument's composite price and publishes it.
+     *
+     * @param venue slot from {@link #register}
+     * @param id {@link SymbolRegistry} id
+     * @param bid {@link FixedPoint} best bid, or {@link FixedPoint#NULL} if unknown
+     * @param ask {@link FixedPoint} best ask, or {@link FixedPoint#NULL} if unknown
+     * @param last {@link FixedPoint} last trade price
+     * @param dayVolume {@link FixedPoint} volume since the start of the day on this venue, or
+     *                  {@link FixedPoint#NULL} if unknown
+     * @param receivedAt when the quote was received, in epoch milliseconds
+     * @param receivedNanos {@link System#nanoTime()} when the quote was received
+     */
+    public void onQuote(int venue, int id, long bid, long ask, long last, long dayVolume,
+                        long receivedAt, long receivedNanos) {
+        quoteCounts[venue].increment();
+        VenueQuote quote = new VenueQuote(venue, bid, ask, last, dayVolume, receivedAt);
+        SymbolRegistry.Instrument instrument = symbolRegistry.get(id);
+        int stripe = id % LOCK_STRIPES;
+        CompositePrice composite;
+        long sequence;
+        synchronized (locks[stripe]) {
+            VenueQuote previous = quotes.getAndSet(id * MAX_VENUES + venue, quote);
+            composite = compute(id, quote, previous, composites.get(id), scratch[stripe]);
+            composites.set(id, composite);
+            sequence = tickPipeline.claim();
+        }
+        tickPipeline.publish(sequence, id, instrument.getKrakenPairName(), instrument.getSymbol(), composite.getPrice(),
+                composite.getDayVolume(), receivedAt, receivedNanos);
+    }
+
+    /**
+     * @param lasts scratch array of at least {@value #MAX_VENUES} elements
+     */
+    private CompositePrice compute(int id, VenueQuote quote, VenueQuote previousQuote, CompositePrice previous,
+                                   long[] lasts) {
+        long now = quote.getReceivedAt();
+        int venueCount = venues.size();
+        double weightedSum = 0;
+        double totalWeight = 0;
+        long bestBid = FixedPoint.NULL;
+        long bestAsk = FixedPoint.NULL;
+        boolean twoSided = false;
+        int fresh = 0;
+        for (int venue = 0; venue < venueCount; venue++) {
+            VenueQuote candidate = quotes.get(id * MAX_VENUES + venue);
+            if (candidate == null) {
+                continue;
+            }
+            if (isStale(candidate.getReceivedAt(), now)) {
+                staleExclusions[venue].increment();
+                continue;
+            }
+            // A venue may not report one side; NULL would otherwise win the comparison
+            long bid = candidate.getBid();
+            long ask = candidate.getAsk();
+            if (bid != FixedPoint.NULL && (bestBid == FixedPoint.NULL || bid > bestBid)) {
+                bestBid = bid;
+            }
+            if (ask != FixedPoint.NULL && (bestAsk == FixedPoint.NULL || ask < bestAsk)) {
+                bestAsk = ask;
+            }
+            twoSided |= bid != FixedPoint.NULL && ask != FixedPoint.NULL;
+            lasts[fresh++] = candidate.getLast();
+            if (candidate.getDayVolume() != FixedPoint.NULL && candidate.getDayVolume() > 0) {
+                weightedSum += (double) candidate.getLast() * candidate.getDayVolume();
+                totalWeight += candidate.getDayVolume();
+            }
+        }
+
+        long price = switch (method) {
+            // Without a venue quoting both sides there is no meaningful mid
+            case BEST_BID_ASK -> twoSided ? bestBid + (bestAsk - bestBid) / 2 : median(lasts, fresh);
+            case MEDIAN -> median(lasts, fresh);
+            case VOLUME_WEIGHTED -> totalWeight > 0 ? Math.round(weightedSum / totalWeight) : median(lasts, fresh);
+        };
+        return new CompositePrice(id, price, bestBid, bestAsk, dayVolume(quote, previousQuote, previous),
+                fresh, now);
+    }
+
+    /**
+     * Median of the first {@code count} values, which are sorted in place
+     */
+    private static long median(long[] values, int count) {
+        for (int i = 1; i < count; i++) {
+            long value = values[i];
+            int j = i - 1;
+            while (j >= 0 && values[j] > value) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+        int middle = count / 2;
+        if (count % 2 == 1) {
+            return values[middle];
+        }
+        long low = values[middle - 1];
+        return low + (values[middle] - low) / 2;
+    }
+
+    /**
+     * Volume traded on all venues since the start of the UTC day: the composite's running total
+     * plus what this venue traded since its previous quote. Venues report their own cumulative day
+     * volume, which may reset at different times, so the composite keeps its own total instead of
+     * summing them.
+     */
+    private static long dayVolume(VenueQuote quote, VenueQuote previousQuote, CompositePrice previous) {
+        long delta = 0;
+        if (quote.getDayVolume() != FixedPoint.NULL && previousQuote != null
+                && previousQuote.getDayVolume() != FixedPoint.NULL) {
+            delta = quote.getDayVolume() - previousQuote.getDayVolume();
+            // The venue's day rolled over
+            if (delta < 0) {
+                delta = quote.getDayVolume();
+            }
+        }
+        if (previous == null || previous.getTimestamp() / DAY_MILLIS != quote.getReceivedAt() / DAY_MILLIS) {
+            return delta;
+        }
+        return FixedPoint.add(previous.getDayVolume(), delta);
+    }
+
+    /**
+     * @param id {@link SymbolRegistry} id
+     * @return the latest composite price, or {@code null} if no venue has quoted the instrument yet
+     */
+    public CompositePrice get(int id) {
+        return composites.get(id);
+    }
+
+    public Optional<CompositePrice> getBySymbol(String symbol) {
+        int id = symbolRegistry.idOfSymbol(symbol);
+        return id >= 0 ? Optional.ofNullable(composites.get(id)) : Optional.empty();
+    }
+
+    /**
+     * @return the venue's latest quote for the instrument, or {@code null} if there is none
+     */
+    public VenueQuote getQuote(int venue, int id) {
+        return quotes.get(id * MAX_VENUES + venue);
+    }
+
+    /**
+     * Whether a quote or composite received at {@code receivedAt} is older than
+     * {@code venues.stale-after-ms} at {@code now}, both in epoch milliseconds
+     */
+    public boolean isStale(long receivedAt, long now) {
+        return now - receivedAt > staleAfterMs;
+    }
+
+    public CompositeMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * Configuration and per-venue counters
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("method", method.getCode());
+        status.put("staleAfterMs", staleAfterMs);
+        List<Map<String, Object>> venueStatus = new ArrayList<>();
+        for (int i = 0; i < venues.size(); i++) {
+            Map<String, Object> venue = new LinkedHashMap<>();
+            venue.put("venue", venues.get(i).getVenue());
+            venue.put("slot", i);
+            venue.put("quotes", quoteCounts[i].sum());
+            venue.put("staleExclusions", staleExclusions[i].sum());
+            venue.put("feed", venues.get(i).getStatus());
+            venueStatus.add(venue);
+        }
+        status.put("venues", venueStatus);
+        return status;
+    }
+
+    /**
+     * The composite price of a symbol next to every venue's quote, for the debug API
+     */
+    public Optional<Map<String, Object>> describe(String symbol) {
+        int id = symbolRegistry.idOfSymbol(symbol);
+        if (id < 0) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("symbol", symbolRegistry.get(id).getSymbol());
+        CompositePrice composite = composites.get(id);
+        if (composite != null) {
+            description.put("price", FixedPoint.toBigDecimal(composite.getPrice()));
+            description.put("bid", FixedPoint.toBigDecimal(composite.getBid()));
+            description.put("ask", FixedPoint.toBigDecimal(composite.getAsk()));
+            description.put("dayVolume", FixedPoint.toBigDecimal(composite.getDayVolume()));
+            description.put("venueCount", composite.getVenueCount());
+            description.put("timestamp", composite.getTimestamp());
+        }
+        List<Map<String, Object>> venueQuotes = new ArrayList<>();
+        for (int i = 0; i < venues.size(); i++) {
+            VenueQuote quote = getQuote(i, id);
+            if (quote == null) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("venue", venues.get(i).getVenue());
+            entry.put("bid", FixedPoint.toBigDecimal(quote.getBid()));
+            entry.put("ask", FixedPoint.toBigDecimal(quote.getAsk()));
+            entry.put("last", FixedPoint.toBigDecimal(quote.getLast()));
+            entry.put("dayVolume", FixedPoint.toBigDecimal(quote.getDayVolume()));
+            entry.put("ageMs", now - quote.getReceivedAt());
+            entry.put("stale", isStale(quote.getReceivedAt(), now));
+            venueQuotes.add(entry);
+        }
+        description.put("venues", venueQuotes);
+        return Optional.of(description);
+    }
+}
@@ -0,0 +1,144 @@
+package com.trading212.Trading212.service.venue;
+
+import com.trading212.Trading212.service.SymbolRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A second venue, simulated in-process, quoting every instrument around the last trade price of a
+ * reference venue (Kraken by default). Each instrument's price drifts in a random walk of up to
+ * {@code venues.simulated.max-deviation-bps} away from the reference, with a fixed spread, and
+ * its day volume mirrors the reference's. Useful for exercising the composite methods and the
+ * staleness exclusion without a second exchange connection.
+ * <p>
+ * No quote is made from a reference quote the aggregator considers stale: the simulated venue
+ * would otherwise keep a frozen reference price looking fresh.
+ */
+@Service
+@ConditionalOnProperty(name = "venues.simulated.enabled", havingValue = "true")
+public class SimulatedVenueFeed implements VenueFeed {
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedVenueFeed.class);
+
+    private static final long BASIS_POINTS = 10_000;
+
+    private final CompositePriceAggregator aggregator;
+    private final SymbolRegistry symbolRegistry;
+    private final int slot;
+    private final AtomicLong quotesSent = new AtomicLong();
+    private final AtomicLong staleReferenceSkips = new AtomicLong();
+    // Current deviation from the reference per instrument, in basis points; only the generator thread touches it
+    private final int[] deviations;
+    private Thread generator;
+
+    @Value("${venues.simulated.ticks-per-second:50}")
+    private int ticksPerSecond;
+
+    @Value("${venues.simulated.spread-bps:10}")
+    private int spreadBps;
+
+    @Value("${venues.simulated.max-deviation-bps:25}")
+    private int maxDeviationBps;
+
+    @Value("${venues.simulated.reference-venue:kraken}")
+    private String referenceVenue;
+
+    @Autowired
+    public SimulatedVenueFeed(CompositePriceAggregator aggregator, SymbolRegistry symbolRegistry) {
+        this.aggregator = aggregator;
+        this.symbolRegistry = symbolRegistry;
+        this.deviations = new int[symbolRegistry.getCapacity()];
+        this.slot = aggregator.register(this);
+    }
+
+    @Override
+    public String getVenue() {
+        return "simulated";
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        generator = new Thread(this::generate, "Simulated-Venue");
+        generator.setDaemon(true);
+        generator.start();
+        logger.info("Simulated venue quoting {} times per second around {}", ticksPerSecond, referenceVenue);
+    }
+
+    private void generate() {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, ticksPerSecond);
+        long dueAt = System.nanoTime();
+        int next = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int size = symbolRegistry.size();
+            if (size > 0) {
+                next = next % size;
+                try {
+                    quote(next);
+                } catch (Exception e) {
+                    logger.error("Error generating simulated quote: {}", e.getMessage(), e);
+                }
+                next++;
+            }
+            dueAt += intervalNanos;
+            long wait = dueAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    private void quote(int id) {
+        int referenceSlot = aggregator.slotOf(referenceVenue);
+        VenueQuote reference = referenceSlot >= 0 ? aggregator.getQuote(referenceSlot, id) : null;
+        if (reference == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (aggregator.isStale(reference.getReceivedAt(), now)) {
+            staleReferenceSkips.incrementAndGet();
+            return;
+        }
+        int deviation = deviations[id] + ThreadLocalRandom.current().nextInt(-1, 2);
+        deviation = Math.max(-maxDeviationBps, Math.min(maxDeviationBps, deviation));
+        deviations[id] = deviation;
+
+        long last = Math.max(1, reference.getLast() + reference.getLast() * deviation / BASIS_POINTS);
+        long halfSpread = Math.max(1, last * spreadBps / (2 * BASIS_POINTS));
+        aggregator.onQuote(slot, id, last - halfSpread, last + halfSpread, last, reference.getDayVolume(),
+                now, System.nanoTime());
+        quotesSent.incrementAndGet();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (generator != null) {
+            generator.interrupt();
+            generator = null;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", generator != null);
+        status.put("referenceVenue", referenceVenue);
+        status.put("targetTicksPerSecond", ticksPerSecond);
+        status.put("spreadBps", spreadBps);
+        status.put("maxDeviationBps", maxDeviationBps);
+        status.put("quotesSent", quotesSent.get());
+        status.put("staleReferenceSkips", staleReferenceSkips.get());
+        return status;
+    }
+}
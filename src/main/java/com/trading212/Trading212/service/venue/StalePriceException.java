@@ -0,0 +1,11 @@
+package com.trading212.Trading212.service.venue;
+
+/**
+ * A trade refused because the instrument's composite price is older than
+ * {@code venues.stale-after-ms}. Retrying once a venue quotes the instrument again can succeed.
+ */
+public class StalePriceException extends IllegalStateException {
+    public StalePriceException(String message) {
+        super(message);
+    }
+}
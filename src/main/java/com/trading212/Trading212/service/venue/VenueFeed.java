@@ -0,0 +1,25 @@
+package com.trading212.Trading212.service.venue;
+
+import java.util.Map;
+
+/**
+ * A source of prices from one trading venue.
+ * <p>
+ * An adapter decodes its venue's stream, resolves instruments through the
+ * {@link com.trading212.Trading212.service.SymbolRegistry} and hands every quote to
+ * {@link CompositePriceAggregator#onQuote} under the slot it got from
+ * {@link CompositePriceAggregator#register}. The aggregator combines the venues into one price per
+ * symbol and feeds it to the tick pipeline, so nothing downstream depends on a particular venue.
+ */
+public interface VenueFeed {
+
+    /**
+     * Short, unique name of the venue, such as {@code kraken}
+     */
+    String getVenue();
+
+    /**
+     * Health of the feed, for the debug API
+     */
+    Map<String, Object> getStatus();
+}
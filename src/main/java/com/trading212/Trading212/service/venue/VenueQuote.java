@@ -0,0 +1,64 @@
+package com.trading212.Trading212.service.venue;
+
+import com.trading212.Trading212.util.FixedPoint;
+
+/**
+ * Immutable latest quote of one instrument on one venue. Prices and volume are {@link FixedPoint}
+ * values, {@link FixedPoint#NULL} when the venue did not send them.
+ */
+public final class VenueQuote {
+    private final int venue;
+    private final long bid;
+    private final long ask;
+    private final long last;
+    private final long dayVolume;
+    private final long receivedAt;
+
+    VenueQuote(int venue, long bid, long ask, long last, long dayVolume, long receivedAt) {
+        this.venue = venue;
+        this.bid = bid;
+        this.ask = ask;
+        this.last = last;
+        this.dayVolume = dayVolume;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * Slot of the venue in {@link CompositePriceAggregator}
+     */
+    public int getVenue() {
+        return venue;
+    }
+
+    /**
+     * Best bid, or the last trade price if the venue sent none
+     */
+    public long getBid() {
+        return bid != FixedPoint.NULL ? bid : last;
+    }
+
+    /**
+     * Best ask, or the last trade price if the venue sent none
+     */
+    public long getAsk() {
+        return ask != FixedPoint.NULL ? ask : last;
+    }
+
+    public long getLast() {
+        return last;
+    }
+
+    /**
+     * Cumulative volume since the start of the day, or {@link FixedPoint#NULL} if unknown
+     */
+    public long getDayVolume() {
+        return dayVolume;
+    }
+
+    /**
+     * When the quote was received, in epoch milliseconds
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+}
@@ -0,0 +1,221 @@
+package com.trading212.Trading212.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Decimals with 8 fractional digits held in a plain {@code long}, matching the
+ * {@code DECIMAL(20,8)} columns of the schema: 1.5 is stored as {@code 150_000_000}.
+ * <p>
+ * The feed, the price book and trade cost computation work on these values instead of
+ * {@code BigDecimal}, so parsing and arithmetic never allocate. Results are exact up to a final
+ * rounding to 8 digits, half up like {@code setScale(8, RoundingMode.HALF_UP)}, and overflow
+ * throws {@link ArithmeticException} instead of wrapping. The range is about plus or minus 92
+ * billion, less than the columns allow but ample for prices, quantities and balances.
+ * <p>
+ * Values are converted to {@code BigDecimal} only where they leave for JDBC or JSON.
+ */
+public final class FixedPoint {
+    public static final int SCALE = 8;
+    public static final long ONE = 100_000_000L;
+    // Marks a missing value; parsing and arithmetic never produce it
+    public static final long NULL = Long.MIN_VALUE;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a plain decimal such as {@code -67012.10000} from {@code text[start, end)}. Digits
+     * beyond the 8th fractional one are rounded half up.
+     *
+     * @throws NumberFormatException if the text is not a plain decimal or is out of range
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long value = 0;
+        // Fractional digits kept so far, or -1 before the decimal point
+        int fractionDigits = -1;
+        boolean hasDigits = false;
+        boolean discarded = false;
+        boolean roundUp = false;
+        try {
+            for (; i < end; i++) {
+                char c = text.charAt(i);
+                if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                    continue;
+                }
+                if (c < '0' || c > '9') {
+                    throw invalid(text, start, end);
+                }
+                hasDigits = true;
+                if (fractionDigits == SCALE) {
+                    // Only the first discarded digit decides half-up rounding
+                    if (!discarded) {
+                        roundUp = c >= '5';
+                        discarded = true;
+                    }
+                    continue;
+                }
+                value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            }
+            if (!hasDigits) {
+                throw invalid(text, start, end);
+            }
+            value = Math.multiplyExact(value, POWERS_OF_TEN[SCALE - Math.max(fractionDigits, 0)]);
+            if (roundUp) {
+                value = Math.addExact(value, 1);
+            }
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Decimal out of range: " + text.subSequence(start, end));
+        }
+        return negative ? -value : value;
+    }
+
+    private static NumberFormatException invalid(CharSequence text, int start, int end) {
+        return new NumberFormatException("Not a plain decimal: " + text.subSequence(start, end));
+    }
+
+    /**
+     * Converts a decimal given as an unscaled value and scale, e.g. a Kraken book level
+     *
+     * @throws ArithmeticException if the value is out of range
+     */
+    public static long fromUnscaled(long unscaled, int scale) {
+        if (scale == SCALE) {
+            return checked(unscaled);
+        }
+        if (scale < SCALE && SCALE - scale < POWERS_OF_TEN.length) {
+            return checked(Math.multiplyExact(unscaled, POWERS_OF_TEN[SCALE - scale]));
+        }
+        if (scale > SCALE && scale - SCALE < POWERS_OF_TEN.length) {
+            long divisor = POWERS_OF_TEN[scale - SCALE];
+            long quotient = unscaled / divisor;
+            long remainder = Math.abs(unscaled % divisor);
+            if (remainder >= divisor - remainder) {
+                quotient += unscaled < 0 ? -1 : 1;
+            }
+            return quotient;
+        }
+        return of(BigDecimal.valueOf(unscaled, scale));
+    }
+
+    /**
+     * @return the value rounded half up to 8 digits, or {@link #NULL} for {@code null}
+     * @throws ArithmeticException if the value is out of range
+     */
+    public static long of(BigDecimal value) {
+        if (value == null) {
+            return NULL;
+        }
+        return checked(value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * @return the value with a scale of 8, or {@code null} for {@link #NULL}
+     */
+    public static BigDecimal toBigDecimal(long value) {
+        return value == NULL ? null : BigDecimal.valueOf(value, SCALE);
+    }
+
+    public static double toDouble(long value) {
+        return (double) value / ONE;
+    }
+
+    public static String toString(long value) {
+        return value == NULL ? "null" : toBigDecimal(value).toPlainString();
+    }
+
+    public static long add(long a, long b) {
+        return checked(Math.addExact(a, b));
+    }
+
+    public static long subtract(long a, long b) {
+        return checked(Math.subtractExact(a, b));
+    }
+
+    public static long negate(long value) {
+        return Math.negateExact(value);
+    }
+
+    /**
+     * {@code a * b} rounded half up to 8 digits. Splitting both operands into integer and
+     * fractional parts keeps every partial product within a {@code long}.
+     */
+    public static long multiply(long a, long b) {
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.absExact(a);
+        long y = Math.absExact(b);
+        long xInt = x / ONE;
+        long xFrac = x % ONE;
+        long yInt = y / ONE;
+        long yFrac = y % ONE;
+        // Below 10^16, so it cannot overflow
+        long fractions = xFrac * yFrac;
+        long result = Math.multiplyExact(Math.multiplyExact(xInt, yInt), ONE);
+        result = Math.addExact(result, Math.multiplyExact(xInt, yFrac));
+        result = Math.addExact(result, Math.multiplyExact(xFrac, yInt));
+        result = Math.addExact(result, fractions / ONE + (fractions % ONE >= ONE / 2 ? 1 : 0));
+        return negative ? -result : result;
+    }
+
+    /**
+     * {@code a / b} rounded half up to 8 digits.
+     *
+     * @throws ArithmeticException on division by zero or if the result is out of range
+     */
+    public static long divide(long a, long b) {
+        if (b == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.absExact(a);
+        long y = Math.absExact(b);
+        if (y > Long.MAX_VALUE / 10) {
+            // The remainder could overflow the digit loop below; far beyond any real divisor
+            return of(BigDecimal.valueOf(a, SCALE).divide(BigDecimal.valueOf(b, SCALE), SCALE, RoundingMode.HALF_UP));
+        }
+        long result = Math.multiplyExact(x / y, ONE);
+        long remainder = x % y;
+        long fraction = 0;
+        // Long division of the remainder, one decimal digit at a time
+        for (int i = 0; i < SCALE; i++) {
+            remainder *= 10;
+            fraction = fraction * 10 + remainder / y;
+            remainder %= y;
+        }
+        result = Math.addExact(result, fraction);
+        if (remainder >= y - remainder) {
+            result = Math.addExact(result, 1);
+        }
+        return negative ? -result : result;
+    }
+
+    private static long checked(long value) {
+        if (value == NULL) {
+            throw new ArithmeticException("Fixed-point overflow");
+        }
+        return value;
+    }
+}
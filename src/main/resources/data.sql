@@ -3,13 +3,26 @@ INSERT IGNORE INTO users (username, balance) VALUES ('default_user', 10000.00);
 
 -- Insert some initial cryptocurrencies if they don't exist
 INSERT IGNORE INTO cryptocurrencies (symbol, name, kraken_pair_name, current_price) VALUES 
-('BTC', 'Bitcoin', 'XBTUSDT', 0.00),
-('ETH', 'Ethereum', 'ETHUSDT', 0.00),
-('SOL', 'Solana', 'SOLUSDT', 0.00),
-('XRP', 'Ripple', 'XRPUSDT', 0.00),
-('ADA', 'Cardano', 'ADAUSDT', 0.00),
-('DOT', 'Polkadot', 'DOTUSDT', 0.00),
-('DOGE', 'Dogecoin', 'XDGUSDT', 0.00),
-('SHIB', 'Shiba Inu', 'SHIBUSDT', 0.00),
-('MATIC', 'Polygon', 'MATICUSDT', 0.00),
-('AVAX', 'Avalanche', 'AVAXUSDT', 0.00);
+('BTC', 'Bitcoin', 'XBT/USD', 0.00),
+('ETH', 'Ethereum', 'ETH/USD', 0.00),
+('SOL', 'Solana', 'SOL/USD', 0.00),
+('XRP', 'Ripple', 'XRP/USD', 0.00),
+('ADA', 'Cardano', 'ADA/USD', 0.00),
+('DOT', 'Polkadot', 'DOT/USD', 0.00),
+('DOGE', 'Dogecoin', 'XDG/USD', 0.00),
+('SHIB', 'Shiba Inu', 'SHIB/USD', 0.00),
+('MATIC', 'Polygon', 'MATIC/USD', 0.00),
+('AVAX', 'Avalanche', 'AVAX/USD', 0.00);
+
+-- Feed ticks are resolved by their WebSocket pair name; move rows seeded with REST pair names over
+UPDATE cryptocurrencies SET kraken_pair_name = 'XBT/USD' WHERE symbol = 'BTC' AND kraken_pair_name = 'XBTUSDT';
+UPDATE cryptocurrencies SET kraken_pair_name = 'ETH/USD' WHERE symbol = 'ETH' AND kraken_pair_name = 'ETHUSDT';
+UPDATE cryptocurrencies SET kraken_pair_name = 'SOL/USD' WHERE symbol = 'SOL' AND kraken_pair_name = 'SOLUSDT';
+UPDATE cryptocurrencies SET kraken_pair_name = 'XRP/USD' WHERE symbol = 'XRP' AND kraken_pair_name = 'XRPUSDT';
+UPDATE cryptocurrencies SET kraken_pair_name = 'ADA/USD' WHERE symbol = 'ADA' AND kraken_pair_name = 'ADAUSDT';
+UPDATE cryptocurrencies SET kraken_pair_name = 'DOT/USD' WHERE symbol = 'DOT' AND kraken_pair_name = 'DOTUSDT';
+-- Kraken's WebSocket API names Dogecoin XDG
+UPDATE cryptocurrencies SET kraken_pair_name = 'XDG/USD' WHERE symbol = 'DOGE' AND kraken_pair_name IN ('XDGUSDT', 'DOGE/USD');
+UPDATE cryptocurrencies SET kraken_pair_name = 'SHIB/USD' WHERE symbol = 'SHIB' AND kraken_pair_name = 'SHIBUSDT';
+UPDATE cryptocurrencies SET kraken_pair_name = 'MATIC/USD' WHERE symbol = 'MATIC' AND kraken_pair_name = 'MATICUSDT';
+UPDATE cryptocurrencies SET kraken_pair_name = 'AVAX/USD' WHERE symbol = 'AVAX' AND kraken_pair_name = 'AVAXUSDT';
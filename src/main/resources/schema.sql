@@ -13,6 +13,8 @@ CREATE TABLE IF NOT EXISTS cryptocurrencies (
     name VARCHAR(100) NOT NULL,
     kraken_pair_name VARCHAR(20) NOT NULL UNIQUE,
     current_price DECIMAL(20, 8) NOT NULL,
+    -- Only enabled pairs are subscribed to on the Kraken feed
+    enabled BOOLEAN NOT NULL DEFAULT TRUE,
     last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
@@ -42,3 +44,61 @@ CREATE TABLE IF NOT EXISTS transactions (
     FOREIGN KEY (user_id) REFERENCES users(id),
     FOREIGN KEY (crypto_id) REFERENCES cryptocurrencies(id)
 );
+
+-- OHLCV candles closed by the candle aggregator (open_time in epoch milliseconds)
+CREATE TABLE IF NOT EXISTS candles (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    symbol VARCHAR(20) NOT NULL,
+    candle_interval VARCHAR(3) NOT NULL,
+    open_time BIGINT NOT NULL,
+    open_price DECIMAL(20, 8) NOT NULL,
+    high_price DECIMAL(20, 8) NOT NULL,
+    low_price DECIMAL(20, 8) NOT NULL,
+    close_price DECIMAL(20, 8) NOT NULL,
+    volume DECIMAL(28, 8) NOT NULL DEFAULT 0,
+    UNIQUE KEY symbol_interval_time_unique (symbol, candle_interval, open_time)
+);
+
+-- Limit orders; the open ones are also held in memory, sorted by limit price, by LimitOrderService
+CREATE TABLE IF NOT EXISTS limit_orders (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    crypto_id BIGINT NOT NULL,
+    side ENUM('BUY', 'SELL') NOT NULL,
+    quantity DECIMAL(20, 8) NOT NULL,
+    limit_price DECIMAL(20, 8) NOT NULL,
+    status ENUM('OPEN', 'FILLED', 'CANCELLED', 'REJECTED') NOT NULL DEFAULT 'OPEN',
+    -- The fill's row in transactions, or why the order was rejected
+    transaction_id BIGINT,
+    status_message VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    FOREIGN KEY (crypto_id) REFERENCES cryptocurrencies(id),
+    KEY limit_orders_status (status),
+    KEY limit_orders_user (user_id)
+);
+
+-- Stop-loss, take-profit and trailing-stop sells of a holding; the active ones are also indexed in memory by
+-- TriggerOrderService. A trailing stop sells once the price falls trail_distance below peak_price, the highest
+-- price since it was placed, which is written back periodically
+CREATE TABLE IF NOT EXISTS trigger_orders (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    crypto_id BIGINT NOT NULL,
+    trigger_type ENUM('STOP_LOSS', 'TAKE_PROFIT', 'TRAILING_STOP') NOT NULL,
+    quantity DECIMAL(20, 8) NOT NULL,
+    trigger_price DECIMAL(20, 8),
+    trail_distance DECIMAL(20, 8),
+    peak_price DECIMAL(20, 8),
+    status ENUM('ACTIVE', 'FILLED', 'CANCELLED', 'REJECTED') NOT NULL DEFAULT 'ACTIVE',
+    -- The sale's row in transactions, or why the order was rejected
+    transaction_id BIGINT,
+    status_message VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    FOREIGN KEY (crypto_id) REFERENCES cryptocurrencies(id),
+    KEY trigger_orders_status (status),
+    KEY trigger_orders_user (user_id)
+);
@@ -708,20 +708,23 @@ class WebSocketManager {
         console.log('WebSocketManager: Subscribing to WebSocket topics...');
 
         // Subscribe to price updates
-        this.subscribe('/topic/prices', (priceUpdate) => {
-            try {
-                console.log('WebSocketManager: Received price update from topic:', priceUpdate);
-                this.updateCryptoCardUI(priceUpdate); // Update individual crypto card
-                // Also update the dashboardCryptoData in memory if needed for other uses
-                const index = dashboardCryptoData.findIndex(c => c.symbol === priceUpdate.symbol);
-                if (index !== -1) {
-                    dashboardCryptoData[index].currentPrice = priceUpdate.newPrice;
-                    dashboardCryptoData[index].percentChange24h = priceUpdate.percentChange24h;
-                    dashboardCryptoData[index].lastUpdated = new Date().toISOString();
+        // Prices arrive as a batch of the latest update per changed symbol
+        this.subscribe('/topic/prices', (payload) => {
+            const priceUpdates = Array.isArray(payload) ? payload : [payload];
+            priceUpdates.forEach(priceUpdate => {
+                try {
+                    this.updateCryptoCardUI(priceUpdate); // Update individual crypto card
+                    // Also update the dashboardCryptoData in memory if needed for other uses
+                    const index = dashboardCryptoData.findIndex(c => c.symbol === priceUpdate.symbol);
+                    if (index !== -1) {
+                        dashboardCryptoData[index].currentPrice = priceUpdate.newPrice;
+                        dashboardCryptoData[index].percentChange24h = priceUpdate.percentChange24h;
+                        dashboardCryptoData[index].lastUpdated = new Date().toISOString();
+                    }
+                } catch (error) {
+                    console.error('WebSocketManager: Error processing price update:', error, priceUpdate);
                 }
-            } catch (error) {
-                console.error('WebSocketManager: Error processing price update:', error, priceUpdate);
-            }
+            });
         }).catch(err => console.error('Failed to subscribe to /topic/prices:', err));
 
         // Subscribe to general updates (e.g., system messages)
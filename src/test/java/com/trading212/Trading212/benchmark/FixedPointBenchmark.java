@@ -0,0 +1,131 @@
+package com.trading212.Trading212.benchmark;
+
+import com.trading212.Trading212.util.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@code BigDecimal} with {@link FixedPoint} on the two hot paths that switched over:
+ * parsing feed prices, and the price, cost and balance arithmetic of a trade.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation rate per operation:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.trading212.Trading212.benchmark.FixedPointBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointBenchmark {
+
+    // Last trade prices and quantities as Kraken sends them
+    private static final String[] PRICES = {"67012.10000", "3521.45000", "0.45812100", "0.16230000"};
+    private static final String[] QUANTITIES = {"0.00150000", "0.25000000", "420.00000000", "1500.00000000"};
+
+    private CharBuffer[] priceTexts;
+    private BigDecimal[] bigPrices;
+    private BigDecimal[] bigQuantities;
+    private long[] fixedPrices;
+    private long[] fixedQuantities;
+    private BigDecimal bigBalance;
+    private long fixedBalance;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        priceTexts = new CharBuffer[PRICES.length];
+        bigPrices = new BigDecimal[PRICES.length];
+        bigQuantities = new BigDecimal[PRICES.length];
+        fixedPrices = new long[PRICES.length];
+        fixedQuantities = new long[PRICES.length];
+        for (int i = 0; i < PRICES.length; i++) {
+            // The decoder reads numbers straight out of the frame's CharBuffer
+            priceTexts[i] = CharBuffer.wrap(PRICES[i]);
+            bigPrices[i] = new BigDecimal(PRICES[i]);
+            bigQuantities[i] = new BigDecimal(QUANTITIES[i]);
+            fixedPrices[i] = FixedPoint.parse(PRICES[i]);
+            fixedQuantities[i] = FixedPoint.parse(QUANTITIES[i]);
+        }
+        bigBalance = new BigDecimal("1000000.00000000");
+        fixedBalance = FixedPoint.of(bigBalance);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % PRICES.length;
+        return index;
+    }
+
+    @Benchmark
+    public BigDecimal parseBigDecimal() {
+        CharBuffer text = priceTexts[nextIndex()];
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        return new BigDecimal(chars, 0, chars.length);
+    }
+
+    @Benchmark
+    public long parseFixedPoint() {
+        CharBuffer text = priceTexts[nextIndex()];
+        return FixedPoint.parse(text, 0, text.length());
+    }
+
+    @Benchmark
+    public void tradeBigDecimal(Blackhole blackhole) {
+        int index = nextIndex();
+        BigDecimal totalCost = bigPrices[index].multiply(bigQuantities[index]).setScale(8, RoundingMode.HALF_UP);
+        blackhole.consume(bigBalance.compareTo(totalCost) >= 0);
+        blackhole.consume(bigBalance.subtract(totalCost));
+    }
+
+    @Benchmark
+    public void tradeFixedPoint(Blackhole blackhole) {
+        int index = nextIndex();
+        long totalCost = FixedPoint.multiply(fixedPrices[index], fixedQuantities[index]);
+        blackhole.consume(fixedBalance >= totalCost);
+        blackhole.consume(FixedPoint.subtract(fixedBalance, totalCost));
+    }
+
+    @Benchmark
+    public BigDecimal averagePriceBigDecimal() {
+        int index = nextIndex();
+        BigDecimal cost = bigPrices[index].multiply(bigQuantities[index]);
+        return cost.divide(bigQuantities[index], 8, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public long averagePriceFixedPoint() {
+        int index = nextIndex();
+        long cost = FixedPoint.multiply(fixedPrices[index], fixedQuantities[index]);
+        return FixedPoint.divide(cost, fixedQuantities[index]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FixedPointBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
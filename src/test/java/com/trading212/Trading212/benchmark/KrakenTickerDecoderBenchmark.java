@@ -0,0 +1,116 @@
+package com.trading212.Trading212.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading212.Trading212.service.WebSocket.KrakenTick;
+import com.trading212.Trading212.service.WebSocket.KrakenTickerDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the tree-based ticker parsing previously done in {@code KrakenWebSocketClient.onText}
+ * with {@link KrakenTickerDecoder} on frames recorded from the Kraken ticker channel.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation rate per frame:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.trading212.Trading212.benchmark.KrakenTickerDecoderBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KrakenTickerDecoderBenchmark {
+
+    // Recorded ticker frames, one per pair shape we subscribe to
+    private static final String[] RECORDED_FRAMES = {
+            "[340,{\"a\":[\"67012.10000\",1,\"1.000\"],\"b\":[\"67012.00000\",3,\"3.000\"],\"c\":[\"67012.10000\",\"0.00150000\"],"
+                    + "\"v\":[\"1204.51652311\",\"2871.33012854\"],\"p\":[\"66893.04715\",\"66741.20418\"],\"t\":[23329,80463],"
+                    + "\"l\":[\"66510.00000\",\"66101.20000\"],\"h\":[\"67200.00000\",\"67200.00000\"],\"o\":[\"66703.40000\",\"66410.50000\"]},"
+                    + "\"ticker\",\"XBT/USD\"]",
+            "[341,{\"a\":[\"3521.45000\",12,\"12.000\"],\"b\":[\"3521.44000\",4,\"4.000\"],\"c\":[\"3521.45000\",\"0.25000000\"],"
+                    + "\"v\":[\"18240.11520830\",\"41088.94311402\"],\"p\":[\"3507.29381\",\"3498.11203\"],\"t\":[11904,30275],"
+                    + "\"l\":[\"3480.12000\",\"3466.01000\"],\"h\":[\"3533.80000\",\"3540.00000\"],\"o\":[\"3490.00000\",\"3479.54000\"]},"
+                    + "\"ticker\",\"ETH/USD\"]",
+            "[352,{\"a\":[\"0.45812100\",2500,\"2500.000\"],\"b\":[\"0.45810000\",1800,\"1800.000\"],\"c\":[\"0.45812100\",\"420.00000000\"],"
+                    + "\"v\":[\"3201144.10293312\",\"8840231.90221003\"],\"p\":[\"0.45602391\",\"0.45390112\"],\"t\":[3120,7811],"
+                    + "\"l\":[\"0.44910000\",\"0.44500000\"],\"h\":[\"0.46100000\",\"0.46100000\"],\"o\":[\"0.45100000\",\"0.44800000\"]},"
+                    + "\"ticker\",\"ADA/USD\"]",
+            "[361,{\"a\":[\"0.16231000\",40000,\"40000.000\"],\"b\":[\"0.16230000\",25000,\"25000.000\"],\"c\":[\"0.16230000\",\"1500.00000000\"],"
+                    + "\"v\":[\"45210331.00000000\",\"120044510.50000000\"],\"p\":[\"0.16110021\",\"0.16002312\"],\"t\":[8810,21440],"
+                    + "\"l\":[\"0.15800000\",\"0.15710000\"],\"h\":[\"0.16400000\",\"0.16400000\"],\"o\":[\"0.15950000\",\"0.15880000\"]},"
+                    + "\"ticker\",\"XDG/USD\"]"
+    };
+
+    private CharBuffer[] frames;
+    private ObjectMapper objectMapper;
+    private KrakenTickerDecoder decoder;
+    private KrakenTick tick;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // The JDK WebSocket hands text frames to the listener as CharBuffers
+        frames = new CharBuffer[RECORDED_FRAMES.length];
+        for (int i = 0; i < RECORDED_FRAMES.length; i++) {
+            frames[i] = CharBuffer.wrap(RECORDED_FRAMES[i]);
+        }
+        objectMapper = new ObjectMapper();
+        decoder = new KrakenTickerDecoder(List.of("XBT/USD", "ETH/USD", "ADA/USD", "XDG/USD"));
+        tick = new KrakenTick();
+    }
+
+    private CharSequence nextFrame() {
+        CharSequence frame = frames[next];
+        next = (next + 1) % frames.length;
+        return frame;
+    }
+
+    @Benchmark
+    public void treeParser(Blackhole blackhole) throws Exception {
+        JsonNode message = objectMapper.readTree(nextFrame().toString());
+        String pairName = message.get(3).asText();
+        JsonNode tickerData = message.get(1);
+        blackhole.consume(pairName);
+        blackhole.consume(new BigDecimal(tickerData.path("c").get(0).asText()));
+        blackhole.consume(new BigDecimal(tickerData.path("b").get(0).asText()));
+        blackhole.consume(new BigDecimal(tickerData.path("a").get(0).asText()));
+        blackhole.consume(new BigDecimal(tickerData.path("v").get(1).asText()));
+    }
+
+    @Benchmark
+    public void streamingDecoder(Blackhole blackhole) {
+        blackhole.consume(decoder.decode(nextFrame(), tick));
+        blackhole.consume(tick.getPair());
+        blackhole.consume(tick.getLastPrice());
+        blackhole.consume(tick.getBidPrice());
+        blackhole.consume(tick.getAskPrice());
+        blackhole.consume(tick.getVolume());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(KrakenTickerDecoderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.trading212.Trading212.benchmark;
+
+import com.trading212.Trading212.model.TransactionType;
+import com.trading212.Trading212.service.orders.LimitOrderBook;
+import com.trading212.Trading212.service.orders.RestingOrder;
+import com.trading212.Trading212.util.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per tick of finding the limit orders a price crosses: {@link LimitOrderBook} against a scan
+ * of every open order of the symbol. The price moves in a random walk of 0.01% steps and limits
+ * rest 0.1% to 5% away from it, so most ticks cross nothing and some cross a few orders. Every
+ * crossed order is replaced by a new one limited away from the current price, as fills and new
+ * orders would, which keeps the number of open orders constant.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.trading212.Trading212.benchmark.LimitOrderBookBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LimitOrderBookBenchmark {
+
+    private static final long MID = 60_000 * FixedPoint.ONE;
+    private static final int TICKS = 4096;
+
+    @Param({"1000", "100000"})
+    private int openOrders;
+
+    private final Random random = new Random(42);
+    private final List<RestingOrder> crossed = new ArrayList<>();
+    private LimitOrderBook book;
+    private RestingOrder[] orders;
+    private long[] ticks;
+    private int next;
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        book = new LimitOrderBook();
+        orders = new RestingOrder[openOrders];
+        for (int i = 0; i < openOrders; i++) {
+            orders[i] = newOrder(MID);
+            book.add(orders[i]);
+        }
+        ticks = new long[TICKS];
+        long price = MID;
+        for (int i = 0; i < TICKS; i++) {
+            price += (random.nextBoolean() ? 1 : -1) * (MID / 10_000);
+            ticks[i] = price;
+        }
+    }
+
+    /**
+     * A bid below or an ask above the price, at a whole-cent limit
+     */
+    private RestingOrder newOrder(long price) {
+        boolean buy = random.nextBoolean();
+        long offset = (long) ((0.001 + random.nextDouble() * 0.049) * price) / 1_000_000 * 1_000_000;
+        long id = nextId++;
+        return new RestingOrder(id, id % 1000, 0, buy ? TransactionType.BUY : TransactionType.SELL,
+                FixedPoint.ONE, buy ? price - offset : price + offset);
+    }
+
+    @Benchmark
+    public int sortedBook() {
+        long price = ticks[next++ & (TICKS - 1)];
+        book.takeCrossed(price, crossed);
+        int count = crossed.size();
+        for (int i = 0; i < count; i++) {
+            book.add(newOrder(price));
+        }
+        crossed.clear();
+        return count;
+    }
+
+    @Benchmark
+    public int scanAllOrders() {
+        long price = ticks[next++ & (TICKS - 1)];
+        int count = 0;
+        for (int i = 0; i < orders.length; i++) {
+            RestingOrder order = orders[i];
+            if (order.isBuy() ? order.limitPrice() >= price : order.limitPrice() <= price) {
+                crossed.add(order);
+                orders[i] = newOrder(price);
+                count++;
+            }
+        }
+        crossed.clear();
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LimitOrderBookBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
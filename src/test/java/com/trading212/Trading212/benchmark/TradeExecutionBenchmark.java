@@ -0,0 +1,151 @@
+package com.trading212.Trading212.benchmark;
+
+import com.trading212.Trading212.model.TransactionType;
+import com.trading212.Trading212.model.UserEntity;
+import com.trading212.Trading212.repository.CryptoRepository;
+import com.trading212.Trading212.repository.TransactionRepository;
+import com.trading212.Trading212.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a buy order against MySQL: the read-modify-write sequence {@code TradingService}
+ * used before (user select, absolute balance update, {@code user_holdings} probe, holding count,
+ * holding update, transaction insert) against the conditional statements it uses now (debit if
+ * sufficient, holding upsert, transaction insert, balance read for the response).
+ * <p>
+ * Needs a MySQL server. The tables of {@code schema.sql} are created in the benchmark database,
+ * connections come from a Hikari pool as in the application, and every benchmark thread trades on
+ * a user of its own. Set {@code benchmark.threads} to see the difference under concurrency:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.trading212.Trading212.benchmark.TradeExecutionBenchmark \
+ *     -Dbenchmark.jdbc.url=jdbc:mysql://localhost:3306/crypto_trading212_bench?createDatabaseIfNotExist=true \
+ *     -Dbenchmark.jdbc.username=root -Dbenchmark.jdbc.password=... -Dbenchmark.threads=8
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeExecutionBenchmark {
+
+    private static final BigDecimal QUANTITY = new BigDecimal("0.00100000");
+    private static final BigDecimal PRICE = new BigDecimal("100.00000000");
+    private static final BigDecimal COST = QUANTITY.multiply(PRICE);
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        private UserRepository userRepository;
+        private CryptoRepository cryptoRepository;
+        private TransactionRepository transactionRepository;
+        private TransactionTemplate transactionTemplate;
+        private JdbcTemplate jdbcTemplate;
+        private HikariDataSource dataSource;
+        private Long cryptoId;
+
+        @Setup
+        public void setUp() {
+            dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url",
+                    "jdbc:mysql://localhost:3306/crypto_trading212_bench?useSSL=false&serverTimezone=UTC&createDatabaseIfNotExist=true"));
+            dataSource.setUsername(System.getProperty("benchmark.jdbc.username", "root"));
+            dataSource.setPassword(System.getProperty("benchmark.jdbc.password", ""));
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            userRepository = new UserRepository(jdbcTemplate);
+            cryptoRepository = new CryptoRepository(jdbcTemplate);
+            transactionRepository = new TransactionRepository(jdbcTemplate);
+            transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            jdbcTemplate.update("INSERT IGNORE INTO cryptocurrencies (symbol, name, kraken_pair_name, current_price) "
+                    + "VALUES ('BNCH', 'Benchmark', 'BNCH/USD', ?)", PRICE);
+            cryptoId = jdbcTemplate.queryForObject("SELECT id FROM cryptocurrencies WHERE symbol = 'BNCH'", Long.class);
+        }
+
+        @TearDown
+        public void tearDown() {
+            dataSource.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Account {
+        private Long userId;
+
+        @Setup
+        public void setUp(Database database) {
+            String username = "bench_" + UUID.randomUUID().toString().substring(0, 8);
+            database.jdbcTemplate.update("INSERT INTO users (username, balance) VALUES (?, ?)",
+                    username, new BigDecimal("1000000000.00000000"));
+            userId = database.jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal readModifyWriteBuy(Database database, Account account) {
+        return database.transactionTemplate.execute(status -> {
+            UserEntity user = database.userRepository.findById(account.userId)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+            if (user.getBalance().compareTo(COST) < 0) {
+                throw new IllegalStateException("Insufficient balance");
+            }
+            BigDecimal newBalance = user.getBalance().subtract(COST);
+            database.userRepository.updateBalance(user.getId(), newBalance);
+            // The user_holdings probe updateUserHolding made on every call; it now checks only once
+            database.cryptoRepository.tableExists("user_holdings");
+            database.cryptoRepository.updateUserHolding(user.getId(), database.cryptoId, QUANTITY);
+            database.transactionRepository.recordTransaction(user.getId(), database.cryptoId, TransactionType.BUY,
+                    QUANTITY, PRICE, COST, null);
+            return newBalance;
+        });
+    }
+
+    @Benchmark
+    public BigDecimal conditionalBuy(Database database, Account account) {
+        return database.transactionTemplate.execute(status -> {
+            if (!database.userRepository.debitIfSufficient(account.userId, COST)) {
+                throw new IllegalStateException("Insufficient balance");
+            }
+            database.cryptoRepository.addToHolding(account.userId, database.cryptoId, QUANTITY);
+            database.transactionRepository.recordTransaction(account.userId, database.cryptoId, TransactionType.BUY,
+                    QUANTITY, PRICE, COST, null);
+            return database.userRepository.findBalance(account.userId).orElseThrow();
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        // The forked benchmark JVM does not inherit system properties
+        String[] connection = System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("benchmark.jdbc."))
+                .map(name -> "-D" + name + "=" + System.getProperty(name))
+                .toArray(String[]::new);
+        new Runner(new OptionsBuilder()
+                .include(TradeExecutionBenchmark.class.getSimpleName())
+                .jvmArgsAppend(connection)
+                .threads(Integer.getInteger("benchmark.threads", 1))
+                .build()).run();
+    }
+}
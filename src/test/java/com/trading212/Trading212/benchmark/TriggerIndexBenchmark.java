@@ -0,0 +1,139 @@
+package com.trading212.Trading212.benchmark;
+
+import com.trading212.Trading212.model.TriggerType;
+import com.trading212.Trading212.service.orders.TriggerIndex;
+import com.trading212.Trading212.service.orders.TriggerOrder;
+import com.trading212.Trading212.util.FixedPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per tick of finding the trigger orders a price fires: {@link TriggerIndex} against a scan
+ * of every active order of the symbol that also raises the peak of each trailing stop. Orders are
+ * a third each stop-losses, take-profits and trailing stops, 0.1% to 5% away from the price, which
+ * moves in a random walk of 0.01% steps. Every fired order is replaced by a new one placed at the
+ * current price, which keeps the number of active orders constant.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.trading212.Trading212.benchmark.TriggerIndexBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriggerIndexBenchmark {
+
+    private static final long MID = 60_000 * FixedPoint.ONE;
+    private static final int TICKS = 4096;
+
+    @Param({"1000", "100000"})
+    private int activeOrders;
+
+    private final Random random = new Random(42);
+    private final List<TriggerOrder> fired = new ArrayList<>();
+    private TriggerIndex index;
+    private TriggerOrder[] orders;
+    // Peak of each trailing stop in orders, for the scan
+    private long[] peaks;
+    private long[] ticks;
+    private int next;
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        index = new TriggerIndex();
+        orders = new TriggerOrder[activeOrders];
+        peaks = new long[activeOrders];
+        for (int i = 0; i < activeOrders; i++) {
+            orders[i] = newOrder(MID);
+            peaks[i] = orders[i].peak();
+            index.add(orders[i]);
+        }
+        ticks = new long[TICKS];
+        long price = MID;
+        for (int i = 0; i < TICKS; i++) {
+            price += (random.nextBoolean() ? 1 : -1) * (MID / 10_000);
+            ticks[i] = price;
+        }
+    }
+
+    /**
+     * A stop-loss below, a take-profit above, or a trailing stop trailing from the price, at a
+     * whole-cent distance
+     */
+    private TriggerOrder newOrder(long price) {
+        long offset = (long) ((0.001 + random.nextDouble() * 0.049) * price) / 1_000_000 * 1_000_000;
+        long id = nextId++;
+        return switch (random.nextInt(3)) {
+            case 0 -> new TriggerOrder(id, id % 1000, 0, TriggerType.STOP_LOSS, FixedPoint.ONE,
+                    price - offset, FixedPoint.NULL, FixedPoint.NULL);
+            case 1 -> new TriggerOrder(id, id % 1000, 0, TriggerType.TAKE_PROFIT, FixedPoint.ONE,
+                    price + offset, FixedPoint.NULL, FixedPoint.NULL);
+            default -> new TriggerOrder(id, id % 1000, 0, TriggerType.TRAILING_STOP, FixedPoint.ONE,
+                    FixedPoint.NULL, offset, price);
+        };
+    }
+
+    @Benchmark
+    public int triggerIndex() {
+        long price = ticks[next++ & (TICKS - 1)];
+        index.takeTriggered(price, fired);
+        int count = fired.size();
+        for (int i = 0; i < count; i++) {
+            index.add(newOrder(price));
+        }
+        fired.clear();
+        return count;
+    }
+
+    @Benchmark
+    public int scanAllOrders() {
+        long price = ticks[next++ & (TICKS - 1)];
+        int count = 0;
+        for (int i = 0; i < orders.length; i++) {
+            TriggerOrder order = orders[i];
+            boolean triggered = switch (order.type()) {
+                case STOP_LOSS -> order.triggerPrice() >= price;
+                case TAKE_PROFIT -> order.triggerPrice() <= price;
+                case TRAILING_STOP -> {
+                    peaks[i] = Math.max(peaks[i], price);
+                    yield peaks[i] - order.trailDistance() >= price;
+                }
+            };
+            if (triggered) {
+                fired.add(order);
+                orders[i] = newOrder(price);
+                peaks[i] = orders[i].peak();
+                count++;
+            }
+        }
+        fired.clear();
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TriggerIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,122 @@
+package com.trading212.Trading212.service;
+
+import com.trading212.Trading212.service.WebSocket.KrakenBookDecoder;
+import com.trading212.Trading212.util.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Applies a {@code book-10} snapshot and updates in Kraken's wire format through
+ * {@link KrakenBookDecoder}. The checksums were computed with Kraken's documented algorithm over
+ * the price and volume strings, independently of {@link L2OrderBook}'s digit-by-digit version.
+ */
+class L2OrderBookTest {
+
+    private static final String SNAPSHOT = """
+            [336,{"as":[["50000.10000","0.50000000","1700000000.100000"],["50000.20000","1.00000000","1700000000.100000"],\
+            ["50000.30000","1.00000000","1700000000.100000"],["50000.40000","1.25000000","1700000000.100000"],\
+            ["50000.50000","1.50000000","1700000000.100000"],["50000.60000","1.75000000","1700000000.100000"],\
+            ["50000.70000","2.00000000","1700000000.100000"],["50000.80000","2.25000000","1700000000.100000"],\
+            ["50000.90000","2.50000000","1700000000.100000"],["50001.00000","2.75000000","1700000000.100000"]],\
+            "bs":[["50000.00000","0.40000000","1700000000.100000"],["49999.90000","0.70000000","1700000000.100000"],\
+            ["49999.80000","1.00000000","1700000000.100000"],["49999.70000","1.30000000","1700000000.100000"],\
+            ["49999.60000","1.60000000","1700000000.100000"],["49999.50000","1.90000000","1700000000.100000"],\
+            ["49999.40000","2.20000000","1700000000.100000"],["49999.30000","2.50000000","1700000000.100000"],\
+            ["49999.20000","2.80000000","1700000000.100000"],["49999.10000","3.10000000","1700000000.100000"]]},\
+            "book-10","XBT/USD"]""";
+    private static final long SNAPSHOT_CHECKSUM = 2695303824L;
+
+    // Ask volume change, and a new bid that pushes 49999.1 out of the top 10
+    private static final String UPDATE_1 = """
+            [336,{"a":[["50000.30000","0.12500000","1700000000.200000"]]},\
+            {"b":[["49999.95000","2.00000000","1700000000.200000"]],"c":"3894912203"},"book-10","XBT/USD"]""";
+    // A better ask that pushes 50001.0 out of the top 10
+    private static final String UPDATE_2 = """
+            [336,{"a":[["50000.05000","0.01000000","1700000000.300000"]],"c":"2742836531"},"book-10","XBT/USD"]""";
+    // A bid removed, and 49999.1 republished as it comes back into the top 10
+    private static final String UPDATE_3 = """
+            [336,{"b":[["49999.80000","0.00000000","1700000000.400000"],\
+            ["49999.10000","3.10000000","1700000000.400000","r"]],"c":"2198291326"},"book-10","XBT/USD"]""";
+
+    private final KrakenBookDecoder decoder = new KrakenBookDecoder();
+    private final L2BookDelta delta = new L2BookDelta();
+    private L2OrderBook book;
+
+    @BeforeEach
+    void setUp() {
+        book = new L2OrderBook("XBT/USD", 10);
+    }
+
+    private boolean apply(String frame) {
+        assertTrue(decoder.decode(frame, delta), "frame should decode");
+        return book.apply(delta, 0);
+    }
+
+    private static String withChecksum(String frame, long checksum) {
+        return frame.replace("]]},\"book-10\"", "]],\"c\":\"" + checksum + "\"},\"book-10\"");
+    }
+
+    @Test
+    void snapshotMatchingChecksumIsValid() {
+        assertTrue(apply(withChecksum(SNAPSHOT, SNAPSHOT_CHECKSUM)));
+        assertTrue(book.isValid());
+        assertEquals(Optional.of(new BigDecimal("50000.10000")), book.bestAsk());
+        assertEquals(Optional.of(new BigDecimal("50000.00000")), book.bestBid());
+    }
+
+    @Test
+    void updatesKeepPublishedChecksums() {
+        assertTrue(apply(SNAPSHOT));
+        assertTrue(apply(UPDATE_1), "update 1");
+        assertTrue(apply(UPDATE_2), "update 2");
+        assertTrue(apply(UPDATE_3), "update 3");
+        assertTrue(book.isValid());
+        assertEquals(Optional.of(new BigDecimal("50000.05000")), book.bestAsk());
+        assertEquals(Optional.of(new BigDecimal("50000.00000")), book.bestBid());
+    }
+
+    @Test
+    void fillPriceWalksTheBook() {
+        apply(SNAPSHOT);
+        apply(UPDATE_1);
+        apply(UPDATE_2);
+        apply(UPDATE_3);
+
+        // 0.01 @ 50000.05 + 0.5 @ 50000.1 + 0.49 @ 50000.2
+        assertEquals(OptionalLong.of(FixedPoint.parse("50000.1485")), book.fillPrice(true, FixedPoint.ONE));
+        // 0.4 @ 50000.0 + 0.6 @ 49999.95
+        assertEquals(OptionalLong.of(FixedPoint.parse("49999.97")), book.fillPrice(false, FixedPoint.ONE));
+        // Top of the book only
+        assertEquals(OptionalLong.of(FixedPoint.parse("50000.05")), book.fillPrice(true, FixedPoint.parse("0.01")));
+        assertEquals(OptionalLong.empty(), book.fillPrice(true, 1_000 * FixedPoint.ONE));
+        assertEquals(OptionalLong.empty(), book.fillPrice(true, 0));
+    }
+
+    @Test
+    void checksumMismatchInvalidatesUntilNextSnapshot() {
+        assertTrue(apply(SNAPSHOT));
+        assertFalse(apply(UPDATE_2), "update 2 expects update 1 to have been applied");
+        assertFalse(book.isValid());
+        assertEquals(Optional.empty(), book.bestAsk());
+        assertEquals(OptionalLong.empty(), book.fillPrice(true, FixedPoint.ONE));
+        assertFalse(apply(UPDATE_1), "updates are ignored until the next snapshot");
+
+        assertTrue(apply(withChecksum(SNAPSHOT, SNAPSHOT_CHECKSUM)));
+        assertTrue(apply(UPDATE_1));
+        assertTrue(book.isValid());
+    }
+
+    @Test
+    void snapshotWithWrongChecksumIsInvalid() {
+        assertFalse(apply(withChecksum(SNAPSHOT, SNAPSHOT_CHECKSUM + 1)));
+        assertFalse(book.isValid());
+    }
+}
@@ -0,0 +1,84 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReconnectSupervisorTest {
+
+    private final ReconnectSupervisor supervisor = new ReconnectSupervisor(100, 10_000, 60_000);
+    private final ReconnectSupervisor.Reconnector reconnector = supervisor.register(() -> { });
+
+    @AfterEach
+    void shutdown() {
+        supervisor.shutdown();
+    }
+
+    /**
+     * Loses the connection and waits for the scheduled attempt to run, so the next one can be scheduled.
+     */
+    private long lose() throws InterruptedException {
+        long delay = reconnector.schedule();
+        assertTrue(delay >= 0);
+        Thread.sleep(delay + 50);
+        return delay;
+    }
+
+    @Test
+    void delayDoublesUpToTheMaximumWithJitter() {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            long backoff = Math.min(100L << attempt, 10_000);
+            long delay = supervisor.delayFor(attempt);
+            assertTrue(delay >= backoff / 2 && delay <= backoff, "attempt " + attempt + ": " + delay);
+        }
+    }
+
+    @Test
+    void onlyOneAttemptIsPending() {
+        assertTrue(reconnector.schedule() >= 0);
+        assertEquals(-1, reconnector.schedule());
+        assertEquals(1, reconnector.getAttempts());
+    }
+
+    @Test
+    void handshakeAloneDoesNotResetTheBackoff() throws InterruptedException {
+        lose();
+        for (int flap = 0; flap < 3; flap++) {
+            // Accepted and closed before any data arrived
+            reconnector.connected();
+            lose();
+        }
+        assertEquals(4, reconnector.getAttempts());
+    }
+
+    @Test
+    void firstDataFrameResetsTheBackoff() throws InterruptedException {
+        lose();
+        reconnector.connected();
+        lose();
+        assertEquals(2, reconnector.getAttempts());
+
+        reconnector.connected();
+        reconnector.dataReceived();
+        assertEquals(0, reconnector.getAttempts());
+        assertTrue(lose() <= 100);
+    }
+
+    @Test
+    void connectionThatStayedUpResetsTheBackoff() throws InterruptedException {
+        ReconnectSupervisor quick = new ReconnectSupervisor(100, 10_000, 0);
+        try {
+            ReconnectSupervisor.Reconnector quiet = quick.register(() -> { });
+            Thread.sleep(quiet.schedule() + 50);
+            quiet.connected();
+            assertEquals(1, quiet.getAttempts());
+            // Schedules attempt 0 again
+            assertTrue(quiet.schedule() >= 0);
+            assertEquals(1, quiet.getAttempts());
+        } finally {
+            quick.shutdown();
+        }
+    }
+}
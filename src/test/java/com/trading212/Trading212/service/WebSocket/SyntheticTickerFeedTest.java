@@ -0,0 +1,48 @@
+package com.trading212.Trading212.service.WebSocket;
+
+import com.trading212.Trading212.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticTickerFeedTest {
+
+    private final StringBuilder frame = new StringBuilder();
+
+    @Test
+    void feedWithoutPairsGeneratesNothing() {
+        SyntheticTickerFeed feed = new SyntheticTickerFeed(List.of(), null, 1);
+        assertNull(feed.next(frame));
+        assertNull(feed.next(frame));
+        assertEquals(0, frame.length());
+    }
+
+    @Test
+    void cyclesThroughThePairs() {
+        SyntheticTickerFeed feed = new SyntheticTickerFeed(List.of("XBT/USD", "ETH/USD"), null, 1);
+        assertEquals("XBT/USD", feed.next(frame));
+        assertEquals("ETH/USD", feed.next(frame));
+        assertEquals("XBT/USD", feed.next(frame));
+        assertEquals(2, feed.channelId("ETH/USD"));
+        assertEquals(-1, feed.channelId("XDG/USD"));
+    }
+
+    @Test
+    void framesDecodeAsTickersStartingAtTheInitialPrice() {
+        List<String> pairs = List.of("XBT/USD");
+        SyntheticTickerFeed feed = new SyntheticTickerFeed(pairs, pair -> new BigDecimal("50000.5"), 1);
+        KrakenTickerDecoder decoder = new KrakenTickerDecoder(pairs);
+        KrakenTick tick = new KrakenTick();
+
+        feed.next(frame);
+        assertTrue(decoder.decode(frame, tick), frame.toString());
+        assertEquals("XBT/USD", tick.getPair());
+        assertEquals(FixedPoint.of(new BigDecimal("50000.5")), tick.getLastPrice());
+        assertTrue(tick.getBidPrice() < tick.getLastPrice() && tick.getLastPrice() < tick.getAskPrice());
+    }
+}
@@ -0,0 +1,209 @@
+package com.trading212.Trading212.service.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers a few accounts from many threads through {@link AccountLanes} with the read-check-write
+ * steps of {@code TradingService}, on an in-memory ledger that has no locking of its own, and checks
+ * that every balance and holding ends up exactly where the accepted orders put it, one order at a
+ * time and with group commit.
+ */
+class AccountLanesStressTest {
+
+    private static final int ACCOUNTS = 16;
+    private static final int CLIENT_THREADS = 32;
+    private static final int ORDERS_PER_THREAD = 5_000;
+    private static final long INITIAL_BALANCE = 1_000_000;
+    private static final long PRICE = 100;
+
+    private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+    private AccountLanes lanes;
+
+    @AfterEach
+    void stopLanes() {
+        lanes.stop();
+    }
+
+    @Test
+    void concurrentOrdersLeaveNoBalanceOrHoldingDrift() throws InterruptedException {
+        lanes = new AccountLanes(transactionManager, 4, 1024, 30_000, false, 1, 0);
+        runOrders();
+        assertEquals(0, transactionManager.commits.sum(), "transactions opened by the lanes");
+    }
+
+    @Test
+    void groupCommittedOrdersLeaveNoBalanceOrHoldingDrift() throws InterruptedException {
+        lanes = new AccountLanes(transactionManager, 4, 1024, 30_000, true, 32, 1);
+        runOrders();
+        long commits = transactionManager.commits.sum();
+        assertTrue(commits > 0 && commits < CLIENT_THREADS * ORDERS_PER_THREAD,
+                "expected fewer commits than orders, got " + commits);
+    }
+
+    private void runOrders() throws InterruptedException {
+        Account[] accounts = new Account[ACCOUNTS];
+        LongAdder[] expectedBalance = new LongAdder[ACCOUNTS];
+        LongAdder[] expectedHolding = new LongAdder[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = new Account();
+            expectedBalance[i] = new LongAdder();
+            expectedHolding[i] = new LongAdder();
+        }
+        LongAdder rejected = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> clients = new ArrayList<>(CLIENT_THREADS);
+        for (int t = 0; t < CLIENT_THREADS; t++) {
+            Thread client = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int n = 0; n < ORDERS_PER_THREAD; n++) {
+                        int id = random.nextInt(ACCOUNTS);
+                        long quantity = 1 + random.nextInt(20);
+                        int kind = random.nextInt(3);
+                        try {
+                            if (kind == 0) {
+                                lanes.execute(id, () -> accounts[id].buy(quantity));
+                                expectedBalance[id].add(-quantity * PRICE);
+                                expectedHolding[id].add(quantity);
+                            } else if (kind == 1) {
+                                lanes.execute(id, () -> accounts[id].sell(quantity));
+                                expectedBalance[id].add(quantity * PRICE);
+                                expectedHolding[id].add(-quantity);
+                            } else {
+                                lanes.execute(id, () -> accounts[id].deposit(quantity));
+                                expectedBalance[id].add(quantity);
+                            }
+                        } catch (IllegalStateException e) {
+                            // Insufficient balance or holding: nothing was applied
+                            rejected.increment();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "stress-client-" + t);
+            clients.add(client);
+            client.start();
+        }
+        start.countDown();
+        for (Thread client : clients) {
+            client.join();
+        }
+
+        assertNull(failure.get(), () -> "Client failed: " + failure.get());
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = accounts[i];
+            assertEquals(INITIAL_BALANCE + expectedBalance[i].sum(), account.balance, "balance of account " + i);
+            assertEquals(expectedHolding[i].sum(), account.holding, "holding of account " + i);
+            assertTrue(account.balance >= 0 && account.holding >= 0, "account " + i + " went negative");
+            assertEquals(1, account.maxConcurrent.get(), "account " + i + " was written concurrently");
+        }
+        assertTrue(rejected.sum() < CLIENT_THREADS * ORDERS_PER_THREAD,
+                () -> "all " + rejected.sum() + " orders were rejected, lanes " + lanes.getStatus());
+    }
+
+    /**
+     * Counts the group transactions the lanes open; the ledger itself is not transactional.
+     */
+    private static final class CountingTransactionManager implements PlatformTransactionManager {
+        private final LongAdder commits = new LongAdder();
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            commits.increment();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+
+    /**
+     * An account as the trading code sees it: read, check, then write back an absolute value, with
+     * nothing stopping two writers from interleaving except the lane.
+     */
+    private static final class Account {
+        private long balance = INITIAL_BALANCE;
+        private long holding;
+        private final AtomicInteger writers = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        private Void buy(long quantity) {
+            enter();
+            try {
+                long read = balance;
+                long cost = quantity * PRICE;
+                if (read < cost) {
+                    throw new IllegalStateException("Insufficient balance");
+                }
+                long heldBefore = holding;
+                // Widens the window in which an unserialized writer would lose an update
+                Thread.yield();
+                balance = read - cost;
+                holding = heldBefore + quantity;
+                return null;
+            } finally {
+                writers.decrementAndGet();
+            }
+        }
+
+        private Void sell(long quantity) {
+            enter();
+            try {
+                long heldBefore = holding;
+                if (heldBefore < quantity) {
+                    throw new IllegalStateException("Insufficient quantity to sell");
+                }
+                long read = balance;
+                Thread.yield();
+                holding = heldBefore - quantity;
+                balance = read + quantity * PRICE;
+                return null;
+            } finally {
+                writers.decrementAndGet();
+            }
+        }
+
+        private Void deposit(long amount) {
+            enter();
+            try {
+                long read = balance;
+                Thread.yield();
+                balance = read + amount;
+                return null;
+            } finally {
+                writers.decrementAndGet();
+            }
+        }
+
+        private void enter() {
+            int concurrent = writers.incrementAndGet();
+            maxConcurrent.accumulateAndGet(concurrent, Math::max);
+        }
+    }
+}
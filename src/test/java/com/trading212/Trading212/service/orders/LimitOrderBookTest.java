@@ -0,0 +1,161 @@
+package com.trading212.Trading212.service.orders;
+
+import com.trading212.Trading212.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimitOrderBookTest {
+
+    private final LimitOrderBook book = new LimitOrderBook();
+    private final List<RestingOrder> crossed = new ArrayList<>();
+    private long nextId;
+
+    private RestingOrder bid(long limitPrice) {
+        return new RestingOrder(nextId++, 1, 0, TransactionType.BUY, 1, limitPrice);
+    }
+
+    private RestingOrder ask(long limitPrice) {
+        return new RestingOrder(nextId++, 1, 0, TransactionType.SELL, 1, limitPrice);
+    }
+
+    @Test
+    void crossesBidsAtOrAboveAndAsksAtOrBelowThePrice() {
+        RestingOrder bid990 = bid(990);
+        RestingOrder bid1000 = bid(1000);
+        RestingOrder ask1010 = ask(1010);
+        RestingOrder ask1020 = ask(1020);
+        List.of(bid990, bid1000, ask1010, ask1020).forEach(book::add);
+
+        // Inside the spread
+        assertFalse(book.takeCrossed(1005, crossed));
+        assertTrue(crossed.isEmpty());
+
+        // A bid limited at the price crosses; a lower one does not
+        assertTrue(book.takeCrossed(1000, crossed));
+        assertEquals(List.of(bid1000), crossed);
+        crossed.clear();
+
+        // An ask limited at the price crosses; a higher one does not
+        assertTrue(book.takeCrossed(1010, crossed));
+        assertEquals(List.of(ask1010), crossed);
+        assertEquals(1, book.getBidCount());
+        assertEquals(1, book.getAskCount());
+    }
+
+    @Test
+    void takesBestLimitFirstAndArrivalOrderWithinALevel() {
+        RestingOrder first = bid(100);
+        RestingOrder low = bid(98);
+        RestingOrder best = bid(105);
+        RestingOrder second = bid(100);
+        List.of(first, low, best, second).forEach(book::add);
+
+        assertTrue(book.takeCrossed(97, crossed));
+        assertEquals(List.of(best, first, second, low), crossed);
+        assertEquals(0, book.getBidCount());
+
+        crossed.clear();
+        RestingOrder askFirst = ask(110);
+        RestingOrder askBest = ask(107);
+        RestingOrder askSecond = ask(110);
+        List.of(askFirst, askBest, askSecond).forEach(book::add);
+        assertTrue(book.takeCrossed(111, crossed));
+        assertEquals(List.of(askBest, askFirst, askSecond), crossed);
+    }
+
+    @Test
+    void appendsToTheCrossedList() {
+        RestingOrder earlier = ask(1);
+        crossed.add(earlier);
+        assertFalse(book.takeCrossed(100, crossed));
+        book.add(bid(100));
+        assertTrue(book.takeCrossed(100, crossed));
+        assertEquals(2, crossed.size());
+        assertEquals(earlier, crossed.get(0));
+    }
+
+    @Test
+    void cancelledOrdersDoNotCross() {
+        RestingOrder kept = bid(100);
+        RestingOrder cancelled = bid(100);
+        book.add(kept);
+        book.add(cancelled);
+
+        assertTrue(book.remove(cancelled));
+        assertFalse(book.remove(cancelled));
+        assertEquals(1, book.getBidCount());
+        assertTrue(book.takeCrossed(100, crossed));
+        assertEquals(List.of(kept), crossed);
+    }
+
+    @Test
+    void removingTheLastOrderOfALevelRemovesTheLevel() {
+        RestingOrder only = ask(105);
+        RestingOrder other = ask(110);
+        book.add(only);
+        book.add(other);
+
+        assertTrue(book.remove(only));
+        assertFalse(book.takeCrossed(105, crossed));
+        assertTrue(book.takeCrossed(110, crossed));
+        assertEquals(List.of(other), crossed);
+    }
+
+    @Test
+    void takenOrdersCanBeAddedBack() {
+        RestingOrder order = bid(100);
+        book.add(order);
+        assertTrue(book.takeCrossed(100, crossed));
+        assertFalse(book.remove(order), "a taken order is no longer in the book");
+
+        // As after a lane rejected it
+        book.add(order);
+        assertEquals(1, book.getBidCount());
+        crossed.clear();
+        assertTrue(book.takeCrossed(99, crossed));
+        assertEquals(List.of(order), crossed);
+    }
+
+    @Test
+    void matchesAScanOfAllOrders() {
+        Random random = new Random(42);
+        List<RestingOrder> open = new ArrayList<>();
+        long price = 10_000;
+        for (int step = 0; step < 50_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 4) {
+                RestingOrder order = random.nextBoolean()
+                        ? bid(price - random.nextInt(200))
+                        : ask(price + random.nextInt(200));
+                book.add(order);
+                open.add(order);
+            } else if (action < 5 && !open.isEmpty()) {
+                RestingOrder order = open.remove(random.nextInt(open.size()));
+                assertTrue(book.remove(order));
+            } else {
+                price += random.nextInt(41) - 20;
+                Set<RestingOrder> expected = new HashSet<>();
+                for (RestingOrder order : open) {
+                    if (order.isBuy() ? order.limitPrice() >= price : order.limitPrice() <= price) {
+                        expected.add(order);
+                    }
+                }
+                crossed.clear();
+                book.takeCrossed(price, crossed);
+                assertEquals(expected.size(), crossed.size());
+                assertEquals(expected, new HashSet<>(crossed));
+                open.removeAll(expected);
+            }
+            assertEquals(open.size(), book.getBidCount() + book.getAskCount());
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.trading212.Trading212.service.orders;
+
+import com.trading212.Trading212.model.TriggerType;
+import com.trading212.Trading212.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TriggerIndexTest {
+
+    private final TriggerIndex index = new TriggerIndex();
+    private final List<TriggerOrder> fired = new ArrayList<>();
+    private long nextId;
+
+    private TriggerOrder stopLoss(long triggerPrice) {
+        return new TriggerOrder(nextId++, 1, 0, TriggerType.STOP_LOSS, 1, triggerPrice, FixedPoint.NULL, FixedPoint.NULL);
+    }
+
+    private TriggerOrder takeProfit(long triggerPrice) {
+        return new TriggerOrder(nextId++, 1, 0, TriggerType.TAKE_PROFIT, 1, triggerPrice, FixedPoint.NULL, FixedPoint.NULL);
+    }
+
+    private TriggerOrder trailingStop(long trailDistance, long peak) {
+        return new TriggerOrder(nextId++, 1, 0, TriggerType.TRAILING_STOP, 1, FixedPoint.NULL, trailDistance, peak);
+    }
+
+    private List<Long> tick(long price) {
+        fired.clear();
+        index.takeTriggered(price, fired);
+        return fired.stream().map(TriggerOrder::id).toList();
+    }
+
+    private Map<Long, Long> drainRaisedPeaks() {
+        Map<Long, Long> peaks = new HashMap<>();
+        index.drainRaisedPeaks(peaks);
+        return peaks;
+    }
+
+    @Test
+    void stopLossFiresAtOrBelowItsTrigger() {
+        TriggerOrder high = stopLoss(95);
+        TriggerOrder low = stopLoss(90);
+        index.add(low);
+        index.add(high);
+
+        assertEquals(List.of(), tick(96));
+        assertEquals(List.of(high.id()), tick(95));
+        assertEquals(List.of(), tick(91));
+        assertEquals(List.of(low.id()), tick(80));
+        assertEquals(0, index.getStopLossCount());
+    }
+
+    @Test
+    void takeProfitFiresAtOrAboveItsTrigger() {
+        TriggerOrder low = takeProfit(105);
+        TriggerOrder high = takeProfit(110);
+        index.add(high);
+        index.add(low);
+
+        assertEquals(List.of(), tick(104));
+        assertEquals(List.of(low.id()), tick(105));
+        assertEquals(List.of(), tick(109));
+        assertEquals(List.of(high.id()), tick(120));
+        assertEquals(0, index.getTakeProfitCount());
+    }
+
+    @Test
+    void oneTickFiresEveryOrderItReaches() {
+        List.of(stopLoss(95), stopLoss(94), stopLoss(93), takeProfit(200)).forEach(index::add);
+        assertEquals(3, tick(90).size());
+        assertEquals(1, index.getTakeProfitCount());
+        assertFalse(index.takeTriggered(90, fired));
+    }
+
+    @Test
+    void removedOrdersDoNotFire() {
+        TriggerOrder stop = stopLoss(95);
+        TriggerOrder profit = takeProfit(105);
+        TriggerOrder trailing = trailingStop(5, 100);
+        List.of(stop, profit, trailing).forEach(index::add);
+
+        assertTrue(index.remove(stop));
+        assertTrue(index.remove(profit));
+        assertTrue(index.remove(trailing));
+        assertFalse(index.remove(stop));
+        assertFalse(index.remove(trailing));
+        assertEquals(List.of(), tick(50));
+        assertEquals(List.of(), tick(150));
+        assertEquals(0, index.getTrailingGroupCount());
+    }
+
+    @Test
+    void firedOrdersCanBeAddedBack() {
+        TriggerOrder stop = stopLoss(95);
+        index.add(stop);
+        assertEquals(List.of(stop.id()), tick(95));
+        assertFalse(index.remove(stop), "a fired order is no longer in the index");
+
+        // As after a lane rejected it
+        index.add(stop);
+        assertEquals(List.of(stop.id()), tick(94));
+    }
+
+    @Test
+    void trailingStopFiresItsDistanceBelowThePeak() {
+        TriggerOrder order = trailingStop(10, 100);
+        index.add(order);
+
+        assertEquals(List.of(), tick(91));
+        assertEquals(List.of(order.id()), tick(90));
+        assertEquals(100, fired.get(0).peak());
+    }
+
+    @Test
+    void trailingStopFollowsNewHighs() {
+        TriggerOrder order = trailingStop(10, 100);
+        index.add(order);
+
+        assertEquals(List.of(), tick(120));
+        assertEquals(List.of(), tick(111));
+        // The stop moved up to 110 with the peak
+        assertEquals(List.of(order.id()), tick(110));
+        assertEquals(120, fired.get(0).peak());
+        assertEquals(110, fired.get(0).stopPrice());
+    }
+
+    @Test
+    void newHighMergesTheGroupsItPasses() {
+        TriggerOrder atHundred = trailingStop(10, 100);
+        TriggerOrder atHundredFive = trailingStop(3, 105);
+        TriggerOrder atHundredFifty = trailingStop(70, 150);
+        List.of(atHundred, atHundredFive, atHundredFifty).forEach(index::add);
+        assertEquals(3, index.getTrailingGroupCount());
+
+        assertEquals(List.of(), tick(110));
+        // The two lower peaks now trail 110 together
+        assertEquals(2, index.getTrailingGroupCount());
+        assertEquals(3, index.getTrailingStopCount());
+
+        // Shortest distance first: 110 - 3
+        assertEquals(List.of(atHundredFive.id()), tick(107));
+        assertEquals(List.of(), tick(101));
+        assertEquals(List.of(atHundred.id()), tick(100));
+        assertEquals(110, fired.get(0).peak());
+        assertEquals(1, index.getTrailingGroupCount());
+
+        // 150 - 70
+        assertEquals(List.of(), tick(81));
+        assertEquals(List.of(atHundredFifty.id()), tick(80));
+    }
+
+    @Test
+    void mergedOrdersCanBeRemoved() {
+        TriggerOrder kept = trailingStop(10, 100);
+        TriggerOrder removed = trailingStop(2, 101);
+        index.add(kept);
+        index.add(removed);
+        tick(105);
+        assertEquals(1, index.getTrailingGroupCount());
+
+        assertTrue(index.remove(removed));
+        assertEquals(List.of(), tick(103));
+        assertEquals(List.of(kept.id()), tick(95));
+    }
+
+    @Test
+    void trailingStopAddedAfterTicksTrailsTheLastPrice() {
+        tick(120);
+        // Placed with a peak older than the last tick
+        TriggerOrder order = trailingStop(10, 100);
+        index.add(order);
+
+        assertEquals(Map.of(order.id(), 120L), drainRaisedPeaks());
+        assertEquals(List.of(), tick(111));
+        assertEquals(List.of(order.id()), tick(110));
+    }
+
+    @Test
+    void raisedPeaksAreDrainedOnce() {
+        TriggerOrder first = trailingStop(10, 100);
+        TriggerOrder second = trailingStop(5, 102);
+        TriggerOrder untouched = trailingStop(150, 200);
+        List.of(first, second, untouched).forEach(index::add);
+        assertEquals(Map.of(), drainRaisedPeaks());
+
+        tick(105);
+        assertEquals(Map.of(first.id(), 105L, second.id(), 105L), drainRaisedPeaks());
+        assertEquals(Map.of(), drainRaisedPeaks());
+
+        tick(104);
+        assertEquals(Map.of(), drainRaisedPeaks());
+        tick(106);
+        assertEquals(Map.of(first.id(), 106L, second.id(), 106L), drainRaisedPeaks());
+    }
+
+    @Test
+    void matchesANaiveModel() {
+        Random random = new Random(7);
+        for (int run = 0; run < 200; run++) {
+            TriggerIndex runIndex = new TriggerIndex();
+            Map<Long, TriggerOrder> active = new HashMap<>();
+            // Peak of each active trailing stop, moved on every tick
+            Map<Long, Long> peaks = new HashMap<>();
+            long price = 1000;
+            for (int step = 0; step < 400; step++) {
+                int action = random.nextInt(10);
+                if (action < 3) {
+                    TriggerOrder order = switch (random.nextInt(3)) {
+                        case 0 -> stopLoss(price - random.nextInt(40));
+                        case 1 -> takeProfit(price + random.nextInt(40));
+                        default -> trailingStop(1 + random.nextInt(30), price);
+                    };
+                    runIndex.add(order);
+                    active.put(order.id(), order);
+                    if (order.type() == TriggerType.TRAILING_STOP) {
+                        peaks.put(order.id(), price);
+                    }
+                } else if (action < 4 && !active.isEmpty()) {
+                    List<Long> ids = new ArrayList<>(active.keySet());
+                    TriggerOrder order = active.remove(ids.get(random.nextInt(ids.size())));
+                    peaks.remove(order.id());
+                    assertTrue(runIndex.remove(order));
+                } else {
+                    price += random.nextInt(21) - 10;
+                    Set<Long> expected = new HashSet<>();
+                    for (TriggerOrder order : active.values()) {
+                        boolean triggered = switch (order.type()) {
+                            case STOP_LOSS -> price <= order.triggerPrice();
+                            case TAKE_PROFIT -> price >= order.triggerPrice();
+                            case TRAILING_STOP -> {
+                                long peak = Math.max(peaks.get(order.id()), price);
+                                peaks.put(order.id(), peak);
+                                yield price <= peak - order.trailDistance();
+                            }
+                        };
+                        if (triggered) {
+                            expected.add(order.id());
+                        }
+                    }
+                    fired.clear();
+                    runIndex.takeTriggered(price, fired);
+                    Set<Long> actual = new HashSet<>();
+                    for (TriggerOrder order : fired) {
+                        actual.add(order.id());
+                        if (order.type() == TriggerType.TRAILING_STOP) {
+                            assertEquals(peaks.get(order.id()).longValue(), order.peak(), "peak of " + order.id());
+                        }
+                    }
+                    assertEquals(expected.size(), fired.size());
+                    assertEquals(expected, actual);
+                    for (Long id : expected) {
+                        active.remove(id);
+                        peaks.remove(id);
+                    }
+                    Map<Long, Long> raised = new HashMap<>();
+                    runIndex.drainRaisedPeaks(raised);
+                    raised.forEach((id, peak) -> assertEquals(peaks.get(id), peak, "drained peak of " + id));
+                }
+                assertEquals(active.size(),
+                        runIndex.getStopLossCount() + runIndex.getTakeProfitCount() + runIndex.getTrailingStopCount());
+            }
+        }
+    }
+}
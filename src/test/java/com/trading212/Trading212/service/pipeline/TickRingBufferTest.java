@@ -0,0 +1,68 @@
+package com.trading212.Trading212.service.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickRingBufferTest {
+
+    private final TickRingBuffer ring = new TickRingBuffer(4);
+    private final AtomicLong consumer = new AtomicLong(-1);
+
+    TickRingBufferTest() {
+        ring.setGatingSequences(consumer);
+    }
+
+    @Test
+    void sizeMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TickRingBuffer(6));
+        assertThrows(IllegalArgumentException.class, () -> new TickRingBuffer(0));
+    }
+
+    @Test
+    void publishedSequencesBecomeVisibleInTheirSlot() {
+        long first = ring.next();
+        long second = ring.next();
+        assertEquals(0, first);
+        assertEquals(1, second);
+
+        ring.publish(second);
+        assertFalse(ring.isPublished(first));
+        assertTrue(ring.isPublished(second));
+        ring.publish(first);
+        assertTrue(ring.isPublished(first));
+        assertEquals(1, ring.getCursor());
+    }
+
+    @Test
+    void claimNeverWaitsButTheSlotDoesUntilConsumersCatchUp() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            ring.publish(ring.next());
+        }
+        // The ring is full: claiming still returns at once
+        long sequence = ring.claim();
+        assertEquals(4, sequence);
+
+        CountDownLatch slotFree = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            ring.awaitSlot(sequence);
+            slotFree.countDown();
+        });
+        producer.start();
+        assertFalse(slotFree.await(50, TimeUnit.MILLISECONDS), "slot 0 has not been read yet");
+
+        consumer.set(0);
+        assertTrue(slotFree.await(1, TimeUnit.SECONDS));
+        producer.join();
+        ring.publish(sequence);
+        assertTrue(ring.isPublished(4));
+        assertFalse(ring.isPublished(0));
+    }
+}
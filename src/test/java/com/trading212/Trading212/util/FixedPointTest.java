@@ -0,0 +1,175 @@
+package com.trading212.Trading212.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.BinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedPointTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void parsesPlainDecimals() {
+        assertEquals(5 * FixedPoint.ONE, FixedPoint.parse("5"));
+        assertEquals(FixedPoint.ONE / 2, FixedPoint.parse(".5"));
+        assertEquals(2 * FixedPoint.ONE, FixedPoint.parse("+2."));
+        assertEquals(-6_701_210_000_000L, FixedPoint.parse("-67012.10000"));
+        assertEquals(12_345_678L, FixedPoint.parse("0.12345678"));
+        assertEquals(0, FixedPoint.parse("-0.00000000"));
+        assertEquals(150_000_000L, FixedPoint.parse("x1.5y", 1, 4));
+    }
+
+    @Test
+    void parseRoundsHalfUpOnTheFirstDiscardedDigit() {
+        assertEquals(112_345_679L, FixedPoint.parse("1.123456785"));
+        assertEquals(112_345_678L, FixedPoint.parse("1.1234567849999"));
+        assertEquals(-112_345_679L, FixedPoint.parse("-1.123456785"));
+        assertEquals(1, FixedPoint.parse("0.000000005"));
+        assertEquals(0, FixedPoint.parse("0.000000004999"));
+        assertEquals(100_000_000L, FixedPoint.parse("0.999999995"));
+    }
+
+    @Test
+    void parseMatchesBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal value = BigDecimal.valueOf(random.nextLong() % 1_000_000_000_000_000L, random.nextInt(15));
+            String text = value.toPlainString();
+            long want;
+            try {
+                want = FixedPoint.of(value);
+            } catch (ArithmeticException e) {
+                assertThrows(NumberFormatException.class, () -> FixedPoint.parse(text));
+                continue;
+            }
+            assertEquals(want, FixedPoint.parse(text), text);
+        }
+    }
+
+    @Test
+    void parseRejectsInvalidInput() {
+        for (String text : new String[]{"", "-", "+", ".", "-.", "1.2.3", "abc", "1e5", " 1", "1 ", "1,5", "--1", "0x10"}) {
+            assertThrows(NumberFormatException.class, () -> FixedPoint.parse(text));
+        }
+    }
+
+    @Test
+    void parseRejectsOutOfRange() {
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("100000000000"));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("-92233720368.54775808"));
+        assertThrows(NumberFormatException.class, () -> FixedPoint.parse("92233720368.547758075"));
+        assertEquals(Long.MAX_VALUE, FixedPoint.parse("92233720368.54775807"));
+    }
+
+    @Test
+    void multiplyMatchesBigDecimalHalfUp() {
+        assertEquals(1, FixedPoint.multiply(FixedPoint.parse("0.00005"), FixedPoint.parse("0.0001")));
+        assertEquals(0, FixedPoint.multiply(FixedPoint.parse("0.00004999"), FixedPoint.parse("0.0001")));
+        assertEquals(-1, FixedPoint.multiply(FixedPoint.parse("-0.00005"), FixedPoint.parse("0.0001")));
+        assertMatchesBigDecimal(FixedPoint::multiply,
+                (a, b) -> a.multiply(b).setScale(FixedPoint.SCALE, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void divideMatchesBigDecimalHalfUp() {
+        assertEquals(33_333_333L, FixedPoint.divide(FixedPoint.ONE, 3 * FixedPoint.ONE));
+        assertEquals(66_666_667L, FixedPoint.divide(2 * FixedPoint.ONE, 3 * FixedPoint.ONE));
+        assertEquals(-66_666_667L, FixedPoint.divide(-2 * FixedPoint.ONE, 3 * FixedPoint.ONE));
+        assertEquals(1, FixedPoint.divide(1, 2 * FixedPoint.ONE));
+        assertMatchesBigDecimal(FixedPoint::divide, (a, b) -> b.signum() == 0
+                ? null
+                : a.divide(b, FixedPoint.SCALE, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void overflowThrows() {
+        assertThrows(ArithmeticException.class, () -> FixedPoint.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.subtract(-Long.MAX_VALUE, 2));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(10_000_000_000L * FixedPoint.ONE, 10 * FixedPoint.ONE));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.divide(10_000_000_000L * FixedPoint.ONE, FixedPoint.parse("0.01")));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.divide(FixedPoint.ONE, 0));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.of(new BigDecimal("100000000000")));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.fromUnscaled(Long.MAX_VALUE, 0));
+    }
+
+    @Test
+    void nullIsNeverAResult() {
+        // Results equal to NULL would be mistaken for a missing value
+        assertThrows(ArithmeticException.class, () -> FixedPoint.add(-Long.MAX_VALUE, -1));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.subtract(-Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.fromUnscaled(Long.MIN_VALUE, FixedPoint.SCALE));
+        // Nor accepted as an operand
+        assertThrows(ArithmeticException.class, () -> FixedPoint.add(FixedPoint.NULL, 0));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.subtract(FixedPoint.NULL, 0));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.negate(FixedPoint.NULL));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.multiply(FixedPoint.NULL, FixedPoint.ONE));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.divide(FixedPoint.NULL, FixedPoint.ONE));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.divide(FixedPoint.ONE, FixedPoint.NULL));
+    }
+
+    @Test
+    void nullConvertsToAndFromNull() {
+        assertEquals(FixedPoint.NULL, FixedPoint.of(null));
+        assertNull(FixedPoint.toBigDecimal(FixedPoint.NULL));
+        assertEquals("null", FixedPoint.toString(FixedPoint.NULL));
+    }
+
+    @Test
+    void convertsToAndFromBigDecimal() {
+        assertEquals(new BigDecimal("1.50000000"), FixedPoint.toBigDecimal(150_000_000L));
+        assertEquals(112_345_679L, FixedPoint.of(new BigDecimal("1.123456785")));
+        assertEquals(-112_345_679L, FixedPoint.of(new BigDecimal("-1.123456785")));
+        assertEquals("-67012.10000000", FixedPoint.toString(FixedPoint.parse("-67012.1")));
+        assertEquals(1_234_500_000L, FixedPoint.fromUnscaled(1_234_500, 5));
+        assertEquals(12_345_679L, FixedPoint.fromUnscaled(123_456_785, 9));
+        assertEquals(-12_345_679L, FixedPoint.fromUnscaled(-123_456_785, 9));
+        assertEquals(12_345_678L, FixedPoint.fromUnscaled(1_234_567_849, 10));
+    }
+
+    /**
+     * Compares an operation with its {@code BigDecimal} equivalent over operands of mixed
+     * magnitudes, including results that overflow; {@code expected} returns {@code null} where the
+     * operation must throw.
+     */
+    private static void assertMatchesBigDecimal(LongBinaryOperator operation,
+                                                BinaryOperator<BigDecimal> expected) {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            long a = randomOperand(random);
+            long b = randomOperand(random);
+            BigDecimal exact = expected.apply(FixedPoint.toBigDecimal(a), FixedPoint.toBigDecimal(b));
+            Long want = null;
+            if (exact != null) {
+                try {
+                    want = FixedPoint.of(exact);
+                } catch (ArithmeticException e) {
+                    // Out of range
+                }
+            }
+            String operands = FixedPoint.toString(a) + ", " + FixedPoint.toString(b);
+            if (want == null) {
+                assertThrows(ArithmeticException.class, () -> operation.applyAsLong(a, b));
+            } else {
+                assertEquals(want.longValue(), operation.applyAsLong(a, b), operands);
+            }
+        }
+    }
+
+    /**
+     * A value from one unit in the last place up to the edge of the range, negative a third of
+     * the time
+     */
+    private static long randomOperand(Random random) {
+        long bound = 1L << random.nextInt(63);
+        long value = bound == 1 ? random.nextInt(2) : Math.floorMod(random.nextLong(), bound);
+        return random.nextInt(3) == 0 ? -value : value;
+    }
+}